@@ -0,0 +1,38 @@
+package com.datavion.authentication.config;
+
+import com.datavion.authentication.security.AsymmetricSigningKeyProvider;
+import com.datavion.authentication.security.HmacSigningKeyProvider;
+import com.datavion.authentication.security.KeyMaterialCipher;
+import com.datavion.authentication.security.SigningKeyProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+
+@Configuration
+public class JwtSigningConfig {
+    
+    @Bean
+    @ConditionalOnProperty(name = "app.jwt.signing.key-source", havingValue = "static", matchIfMissing = true)
+    public SigningKeyProvider signingKeyProvider(@Value("${app.jwt.signing.algorithm:HS256}") String algorithm,
+                                                 @Value("${app.jwt.secret}") String secret,
+                                                 @Value("${app.jwt.signing.key-dir:}") String keyDir,
+                                                 @Value("${app.jwt.signing.active-key-id:}") String activeKeyId) {
+        if ("HS256".equalsIgnoreCase(algorithm)) {
+            return new HmacSigningKeyProvider(secret);
+        }
+        
+        AsymmetricSigningKeyProvider.Algorithm asymmetric = AsymmetricSigningKeyProvider.Algorithm.valueOf(algorithm);
+        return keyDir.isBlank()
+                ? AsymmetricSigningKeyProvider.ephemeral(asymmetric)
+                : AsymmetricSigningKeyProvider.fromDirectory(asymmetric, Path.of(keyDir), activeKeyId);
+    }
+    
+    @Bean
+    @ConditionalOnProperty(name = "app.jwt.signing.key-source", havingValue = "ring")
+    public KeyMaterialCipher keyMaterialCipher(@Value("${app.jwt.signing.ring.encryption-secret}") String secret) {
+        return new KeyMaterialCipher(secret);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,96 @@
+package com.datavion.authentication.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.ldap.core.LdapTemplate;
+import org.springframework.ldap.core.support.LdapContextSource;
+import org.springframework.ldap.pool2.factory.PoolConfig;
+import org.springframework.ldap.pool2.factory.PooledContextSource;
+import org.springframework.ldap.pool2.validation.DefaultDirContextValidator;
+
+import java.util.Map;
+
+/**
+ * Directory connections for LDAP logins. Searches run as the service account over a pool of
+ * connections that are validated on borrow and while idle, so a dead connection is replaced
+ * before a login gets it. User binds change the connection's identity and cannot share that
+ * pool; they use {@link #ldapBindContextSource} with the same timeouts, as do the sync job's paged
+ * searches, whose request controls pooled connections refuse.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.ldap.enabled", havingValue = "true")
+public class LdapConfig {
+    
+    @Value("${spring.ldap.urls}")
+    private String[] urls;
+    
+    @Value("${spring.ldap.base}")
+    private String base;
+    
+    @Value("${spring.ldap.username:}")
+    private String username;
+    
+    @Value("${spring.ldap.password:}")
+    private String password;
+    
+    @Value("${app.ldap.connect-timeout-millis:2000}")
+    private long connectTimeoutMillis;
+    
+    @Value("${app.ldap.read-timeout-millis:3000}")
+    private long readTimeoutMillis;
+    
+    @Value("${app.ldap.pool.max-total:16}")
+    private int poolMaxTotal;
+    
+    @Value("${app.ldap.pool.min-idle:2}")
+    private int poolMinIdle;
+    
+    @Value("${app.ldap.pool.max-wait-millis:500}")
+    private long poolMaxWaitMillis;
+    
+    @Value("${app.ldap.pool.eviction-interval-millis:30000}")
+    private long poolEvictionIntervalMillis;
+    
+    @Bean
+    public LdapContextSource ldapBindContextSource() {
+        LdapContextSource contextSource = new LdapContextSource();
+        contextSource.setUrls(urls);
+        contextSource.setBase(base);
+        contextSource.setUserDn(username);
+        contextSource.setPassword(password);
+        contextSource.setAnonymousReadOnly(username.isEmpty());
+        // Without these a stalled directory holds the request thread indefinitely
+        contextSource.setBaseEnvironmentProperties(Map.of(
+                "com.sun.jndi.ldap.connect.timeout", String.valueOf(connectTimeoutMillis),
+                "com.sun.jndi.ldap.read.timeout", String.valueOf(readTimeoutMillis)));
+        contextSource.afterPropertiesSet();
+        return contextSource;
+    }
+    
+    @Bean
+    public PooledContextSource ldapPooledContextSource(LdapContextSource ldapBindContextSource) {
+        PoolConfig poolConfig = new PoolConfig();
+        poolConfig.setMaxTotal(poolMaxTotal);
+        poolConfig.setMaxTotalPerKey(poolMaxTotal);
+        poolConfig.setMaxIdlePerKey(poolMaxTotal);
+        poolConfig.setMinIdlePerKey(poolMinIdle);
+        poolConfig.setMaxWaitMillis(poolMaxWaitMillis);
+        poolConfig.setTestOnBorrow(true);
+        poolConfig.setTestWhileIdle(true);
+        poolConfig.setTimeBetweenEvictionRunsMillis(poolEvictionIntervalMillis);
+        
+        PooledContextSource pooled = new PooledContextSource(poolConfig);
+        pooled.setContextSource(ldapBindContextSource);
+        pooled.setDirContextValidator(new DefaultDirContextValidator());
+        return pooled;
+    }
+    
+    @Bean
+    public LdapTemplate ldapTemplate(PooledContextSource ldapPooledContextSource) {
+        LdapTemplate ldapTemplate = new LdapTemplate(ldapPooledContextSource);
+        ldapTemplate.setIgnorePartialResultException(true);
+        return ldapTemplate;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,37 @@
+package com.datavion.authentication.config;
+
+import com.datavion.authentication.security.AccessTokenRevocationService;
+import com.datavion.authentication.security.ApiKeyIndex;
+import com.datavion.authentication.security.KeyRingSigningKeyProvider;
+import com.datavion.authentication.security.PrincipalCache;
+import com.datavion.authentication.security.RoleAuthorityRegistry;
+import com.datavion.authentication.service.SigningKeyRotationService;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+@Configuration
+public class RedisConfig {
+    
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                       PrincipalCache principalCache,
+                                                                       RoleAuthorityRegistry roleAuthorityRegistry,
+                                                                       AccessTokenRevocationService revocationService,
+                                                                       ApiKeyIndex apiKeyIndex,
+                                                                       ObjectProvider<KeyRingSigningKeyProvider> keyRing) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        ChannelTopic invalidationTopic = new ChannelTopic(PrincipalCache.INVALIDATION_CHANNEL);
+        container.addMessageListener(principalCache, invalidationTopic);
+        container.addMessageListener(roleAuthorityRegistry, invalidationTopic);
+        container.addMessageListener(revocationService, new ChannelTopic(AccessTokenRevocationService.REVOCATION_CHANNEL));
+        container.addMessageListener(apiKeyIndex, new ChannelTopic(ApiKeyIndex.INVALIDATION_CHANNEL));
+        keyRing.ifAvailable(provider ->
+                container.addMessageListener(provider, new ChannelTopic(SigningKeyRotationService.RELOAD_CHANNEL)));
+        return container;
+    }
+}
\ No newline at end of file
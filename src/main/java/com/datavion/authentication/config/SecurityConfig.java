@@ -1,29 +1,38 @@
 package com.datavion.authentication.config;
 
+import com.datavion.authentication.entity.User;
+import com.datavion.authentication.security.ApiKeyAuthenticationFilter;
+import com.datavion.authentication.security.DirectoryAuthenticationProvider;
 import com.datavion.authentication.security.JwtAuthenticationEntryPoint;
 import com.datavion.authentication.security.JwtAuthenticationFilter;
+import com.datavion.authentication.security.RateLimitFilter;
+import com.datavion.authentication.security.UserPrincipal;
+import com.datavion.authentication.service.PasswordHashingService;
+import com.datavion.authentication.service.UserDetailsServiceImpl;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.security.authentication.AccountStatusUserDetailsChecker;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.ProviderManager;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
-import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.core.userdetails.UserDetailsService;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 
 @Configuration
 @EnableWebSecurity
@@ -31,25 +40,38 @@ import java.util.Arrays;
 @RequiredArgsConstructor
 public class SecurityConfig {
     
-    private final UserDetailsService userDetailsService;
+    private final UserDetailsServiceImpl userDetailsService;
+    private final PasswordHashingService passwordHashingService;
     private final JwtAuthenticationEntryPoint jwtAuthenticationEntryPoint;
     private final JwtAuthenticationFilter jwtAuthenticationFilter;
-    
-    @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder(12);
-    }
+    private final RateLimitFilter rateLimitFilter;
+    private final ApiKeyAuthenticationFilter apiKeyAuthenticationFilter;
+    private final ObjectProvider<DirectoryAuthenticationProvider> directoryAuthenticationProvider;
     
     @Bean
     public AuthenticationProvider authenticationProvider() {
-        DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider(userDetailsService);
-        authProvider.setPasswordEncoder(passwordEncoder());
+        DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider(userDetailsService::loadUserWithPassword);
+        authProvider.setPasswordEncoder(passwordHashingService);
+        // Outdated hashes are rewritten after a successful login
+        authProvider.setUserDetailsPasswordService(userDetailsService);
+        // Directory accounts have no local password, so skip the hash check for them entirely
+        AccountStatusUserDetailsChecker accountStatusChecker = new AccountStatusUserDetailsChecker();
+        authProvider.setPreAuthenticationChecks(user -> {
+            if (user instanceof UserPrincipal principal && principal.getUser().getSource() == User.UserSource.LDAP) {
+                throw new BadCredentialsException("Invalid credentials");
+            }
+            accountStatusChecker.check(user);
+        });
         return authProvider;
     }
     
     @Bean
-    public AuthenticationManager authenticationManager(AuthenticationConfiguration config) throws Exception {
-        return config.getAuthenticationManager();
+    public AuthenticationManager authenticationManager() {
+        // The directory provider goes first so unknown usernames are provisioned without a hash check
+        List<AuthenticationProvider> providers = new ArrayList<>();
+        directoryAuthenticationProvider.ifAvailable(providers::add);
+        providers.add(authenticationProvider());
+        return new ProviderManager(providers);
     }
     
     @Bean
@@ -59,13 +81,16 @@ public class SecurityConfig {
             .authorizeHttpRequests(authz -> authz
                 .requestMatchers("/api/v1/auth/**").permitAll()
                 .requestMatchers("/actuator/health").permitAll()
+                .requestMatchers("/.well-known/jwks.json").permitAll()
                 .requestMatchers("/swagger-ui/**", "/api-docs/**").permitAll()
                 .anyRequest().authenticated()
             )
             .exceptionHandling(ex -> ex.authenticationEntryPoint(jwtAuthenticationEntryPoint))
             .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
             .authenticationProvider(authenticationProvider())
-            .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
+            .addFilterBefore(rateLimitFilter, UsernamePasswordAuthenticationFilter.class)
+            .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class)
+            .addFilterBefore(apiKeyAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
         
         return http.build();
     }
@@ -0,0 +1,47 @@
+package com.datavion.authentication.controller;
+
+import com.datavion.authentication.dto.ApiKeyResponse;
+import com.datavion.authentication.dto.CreateApiKeyRequest;
+import com.datavion.authentication.security.UserPrincipal;
+import com.datavion.authentication.service.ApiKeyService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/v1/api-keys")
+@RequiredArgsConstructor
+@Tag(name = "API Keys", description = "API keys for machine-to-machine clients")
+public class ApiKeyController {
+    
+    private final ApiKeyService apiKeyService;
+    
+    @PostMapping
+    @Operation(summary = "Create an API key", description = "The key is only returned in this response")
+    public ResponseEntity<ApiKeyResponse> createKey(@Valid @RequestBody CreateApiKeyRequest request,
+                                                    @AuthenticationPrincipal UserPrincipal userPrincipal) {
+        ApiKeyResponse response = apiKeyService.createKey(userPrincipal.getUser().getId(), request);
+        return ResponseEntity.status(HttpStatus.CREATED).body(response);
+    }
+    
+    @GetMapping
+    @Operation(summary = "List the current user's API keys")
+    public ResponseEntity<List<ApiKeyResponse>> getKeys(@AuthenticationPrincipal UserPrincipal userPrincipal) {
+        return ResponseEntity.ok(apiKeyService.getKeys(userPrincipal.getUser().getId()));
+    }
+    
+    @DeleteMapping("/{id}")
+    @Operation(summary = "Revoke an API key")
+    public ResponseEntity<Void> revokeKey(@PathVariable Long id,
+                                          @AuthenticationPrincipal UserPrincipal userPrincipal) {
+        apiKeyService.revokeKey(userPrincipal.getUser().getId(), id);
+        return ResponseEntity.noContent().build();
+    }
+}
\ No newline at end of file
@@ -3,10 +3,14 @@ package com.datavion.authentication.controller;
 import com.datavion.authentication.dto.*;
 import com.datavion.authentication.security.UserPrincipal;
 import com.datavion.authentication.service.AuthService;
+import com.datavion.authentication.service.EmailVerificationService;
+import com.datavion.authentication.service.PasswordResetService;
+import com.datavion.authentication.service.UserService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
@@ -18,6 +22,9 @@ import org.springframework.web.bind.annotation.*;
 public class AuthController {
     
     private final AuthService authService;
+    private final UserService userService;
+    private final EmailVerificationService emailVerificationService;
+    private final PasswordResetService passwordResetService;
     
     @PostMapping("/register")
     @Operation(summary = "Register a new user")
@@ -42,26 +49,41 @@ public class AuthController {
     
     @PostMapping("/logout")
     @Operation(summary = "Logout user")
-    public ResponseEntity<Void> logout(@RequestBody(required = false) RefreshTokenRequest request) {
+    public ResponseEntity<Void> logout(@RequestBody(required = false) RefreshTokenRequest request,
+                                       @RequestHeader(name = HttpHeaders.AUTHORIZATION, required = false) String authorization) {
         String refreshToken = request != null ? request.getRefreshToken() : null;
-        authService.logout(refreshToken);
+        String accessToken = authorization != null && authorization.startsWith("Bearer ") ? authorization.substring(7) : null;
+        authService.logout(refreshToken, accessToken);
+        return ResponseEntity.ok().build();
+    }
+    
+    @GetMapping("/verify-email")
+    @Operation(summary = "Verify an email address with the emailed token")
+    public ResponseEntity<Void> verifyEmail(@RequestParam String token) {
+        emailVerificationService.verify(token);
+        return ResponseEntity.ok().build();
+    }
+    
+    @PostMapping("/password-reset/request")
+    @Operation(summary = "Email a password reset link")
+    public ResponseEntity<Void> requestPasswordReset(@Valid @RequestBody PasswordResetRequest request) {
+        // Accepted whether or not the address is known, so the endpoint cannot be used to probe accounts
+        passwordResetService.requestReset(request.getEmail());
+        return ResponseEntity.accepted().build();
+    }
+    
+    @PostMapping("/reset-password")
+    @Operation(summary = "Set a new password with the emailed token")
+    public ResponseEntity<Void> resetPassword(@Valid @RequestBody ResetPasswordRequest request) {
+        passwordResetService.resetPassword(request.getToken(), request.getNewPassword());
         return ResponseEntity.ok().build();
     }
     
     @GetMapping("/me")
     @Operation(summary = "Get current user information")
     public ResponseEntity<UserResponse> getCurrentUser(@AuthenticationPrincipal UserPrincipal userPrincipal) {
-        // Map user to response (you might want to create a separate service method for this)
-        UserResponse userResponse = UserResponse.builder()
-                .id(userPrincipal.getUser().getId())
-                .username(userPrincipal.getUser().getUsername())
-                .email(userPrincipal.getUser().getEmail())
-                .emailVerified(userPrincipal.getUser().getEmailVerified())
-                .accountLocked(userPrincipal.getUser().getAccountLocked())
-                .lastLoginAt(userPrincipal.getUser().getLastLoginAt())
-                .source(userPrincipal.getUser().getSource().name())
-                .createdAt(userPrincipal.getUser().getCreatedAt())
-                .build();
+        // The principal may be rebuilt from token claims only, so read the full profile by id
+        UserResponse userResponse = userService.getUserById(userPrincipal.getUser().getId());
         
         return ResponseEntity.ok(userResponse);
     }
@@ -0,0 +1,80 @@
+package com.datavion.authentication.controller;
+
+import com.datavion.authentication.security.SigningKeyProvider;
+import io.jsonwebtoken.security.Jwks;
+import io.jsonwebtoken.security.PublicJwk;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@RestController
+@RequiredArgsConstructor
+@Tag(name = "Keys", description = "Public keys for verifying access tokens")
+public class JwksController {
+    
+    private final SigningKeyProvider signingKeyProvider;
+    
+    @Value("${app.jwt.jwks.max-age-seconds:300}")
+    private long maxAgeSeconds;
+    
+    private volatile JwksDocument document;
+    
+    private record JwksDocument(List<PublicJwk<?>> source, String json, String etag) {
+    }
+    
+    @GetMapping(value = "/.well-known/jwks.json", produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(summary = "JSON Web Key Set of the access-token signing keys")
+    public ResponseEntity<String> jwks(@RequestHeader(name = "If-None-Match", required = false) String ifNoneMatch) {
+        JwksDocument current = currentDocument();
+        CacheControl cacheControl = CacheControl.maxAge(Duration.ofSeconds(maxAgeSeconds)).cachePublic();
+        
+        if (current.etag().equals(ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(current.etag())
+                    .cacheControl(cacheControl)
+                    .build();
+        }
+        
+        return ResponseEntity.ok()
+                .eTag(current.etag())
+                .cacheControl(cacheControl)
+                .body(current.json());
+    }
+    
+    private JwksDocument currentDocument() {
+        List<PublicJwk<?>> jwks = signingKeyProvider.publicJwks();
+        JwksDocument current = document;
+        // Providers hand out a new list only when their key set changes, so identity is enough
+        if (current == null || current.source() != jwks) {
+            String json = jwks.stream().map(Jwks::json).collect(Collectors.joining(",", "{\"keys\":[", "]}"));
+            current = new JwksDocument(jwks, json, "\"" + sha256(json) + "\"");
+            document = current;
+        }
+        return current;
+    }
+    
+    private static String sha256(String value) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
\ No newline at end of file
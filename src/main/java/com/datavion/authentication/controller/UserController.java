@@ -1,23 +1,39 @@
 package com.datavion.authentication.controller;
 
+import com.datavion.authentication.dto.UserCursorPage;
+import com.datavion.authentication.dto.UserImportErrorResponse;
+import com.datavion.authentication.dto.UserImportJobResponse;
 import com.datavion.authentication.dto.UserResponse;
+import com.datavion.authentication.entity.UserImportJob;
+import com.datavion.authentication.security.UserPrincipal;
+import com.datavion.authentication.service.UserImportService;
 import com.datavion.authentication.service.UserService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.net.URI;
+import java.util.List;
+
 @RestController
 @RequestMapping("/api/v1/users")
 @RequiredArgsConstructor
 @Tag(name = "User Management", description = "User management endpoints")
 public class UserController {
     
+    private static final MediaType TEXT_CSV = MediaType.parseMediaType("text/csv");
+    
     private final UserService userService;
+    private final UserImportService userImportService;
     
     @GetMapping
     @Operation(summary = "Get all users")
@@ -27,6 +43,16 @@ public class UserController {
         return ResponseEntity.ok(users);
     }
     
+    @GetMapping(params = "cursor")
+    @Operation(summary = "Get users by cursor", description = "Newest first. Pass an empty cursor for the first "
+            + "page and the returned nextCursor for each following one.")
+    @PreAuthorize("hasAuthority('users:READ')")
+    public ResponseEntity<UserCursorPage> scrollUsers(@RequestParam String cursor,
+                                                      @RequestParam(defaultValue = "50") int limit,
+                                                      @RequestParam(defaultValue = "false") boolean estimateTotal) {
+        return ResponseEntity.ok(userService.scrollUsers(cursor, limit, estimateTotal));
+    }
+    
     @GetMapping("/{id}")
     @Operation(summary = "Get user by ID")
     @PreAuthorize("hasAuthority('users:READ')")
@@ -42,4 +68,38 @@ public class UserController {
         userService.unlockUser(id);
         return ResponseEntity.ok().build();
     }
+    
+    @PostMapping(value = "/import", consumes = {"text/csv", "application/x-ndjson"})
+    @Operation(summary = "Start a bulk user import from CSV or NDJSON")
+    @PreAuthorize("hasAuthority('users:CREATE')")
+    public ResponseEntity<UserImportJobResponse> importUsers(
+            HttpServletRequest request,
+            @RequestParam(defaultValue = "false") boolean preHashed,
+            @RequestParam(required = false) Long tenantId,
+            @AuthenticationPrincipal UserPrincipal userPrincipal) throws IOException {
+        UserImportJob.Format format = MediaType.parseMediaType(request.getContentType()).isCompatibleWith(TEXT_CSV)
+                ? UserImportJob.Format.CSV
+                : UserImportJob.Format.NDJSON;
+        UserImportJobResponse job = userImportService.submit(request.getInputStream(), format, preHashed, tenantId,
+                userPrincipal.getUser().getId());
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/v1/users/import/" + job.getId()))
+                .body(job);
+    }
+    
+    @GetMapping("/import/{id}")
+    @Operation(summary = "Get bulk user import progress")
+    @PreAuthorize("hasAuthority('users:CREATE')")
+    public ResponseEntity<UserImportJobResponse> getImport(@PathVariable Long id) {
+        return ResponseEntity.ok(userImportService.getJob(id));
+    }
+    
+    @GetMapping("/import/{id}/errors")
+    @Operation(summary = "List rows a bulk user import rejected or skipped")
+    @PreAuthorize("hasAuthority('users:CREATE')")
+    public ResponseEntity<List<UserImportErrorResponse>> getImportErrors(@PathVariable Long id,
+                                                                         @RequestParam(defaultValue = "0") long afterLine,
+                                                                         @RequestParam(defaultValue = "100") int limit) {
+        return ResponseEntity.ok(userImportService.getErrors(id, afterLine, limit));
+    }
 }
\ No newline at end of file
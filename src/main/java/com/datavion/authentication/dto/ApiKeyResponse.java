@@ -0,0 +1,25 @@
+package com.datavion.authentication.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ApiKeyResponse {
+    
+    private Long id;
+    private String name;
+    // Only set in the response to creation; the key cannot be retrieved afterwards
+    private String key;
+    private Long tenantId;
+    private Boolean revoked;
+    private LocalDateTime expiresAt;
+    private LocalDateTime lastUsedAt;
+    private LocalDateTime createdAt;
+}
\ No newline at end of file
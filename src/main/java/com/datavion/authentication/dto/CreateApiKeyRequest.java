@@ -0,0 +1,19 @@
+package com.datavion.authentication.dto;
+
+import jakarta.validation.constraints.Future;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+public class CreateApiKeyRequest {
+    
+    @NotBlank(message = "Name is required")
+    @Size(max = 100, message = "Name must not exceed 100 characters")
+    private String name;
+    
+    @Future(message = "Expiry must be in the future")
+    private LocalDateTime expiresAt;
+}
\ No newline at end of file
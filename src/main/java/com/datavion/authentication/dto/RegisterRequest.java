@@ -11,6 +11,7 @@ public class RegisterRequest {
     
     @NotBlank(message = "Username is required")
     @Size(min = 3, max = 50, message = "Username must be between 3 and 50 characters")
+    @Pattern(regexp = "^[^@]*$", message = "Username must not contain @")
     private String username;
     
     @NotBlank(message = "Email is required")
@@ -0,0 +1,23 @@
+package com.datavion.authentication.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserCursorPage {
+    
+    private List<UserResponse> content;
+    
+    /** Opaque token for the following page; {@code null} on the last page. */
+    private String nextCursor;
+    
+    /** Planner estimate of all user rows, only when requested; {@code null} if unknown. */
+    private Long estimatedTotal;
+}
\ No newline at end of file
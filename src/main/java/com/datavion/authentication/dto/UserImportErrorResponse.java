@@ -0,0 +1,16 @@
+package com.datavion.authentication.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserImportErrorResponse {
+    
+    private Long lineNumber;
+    private String reason;
+}
\ No newline at end of file
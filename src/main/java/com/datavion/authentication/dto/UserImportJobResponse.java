@@ -0,0 +1,28 @@
+package com.datavion.authentication.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserImportJobResponse {
+    
+    private Long id;
+    private String status;
+    private String format;
+    private Boolean preHashed;
+    private Long linesProcessed;
+    private Long rowsImported;
+    private Long rowsSkipped;
+    private Long rowsFailed;
+    private String errorMessage;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+    private LocalDateTime finishedAt;
+}
\ No newline at end of file
@@ -0,0 +1,4 @@
+package com.datavion.authentication.dto;
+
+public record UserRoleName(Long userId, String roleName) {
+}
\ No newline at end of file
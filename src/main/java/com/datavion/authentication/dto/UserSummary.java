@@ -0,0 +1,13 @@
+package com.datavion.authentication.dto;
+
+import com.datavion.authentication.entity.User;
+
+import java.time.LocalDateTime;
+
+/**
+ * Scalar columns of a user listing row, selected by constructor expression so no entity or lazy
+ * association is loaded; role names are fetched separately for the whole page.
+ */
+public record UserSummary(Long id, String username, String email, Boolean emailVerified, Boolean accountLocked,
+                          LocalDateTime lastLoginAt, User.UserSource source, LocalDateTime createdAt) {
+}
\ No newline at end of file
@@ -0,0 +1,50 @@
+package com.datavion.authentication.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "signing_keys")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class KeyRingEntry {
+    
+    @Id
+    @Column(length = 64)
+    private String kid;
+    
+    @Column(nullable = false, length = 10)
+    private String algorithm;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private State state;
+    
+    /** X.509-encoded public key; {@code null} for HMAC keys. */
+    @Column(name = "public_key")
+    private byte[] publicKey;
+    
+    /** Encrypted PKCS#8 private key or HMAC secret. */
+    @Column(name = "private_key", nullable = false)
+    private byte[] privateKey;
+    
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+    
+    @Column(name = "activated_at")
+    private LocalDateTime activatedAt;
+    
+    @Column(name = "retire_at")
+    private LocalDateTime retireAt;
+    
+    public enum State {
+        NEXT, ACTIVE, RETIRING
+    }
+}
\ No newline at end of file
@@ -5,6 +5,7 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Generated;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
@@ -22,7 +23,8 @@ import java.time.LocalDateTime;
 public class Permission {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "permissions_id_seq")
+    @SequenceGenerator(name = "permissions_id_seq", sequenceName = "permissions_id_seq", allocationSize = 50)
     private Long id;
     
     @Column(nullable = false, length = 100)
@@ -33,6 +35,11 @@ public class Permission {
     
     private String description;
     
+    /** Stable bit position in permission bitsets; assigned by the database and never reused. */
+    @Generated
+    @Column(nullable = false, unique = true, insertable = false, updatable = false)
+    private Integer ordinal;
+    
     @CreatedDate
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
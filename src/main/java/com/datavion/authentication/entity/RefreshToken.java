@@ -20,7 +20,8 @@ import java.time.LocalDateTime;
 public class RefreshToken {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "refresh_tokens_id_seq")
+    @SequenceGenerator(name = "refresh_tokens_id_seq", sequenceName = "refresh_tokens_id_seq", allocationSize = 50)
     private Long id;
     
     @Column(name = "token_hash", unique = true, nullable = false)
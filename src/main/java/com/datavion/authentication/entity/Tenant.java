@@ -20,7 +20,8 @@ import java.time.LocalDateTime;
 public class Tenant {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "tenants_id_seq")
+    @SequenceGenerator(name = "tenants_id_seq", sequenceName = "tenants_id_seq", allocationSize = 50)
     private Long id;
     
     @Column(unique = true, nullable = false, length = 100)
@@ -23,7 +23,8 @@ import java.util.Set;
 public class User {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "users_id_seq")
+    @SequenceGenerator(name = "users_id_seq", sequenceName = "users_id_seq", allocationSize = 50)
     private Long id;
     
     @Column(unique = true, nullable = false, length = 100)
@@ -61,6 +62,9 @@ public class User {
     @Builder.Default
     private UserSource source = UserSource.LOCAL;
     
+    @Column(name = "ldap_dn", length = 1000)
+    private String ldapDn;
+    
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "tenant_id")
     private Tenant tenant;
@@ -0,0 +1,81 @@
+package com.datavion.authentication.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "user_import_jobs")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserImportJob {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private Format format;
+    
+    /** Rows carry encoded password hashes instead of plain passwords. */
+    @Column(name = "pre_hashed", nullable = false)
+    @Builder.Default
+    private Boolean preHashed = false;
+    
+    @Column(name = "tenant_id")
+    private Long tenantId;
+    
+    @Column(name = "spool_path", nullable = false, length = 500)
+    private String spoolPath;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Status status;
+    
+    /** Input lines fully handled, header included; processing resumes after this line. */
+    @Column(name = "lines_processed", nullable = false)
+    @Builder.Default
+    private Long linesProcessed = 0L;
+    
+    @Column(name = "rows_imported", nullable = false)
+    @Builder.Default
+    private Long rowsImported = 0L;
+    
+    @Column(name = "rows_skipped", nullable = false)
+    @Builder.Default
+    private Long rowsSkipped = 0L;
+    
+    @Column(name = "rows_failed", nullable = false)
+    @Builder.Default
+    private Long rowsFailed = 0L;
+    
+    @Column(name = "error_message", length = 1000)
+    private String errorMessage;
+    
+    @Column(name = "created_by")
+    private Long createdBy;
+    
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+    
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+    
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+    
+    public enum Format {
+        CSV, NDJSON
+    }
+    
+    public enum Status {
+        PENDING, RUNNING, COMPLETED, FAILED
+    }
+}
\ No newline at end of file
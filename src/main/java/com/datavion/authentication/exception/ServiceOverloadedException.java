@@ -0,0 +1,18 @@
+package com.datavion.authentication.exception;
+
+import lombok.Getter;
+
+/**
+ * Thrown when a bounded resource is saturated and the request should be retried later.
+ * Mapped to 503 Service Unavailable with a {@code Retry-After} header.
+ */
+@Getter
+public class ServiceOverloadedException extends RuntimeException {
+    
+    private final long retryAfterSeconds;
+    
+    public ServiceOverloadedException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,27 @@
+package com.datavion.authentication.repository;
+
+import com.datavion.authentication.entity.ApiKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ApiKeyRepository extends JpaRepository<ApiKey, Long> {
+    
+    // The user comes along because the index keeps the username to resolve the principal
+    @Query("SELECT k FROM ApiKey k JOIN FETCH k.user WHERE k.keyHash = :keyHash")
+    Optional<ApiKey> findByKeyHashWithUser(@Param("keyHash") String keyHash);
+    
+    List<ApiKey> findByUserIdOrderByCreatedAtDesc(Long userId);
+    
+    Optional<ApiKey> findByIdAndUserId(Long id, Long userId);
+    
+    @Modifying
+    @Query("UPDATE ApiKey k SET k.revoked = true WHERE k.id = :id AND k.revoked = false")
+    int revoke(@Param("id") Long id);
+}
\ No newline at end of file
@@ -0,0 +1,16 @@
+package com.datavion.authentication.repository;
+
+import com.datavion.authentication.entity.EmailVerificationToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface EmailVerificationTokenRepository extends JpaRepository<EmailVerificationToken, Long> {
+    
+    @Query("SELECT t FROM EmailVerificationToken t JOIN FETCH t.user WHERE t.token = :token")
+    Optional<EmailVerificationToken> findByTokenWithUser(@Param("token") String token);
+}
\ No newline at end of file
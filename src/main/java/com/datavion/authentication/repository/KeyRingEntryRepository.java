@@ -0,0 +1,9 @@
+package com.datavion.authentication.repository;
+
+import com.datavion.authentication.entity.KeyRingEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface KeyRingEntryRepository extends JpaRepository<KeyRingEntry, String> {
+}
\ No newline at end of file
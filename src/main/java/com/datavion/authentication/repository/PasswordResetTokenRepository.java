@@ -0,0 +1,22 @@
+package com.datavion.authentication.repository;
+
+import com.datavion.authentication.entity.PasswordResetToken;
+import com.datavion.authentication.entity.User;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface PasswordResetTokenRepository extends JpaRepository<PasswordResetToken, Long> {
+    
+    @Query("SELECT t FROM PasswordResetToken t JOIN FETCH t.user WHERE t.token = :token")
+    Optional<PasswordResetToken> findByTokenWithUser(@Param("token") String token);
+    
+    @Modifying
+    @Query("UPDATE PasswordResetToken t SET t.used = true WHERE t.user = :user AND t.used = false")
+    void markAllUsedByUser(@Param("user") User user);
+}
\ No newline at end of file
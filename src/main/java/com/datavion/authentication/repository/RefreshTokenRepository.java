@@ -7,6 +7,7 @@ import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -17,13 +18,26 @@ public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long
     
     Optional<RefreshToken> findByTokenHash(String tokenHash);
     
+    // Roles come along because rotation resolves the user's authorities
+    @Query("SELECT rt FROM RefreshToken rt JOIN FETCH rt.user u LEFT JOIN FETCH u.roles WHERE rt.tokenHash = :tokenHash")
+    Optional<RefreshToken> findByTokenHashWithUser(@Param("tokenHash") String tokenHash);
+    
     List<RefreshToken> findByUser(User user);
     
     @Modifying
-    @Query("UPDATE RefreshToken rt SET rt.revoked = true WHERE rt.user = :user")
+    @Query("UPDATE RefreshToken rt SET rt.revoked = true WHERE rt.user = :user AND rt.revoked = false")
     void revokeAllByUser(@Param("user") User user);
     
+    /**
+     * Deletes up to {@code limit} expired or revoked tokens in one short transaction.
+     */
+    @Transactional
     @Modifying
-    @Query("DELETE FROM RefreshToken rt WHERE rt.expiresAt < :now")
-    void deleteExpiredTokens(@Param("now") LocalDateTime now);
+    @Query(value = "DELETE FROM refresh_tokens WHERE id IN ("
+            + "SELECT id FROM refresh_tokens WHERE expires_at < :now OR revoked = TRUE LIMIT :limit)",
+            nativeQuery = true)
+    int purgeChunk(@Param("now") LocalDateTime now, @Param("limit") int limit);
+    
+    @Query("SELECT MIN(rt.expiresAt) FROM RefreshToken rt WHERE rt.expiresAt < :now")
+    Optional<LocalDateTime> findOldestExpiry(@Param("now") LocalDateTime now);
 }
\ No newline at end of file
@@ -2,8 +2,11 @@ package com.datavion.authentication.repository;
 
 import com.datavion.authentication.entity.Role;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -12,4 +15,9 @@ public interface RoleRepository extends JpaRepository<Role, Long> {
     Optional<Role> findByName(String name);
     
     boolean existsByName(String name);
+    
+    List<Role> findByNameInAndTenantIsNull(Collection<String> names);
+    
+    @Query("SELECT DISTINCT r FROM Role r LEFT JOIN FETCH r.permissions")
+    List<Role> findAllWithPermissions();
 }
\ No newline at end of file
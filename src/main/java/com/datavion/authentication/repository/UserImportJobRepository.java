@@ -0,0 +1,14 @@
+package com.datavion.authentication.repository;
+
+import com.datavion.authentication.entity.UserImportJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface UserImportJobRepository extends JpaRepository<UserImportJob, Long> {
+    
+    List<UserImportJob> findByStatusInOrderByIdAsc(Collection<UserImportJob.Status> statuses);
+}
\ No newline at end of file
@@ -1,13 +1,24 @@
 package com.datavion.authentication.repository;
 
+import com.datavion.authentication.dto.UserRoleName;
+import com.datavion.authentication.dto.UserSummary;
 import com.datavion.authentication.entity.User;
+import com.datavion.authentication.util.LoginIdentifierUtil;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -17,18 +28,81 @@ public interface UserRepository extends JpaRepository<User, Long> {
     
     Optional<User> findByEmailAndDeletedAtIsNull(String email);
     
-    @Query("SELECT u FROM User u WHERE (u.username = :usernameOrEmail OR u.email = :usernameOrEmail) AND u.deletedAt IS NULL")
-    Optional<User> findByUsernameOrEmailAndDeletedAtIsNull(@Param("usernameOrEmail") String usernameOrEmail);
+    /** Row-locked read, for changes that must see the latest committed state of the user. */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT u FROM User u WHERE u.id = :id AND u.deletedAt IS NULL")
+    Optional<User> findForUpdateById(@Param("id") Long id);
     
-    boolean existsByUsernameAndDeletedAtIsNull(String username);
+    /**
+     * Login lookup. Each branch is a single probe of one partial {@code lower()} unique index, which
+     * an {@code username = ? OR email = ?} predicate could not use.
+     */
+    default Optional<User> findWithRolesByUsernameOrEmail(String usernameOrEmail) {
+        if (LoginIdentifierUtil.looksLikeEmail(usernameOrEmail)) {
+            // Usernames registered before '@' was disallowed
+            return findWithRolesByEmailIgnoreCase(usernameOrEmail)
+                    .or(() -> findWithRolesByUsernameIgnoreCase(usernameOrEmail));
+        }
+        return findWithRolesByUsernameIgnoreCase(usernameOrEmail);
+    }
     
-    boolean existsByEmailAndDeletedAtIsNull(String email);
+    @EntityGraph(attributePaths = "roles")
+    @Query("SELECT u FROM User u WHERE lower(u.username) = lower(:username) AND u.deletedAt IS NULL")
+    Optional<User> findWithRolesByUsernameIgnoreCase(@Param("username") String username);
     
-    Page<User> findByDeletedAtIsNull(Pageable pageable);
+    @EntityGraph(attributePaths = "roles")
+    @Query("SELECT u FROM User u WHERE lower(u.email) = lower(:email) AND u.deletedAt IS NULL")
+    Optional<User> findWithRolesByEmailIgnoreCase(@Param("email") String email);
+    
+    @EntityGraph(attributePaths = "roles")
+    Optional<User> findWithRolesById(Long id);
+    
+    @EntityGraph(attributePaths = "roles")
+    Optional<User> findWithRolesByIdAndDeletedAtIsNull(Long id);
+    
+    // Derived IgnoreCase queries compare upper(), which the lower() indexes cannot serve
+    @Query("SELECT COUNT(u) > 0 FROM User u WHERE lower(u.username) = lower(:username) AND u.deletedAt IS NULL")
+    boolean existsByUsernameIgnoreCaseAndDeletedAtIsNull(@Param("username") String username);
+    
+    @Query("SELECT COUNT(u) > 0 FROM User u WHERE lower(u.email) = lower(:email) AND u.deletedAt IS NULL")
+    boolean existsByEmailIgnoreCaseAndDeletedAtIsNull(@Param("email") String email);
+    
+    // Paged as scalars: fetch-joining roles here would make Hibernate page in memory
+    @Query(value = "SELECT new com.datavion.authentication.dto.UserSummary(u.id, u.username, u.email, "
+            + "u.emailVerified, u.accountLocked, u.lastLoginAt, u.source, u.createdAt) "
+            + "FROM User u WHERE u.deletedAt IS NULL",
+            countQuery = "SELECT COUNT(u) FROM User u WHERE u.deletedAt IS NULL")
+    Page<UserSummary> findSummaries(Pageable pageable);
+    
+    // Both seek queries read idx_users_active_created_id in order and stop after the limit
+    @Query("SELECT new com.datavion.authentication.dto.UserSummary(u.id, u.username, u.email, "
+            + "u.emailVerified, u.accountLocked, u.lastLoginAt, u.source, u.createdAt) "
+            + "FROM User u WHERE u.deletedAt IS NULL ORDER BY u.createdAt DESC, u.id DESC")
+    List<UserSummary> findFirstSummaries(Limit limit);
+    
+    @Query("SELECT new com.datavion.authentication.dto.UserSummary(u.id, u.username, u.email, "
+            + "u.emailVerified, u.accountLocked, u.lastLoginAt, u.source, u.createdAt) "
+            + "FROM User u WHERE u.deletedAt IS NULL AND (u.createdAt, u.id) < (:createdAt, :id) "
+            + "ORDER BY u.createdAt DESC, u.id DESC")
+    List<UserSummary> findSummariesBefore(@Param("createdAt") LocalDateTime createdAt, @Param("id") Long id,
+                                          Limit limit);
+    
+    // reltuples is -1 until the table has been analyzed
+    @Query(value = "SELECT CAST(reltuples AS BIGINT) FROM pg_class WHERE oid = 'users'::regclass", nativeQuery = true)
+    long estimateUserRows();
+    
+    @Query("SELECT new com.datavion.authentication.dto.UserRoleName(u.id, r.name) FROM User u JOIN u.roles r "
+            + "WHERE u.id IN :userIds")
+    List<UserRoleName> findRoleNamesByUserIds(@Param("userIds") Collection<Long> userIds);
     
     @Query("SELECT COUNT(u) FROM User u WHERE u.deletedAt IS NULL")
     long countActiveUsers();
     
     @Query("SELECT COUNT(u) FROM User u WHERE u.accountLocked = true AND u.deletedAt IS NULL")
     long countLockedUsers();
+    
+    // Cleared so a User already loaded in the same transaction cannot write the old hash back
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE User u SET u.passwordHash = :passwordHash WHERE u.id = :id")
+    int updatePasswordHash(@Param("id") Long id, @Param("passwordHash") String passwordHash);
 }
\ No newline at end of file
@@ -0,0 +1,217 @@
+package com.datavion.authentication.security;
+
+import com.datavion.authentication.util.ParsedToken;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Revocation of access tokens before they expire, checked on every authenticated request.
+ *
+ * <p>Revoked {@code jti}s live in Redis under a key that expires with the token, indexed by a
+ * sorted set scored by expiry. Each node keeps a bloom filter of the unexpired entries, rebuilt
+ * every {@code rebuild-interval-millis} and topped up from {@link #REVOCATION_CHANNEL}, so the usual
+ * "not revoked" answer costs no network call; only a filter hit is confirmed against Redis.
+ *
+ * <p>Per-user "revoked before" timestamps invalidate every token a user was issued up to that
+ * moment. They are few and short-lived, so every node holds all of them in memory.
+ *
+ * <p>A revocation that cannot be written to Redis is kept here until it expires, enforced without
+ * asking Redis, and written again on every rebuild until that succeeds.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class AccessTokenRevocationService implements MessageListener {
+    
+    public static final String REVOCATION_CHANNEL = "dauth:revocation";
+    
+    private static final String JTI_KEY_PREFIX = "dauth:revoked:jti:";
+    private static final String JTI_INDEX_KEY = "dauth:revoked:jtis";
+    private static final String USER_INDEX_KEY = "dauth:revoked:users";
+    private static final String JTI_MESSAGE_PREFIX = "jti:";
+    private static final String USER_MESSAGE_PREFIX = "user:";
+    
+    private final StringRedisTemplate redisTemplate;
+    
+    @Value("${app.jwt.access-token-expiration}")
+    private long accessTokenExpiration;
+    
+    @Value("${app.security.revocation.expected-revocations:100000}")
+    private long expectedRevocations;
+    
+    @Value("${app.security.revocation.false-positive-rate:0.001}")
+    private double falsePositiveRate;
+    
+    private volatile BloomFilter revokedJtis;
+    
+    /** jtis received since the last rebuild started, re-added so a rebuild cannot drop them. */
+    private final Map<String, Long> recentJtis = new ConcurrentHashMap<>();
+    
+    private final Map<Long, Long> revokedBefore = new ConcurrentHashMap<>();
+    
+    /** Revocations not yet in Redis: jti to expiry, and user id to revoked-before time. */
+    private final Map<String, Long> unsharedJtis = new ConcurrentHashMap<>();
+    private final Map<Long, Long> unsharedUsers = new ConcurrentHashMap<>();
+    
+    @PostConstruct
+    void init() {
+        revokedJtis = new BloomFilter(expectedRevocations, falsePositiveRate);
+        rebuild();
+    }
+    
+    /**
+     * Revokes one token until it expires. Tokens without a {@code jti} cannot be revoked singly.
+     */
+    public void revoke(ParsedToken token) {
+        String jti = token.id();
+        long expiresAt = token.expiration().getTime();
+        long ttl = expiresAt - System.currentTimeMillis();
+        if (jti == null || ttl <= 0) {
+            return;
+        }
+        
+        addLocal(jti);
+        try {
+            shareJti(jti, expiresAt);
+        } catch (RuntimeException e) {
+            unsharedJtis.put(jti, expiresAt);
+            log.error("Failed to share revocation of token {}, rejecting it here and retrying: {}", jti, e.getMessage());
+        }
+    }
+    
+    /**
+     * Revokes every access token issued to the user up to now, e.g. after a password change or lockout.
+     */
+    public void revokeAllForUser(Long userId) {
+        long now = System.currentTimeMillis();
+        revokedBefore.merge(userId, now, Math::max);
+        try {
+            shareUser(userId, now);
+        } catch (RuntimeException e) {
+            unsharedUsers.merge(userId, now, Math::max);
+            log.error("Failed to share token revocation for user {}, rejecting them here and retrying: {}", userId, e.getMessage());
+        }
+    }
+    
+    public boolean isRevoked(ParsedToken token) {
+        Long userId = token.userId();
+        Long issuedAt = token.issuedAtMillis();
+        if (userId != null && issuedAt != null) {
+            Long before = revokedBefore.get(userId);
+            // A token from the very millisecond of the revocation may predate it, so it is rejected too
+            if (before != null && issuedAt <= before) {
+                return true;
+            }
+        }
+        
+        String jti = token.id();
+        if (jti == null || !revokedJtis.mightContain(jti)) {
+            return false;
+        }
+        // Redis would not know about these yet
+        if (unsharedJtis.containsKey(jti)) {
+            return true;
+        }
+        
+        try {
+            return Boolean.TRUE.equals(redisTemplate.hasKey(JTI_KEY_PREFIX + jti));
+        } catch (RuntimeException e) {
+            // Only bloom hits get here; refusing them during an outage is the safe side
+            log.warn("Cannot confirm revocation of token {}, rejecting it: {}", jti, e.getMessage());
+            return true;
+        }
+    }
+    
+    /**
+     * Rebuilds the local filter and user timestamps from Redis, dropping expired entries everywhere.
+     */
+    @Scheduled(fixedDelayString = "${app.security.revocation.rebuild-interval-millis:60000}",
+            initialDelayString = "${app.security.revocation.rebuild-interval-millis:60000}")
+    public void rebuild() {
+        long startedAt = System.currentTimeMillis();
+        try {
+            shareUnshared(startedAt);
+            redisTemplate.opsForZSet().removeRangeByScore(JTI_INDEX_KEY, Double.NEGATIVE_INFINITY, startedAt);
+            redisTemplate.opsForZSet().removeRangeByScore(USER_INDEX_KEY, Double.NEGATIVE_INFINITY,
+                    startedAt - accessTokenExpiration);
+            Set<String> jtis = redisTemplate.opsForZSet().rangeByScore(JTI_INDEX_KEY, startedAt, Double.POSITIVE_INFINITY);
+            Set<ZSetOperations.TypedTuple<String>> users = redisTemplate.opsForZSet()
+                    .rangeByScoreWithScores(USER_INDEX_KEY, startedAt - accessTokenExpiration, Double.POSITIVE_INFINITY);
+            
+            BloomFilter filter = new BloomFilter(Math.max(expectedRevocations, jtis != null ? jtis.size() * 2L : 0),
+                    falsePositiveRate);
+            if (jtis != null) {
+                jtis.forEach(filter::add);
+            }
+            recentJtis.keySet().forEach(filter::add);
+            unsharedJtis.keySet().forEach(filter::add);
+            revokedJtis = filter;
+            // Anything that arrived while the new filter was being filled
+            recentJtis.keySet().forEach(filter::add);
+            recentJtis.values().removeIf(receivedAt -> receivedAt < startedAt);
+            
+            if (users != null) {
+                users.forEach(user -> revokedBefore.merge(Long.valueOf(user.getValue()),
+                        user.getScore().longValue(), Math::max));
+            }
+            revokedBefore.values().removeIf(before -> before < startedAt - accessTokenExpiration);
+        } catch (RuntimeException e) {
+            log.warn("Failed to rebuild the access token revocation filter, keeping the current one: {}", e.getMessage());
+        }
+    }
+    
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        if (body.startsWith(JTI_MESSAGE_PREFIX)) {
+            addLocal(body.substring(JTI_MESSAGE_PREFIX.length()));
+        } else if (body.startsWith(USER_MESSAGE_PREFIX)) {
+            String[] parts = body.substring(USER_MESSAGE_PREFIX.length()).split(":");
+            revokedBefore.merge(Long.valueOf(parts[0]), Long.valueOf(parts[1]), Math::max);
+        }
+    }
+    
+    private void shareJti(String jti, long expiresAt) {
+        redisTemplate.opsForValue().set(JTI_KEY_PREFIX + jti, "1", Duration.ofMillis(expiresAt - System.currentTimeMillis()));
+        redisTemplate.opsForZSet().add(JTI_INDEX_KEY, jti, expiresAt);
+        redisTemplate.convertAndSend(REVOCATION_CHANNEL, JTI_MESSAGE_PREFIX + jti);
+    }
+    
+    private void shareUser(Long userId, long revokedBeforeMillis) {
+        redisTemplate.opsForZSet().add(USER_INDEX_KEY, userId.toString(), revokedBeforeMillis);
+        redisTemplate.convertAndSend(REVOCATION_CHANNEL, USER_MESSAGE_PREFIX + userId + ":" + revokedBeforeMillis);
+    }
+    
+    /** Writes revocations that failed earlier; throws on the first one that fails again. */
+    private void shareUnshared(long now) {
+        unsharedJtis.values().removeIf(expiresAt -> expiresAt <= now);
+        unsharedUsers.values().removeIf(before -> before < now - accessTokenExpiration);
+        for (Map.Entry<String, Long> entry : unsharedJtis.entrySet()) {
+            shareJti(entry.getKey(), entry.getValue());
+            unsharedJtis.remove(entry.getKey(), entry.getValue());
+        }
+        for (Map.Entry<Long, Long> entry : unsharedUsers.entrySet()) {
+            shareUser(entry.getKey(), entry.getValue());
+            unsharedUsers.remove(entry.getKey(), entry.getValue());
+        }
+    }
+    
+    private void addLocal(String jti) {
+        recentJtis.put(jti, System.currentTimeMillis());
+        revokedJtis.add(jti);
+    }
+}
\ No newline at end of file
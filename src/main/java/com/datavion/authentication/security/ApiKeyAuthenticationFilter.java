@@ -0,0 +1,74 @@
+package com.datavion.authentication.security;
+
+import com.datavion.authentication.service.ApiKeyUsageRecorder;
+import com.datavion.authentication.util.TokenHashUtil;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+
+/**
+ * Authenticates machine clients by the API key in {@code app.security.api-keys.header}. The key is
+ * resolved through {@link ApiKeyIndex} and the owner through the principal cache, so a known key
+ * costs one HMAC and two in-memory lookups. A request without a valid key continues unauthenticated,
+ * as with an invalid bearer token.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ApiKeyAuthenticationFilter extends OncePerRequestFilter {
+    
+    private final ApiKeyIndex apiKeyIndex;
+    private final TokenHashUtil tokenHashUtil;
+    private final UserDetailsService userDetailsService;
+    private final ApiKeyUsageRecorder usageRecorder;
+    
+    @Value("${app.security.api-keys.header:X-API-Key}")
+    private String headerName;
+    
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        
+        String key = request.getHeader(headerName);
+        if (key == null || key.isBlank() || SecurityContextHolder.getContext().getAuthentication() != null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        
+        try {
+            ApiKeyIndex.Entry entry = apiKeyIndex.find(tokenHashUtil.hash(key));
+            LocalDateTime now = LocalDateTime.now();
+            if (entry != null && entry.isUsable(now)) {
+                UserDetails userDetails = userDetailsService.loadUserByUsername(entry.username());
+                if (userDetails.isEnabled() && userDetails.isAccountNonLocked()) {
+                    UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
+                            userDetails,
+                            null,
+                            userDetails.getAuthorities()
+                    );
+                    authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                    SecurityContextHolder.getContext().setAuthentication(authToken);
+                    usageRecorder.recordUse(entry.id(), now);
+                }
+            }
+        } catch (Exception e) {
+            log.error("Cannot set API key authentication: {}", e.getMessage());
+        }
+        
+        filterChain.doFilter(request, response);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,124 @@
+package com.datavion.authentication.security;
+
+import com.datavion.authentication.entity.ApiKey;
+import com.datavion.authentication.repository.ApiKeyRepository;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Bounded in-process index of API keys by their keyed digest, so a request with a known key is
+ * validated without touching the database. Digests that match no key are remembered briefly as
+ * well, so a client retrying a bad key cannot turn every request into a query. Changes are
+ * broadcast on {@link #INVALIDATION_CHANNEL}; entries also expire, which bounds staleness on a
+ * node that missed a message while Redis was unreachable.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ApiKeyIndex implements MessageListener {
+    
+    public static final String INVALIDATION_CHANNEL = "dauth:apikey:invalidate";
+    
+    private final ApiKeyRepository apiKeyRepository;
+    private final StringRedisTemplate redisTemplate;
+    
+    @Value("${app.security.api-keys.cache.max-size:50000}")
+    private long maxSize;
+    
+    @Value("${app.security.api-keys.cache.ttl-seconds:300}")
+    private long ttlSeconds;
+    
+    @Value("${app.security.api-keys.cache.negative-max-size:10000}")
+    private long negativeMaxSize;
+    
+    @Value("${app.security.api-keys.cache.negative-ttl-seconds:30}")
+    private long negativeTtlSeconds;
+    
+    private AsyncCache<String, Entry> entries;
+    
+    private Cache<String, Boolean> unknown;
+    
+    public record Entry(Long id, Long userId, String username, LocalDateTime expiresAt, boolean revoked) {
+        
+        public boolean isUsable(LocalDateTime now) {
+            return !revoked && (expiresAt == null || now.isBefore(expiresAt));
+        }
+    }
+    
+    @PostConstruct
+    void init() {
+        entries = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .buildAsync();
+        unknown = Caffeine.newBuilder()
+                .maximumSize(negativeMaxSize)
+                .expireAfterWrite(Duration.ofSeconds(negativeTtlSeconds))
+                .build();
+    }
+    
+    /**
+     * Returns the key stored under {@code digest}, loading it on a miss. Concurrent misses for
+     * the same digest on one node share a single query, run on the calling thread.
+     *
+     * @return the key, or {@code null} if no key has that digest
+     */
+    public Entry find(String digest) {
+        Entry entry = entries.synchronous().getIfPresent(digest);
+        if (entry != null || unknown.getIfPresent(digest) != null) {
+            return entry;
+        }
+        // A null result is not cached by Caffeine, so misses are tracked separately
+        entry = CallerRunsLoads.get(entries, digest, this::load);
+        if (entry == null) {
+            unknown.put(digest, Boolean.TRUE);
+        }
+        return entry;
+    }
+    
+    /**
+     * Drops the digest on this node and every other one, so the next request reloads it.
+     */
+    public void invalidate(String digest) {
+        invalidateLocally(digest);
+        try {
+            redisTemplate.convertAndSend(INVALIDATION_CHANNEL, digest);
+        } catch (RuntimeException e) {
+            log.warn("Could not propagate API key invalidation through Redis: {}", e.getMessage());
+        }
+    }
+    
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        invalidateLocally(new String(message.getBody(), StandardCharsets.UTF_8));
+    }
+    
+    private void invalidateLocally(String digest) {
+        entries.synchronous().invalidate(digest);
+        unknown.invalidate(digest);
+    }
+    
+    private Entry load(String digest) {
+        return apiKeyRepository.findByKeyHashWithUser(digest)
+                .map(ApiKeyIndex::toEntry)
+                .orElse(null);
+    }
+    
+    private static Entry toEntry(ApiKey apiKey) {
+        return new Entry(apiKey.getId(), apiKey.getUser().getId(), apiKey.getUser().getUsername(),
+                apiKey.getExpiresAt(), Boolean.TRUE.equals(apiKey.getRevoked()));
+    }
+}
\ No newline at end of file
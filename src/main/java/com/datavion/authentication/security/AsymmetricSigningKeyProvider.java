@@ -0,0 +1,167 @@
+package com.datavion.authentication.security;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Jwks;
+import io.jsonwebtoken.security.PublicJwk;
+import io.jsonwebtoken.security.SignatureAlgorithm;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * ES256 or EdDSA (Ed25519) signing with keys read from a directory, one pair per key id:
+ * {@code <kid>.key} holds the PKCS#8 PEM private key and {@code <kid>.pub} the X.509 PEM public key.
+ * A kid with only a {@code .pub} file is retired: it still verifies and is still published, but
+ * never signs. The active key is {@code activeKeyId}, or the greatest kid with a private key, so
+ * date-prefixed kids rotate by adding a newer pair. Without a directory an ephemeral key pair is
+ * generated, which suits a single development instance only.
+ */
+@Slf4j
+public class AsymmetricSigningKeyProvider implements SigningKeyProvider {
+    
+    public enum Algorithm {
+        ES256(Jwts.SIG.ES256, "EC"),
+        EdDSA(Jwts.SIG.EdDSA, "Ed25519");
+        
+        private final SignatureAlgorithm signatureAlgorithm;
+        private final String keyAlgorithm;
+        
+        Algorithm(SignatureAlgorithm signatureAlgorithm, String keyAlgorithm) {
+            this.signatureAlgorithm = signatureAlgorithm;
+            this.keyAlgorithm = keyAlgorithm;
+        }
+        
+        public SignatureAlgorithm signatureAlgorithm() {
+            return signatureAlgorithm;
+        }
+        
+        public KeyPair generateKeyPair() throws GeneralSecurityException {
+            KeyPairGenerator generator = KeyPairGenerator.getInstance(keyAlgorithm);
+            if (this == ES256) {
+                generator.initialize(new ECGenParameterSpec("secp256r1"));
+            }
+            return generator.generateKeyPair();
+        }
+        
+        public PublicKey decodePublicKey(byte[] x509) throws GeneralSecurityException {
+            return KeyFactory.getInstance(keyAlgorithm).generatePublic(new X509EncodedKeySpec(x509));
+        }
+        
+        public PrivateKey decodePrivateKey(byte[] pkcs8) throws GeneralSecurityException {
+            return KeyFactory.getInstance(keyAlgorithm).generatePrivate(new PKCS8EncodedKeySpec(pkcs8));
+        }
+    }
+    
+    private final SigningKey signingKey;
+    
+    private final Map<String, PublicKey> verificationKeys;
+    
+    private final List<PublicJwk<?>> publicJwks;
+    
+    public AsymmetricSigningKeyProvider(Algorithm algorithm, Map<String, KeyPair> keyPairs, String activeKeyId) {
+        Map<String, PublicKey> publicKeys = new TreeMap<>();
+        Map<String, PrivateKey> privateKeys = new TreeMap<>();
+        keyPairs.forEach((kid, pair) -> {
+            publicKeys.put(kid, pair.getPublic());
+            if (pair.getPrivate() != null) {
+                privateKeys.put(kid, pair.getPrivate());
+            }
+        });
+        
+        String active = activeKeyId != null && !activeKeyId.isBlank()
+                ? activeKeyId
+                : privateKeys.keySet().stream().reduce((first, second) -> second)
+                        .orElseThrow(() -> new IllegalStateException("No private signing key available"));
+        PrivateKey activeKey = privateKeys.get(active);
+        if (activeKey == null) {
+            throw new IllegalStateException("No private key for active signing key id " + active);
+        }
+        
+        this.signingKey = SigningKey.of(active, activeKey, algorithm.signatureAlgorithm);
+        this.verificationKeys = Map.copyOf(publicKeys);
+        List<PublicJwk<?>> jwks = new ArrayList<>(publicKeys.size());
+        publicKeys.forEach((kid, key) -> jwks.add(toJwk(kid, key, algorithm)));
+        this.publicJwks = List.copyOf(jwks);
+        
+        log.info("JWT signing with {} key {} ({} verification keys)", algorithm, active, publicKeys.size());
+    }
+    
+    public static AsymmetricSigningKeyProvider fromDirectory(Algorithm algorithm, Path directory, String activeKeyId) {
+        Map<String, KeyPair> keyPairs = new TreeMap<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.filter(f -> f.toString().endsWith(".pub")).toList()) {
+                String kid = file.getFileName().toString().replaceFirst("\\.pub$", "");
+                Path privateFile = directory.resolve(kid + ".key");
+                PublicKey publicKey = algorithm.decodePublicKey(readPem(file));
+                PrivateKey privateKey = Files.exists(privateFile) ? algorithm.decodePrivateKey(readPem(privateFile)) : null;
+                keyPairs.put(kid, new KeyPair(publicKey, privateKey));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read signing keys from " + directory, e);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Invalid " + algorithm + " signing key in " + directory, e);
+        }
+        return new AsymmetricSigningKeyProvider(algorithm, keyPairs, activeKeyId);
+    }
+    
+    public static AsymmetricSigningKeyProvider ephemeral(Algorithm algorithm) {
+        log.warn("No JWT signing key directory configured, generating an ephemeral {} key; "
+                + "tokens will not verify on other instances or after a restart", algorithm);
+        try {
+            return new AsymmetricSigningKeyProvider(algorithm,
+                    Map.of("ephemeral-" + UUID.randomUUID(), algorithm.generateKeyPair()), null);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot generate " + algorithm + " key pair", e);
+        }
+    }
+    
+    @Override
+    public SigningKey signingKey() {
+        return signingKey;
+    }
+    
+    @Override
+    public Key verificationKey(String keyId) {
+        return keyId != null ? verificationKeys.get(keyId) : null;
+    }
+    
+    @Override
+    public List<PublicJwk<?>> publicJwks() {
+        return publicJwks;
+    }
+    
+    public static PublicJwk<?> toJwk(String kid, PublicKey key, Algorithm algorithm) {
+        return Jwks.builder().key(key)
+                .id(kid)
+                .algorithm(algorithm.signatureAlgorithm.getId())
+                .publicKeyUse("sig")
+                .build();
+    }
+    
+    private static byte[] readPem(Path file) throws IOException {
+        String base64 = Files.readString(file)
+                .replaceAll("-----(BEGIN|END) [A-Z ]+-----", "")
+                .replaceAll("\\s", "");
+        return Base64.getDecoder().decode(base64);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,53 @@
+package com.datavion.authentication.security;
+
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Immutable set of granted permissions backed by a {@link PermissionBitSet}. Checking an authority
+ * is a hash lookup of its ordinal in the {@link PermissionCatalog} plus one bit test; the
+ * {@link GrantedAuthority} view that Spring Security asks for is materialised once per set, and
+ * sets are shared between all users with the same roles.
+ */
+public final class AuthoritySet {
+    
+    public static final AuthoritySet EMPTY = new AuthoritySet(PermissionBitSet.EMPTY, PermissionCatalog.EMPTY);
+    
+    private final PermissionBitSet bits;
+    private final PermissionCatalog catalog;
+    
+    private volatile List<GrantedAuthority> authorities;
+    
+    public AuthoritySet(PermissionBitSet bits, PermissionCatalog catalog) {
+        this.bits = bits;
+        this.catalog = catalog;
+    }
+    
+    public boolean contains(String authority) {
+        int ordinal = catalog.ordinalOf(authority);
+        return ordinal >= 0 && bits.get(ordinal);
+    }
+    
+    public PermissionBitSet bits() {
+        return bits;
+    }
+    
+    public Collection<GrantedAuthority> getAuthorities() {
+        List<GrantedAuthority> materialized = authorities;
+        if (materialized == null) {
+            List<GrantedAuthority> list = new ArrayList<>();
+            for (int i = bits.nextSetBit(0); i >= 0; i = bits.nextSetBit(i + 1)) {
+                GrantedAuthority authority = catalog.authorityAt(i);
+                if (authority != null) {
+                    list.add(authority);
+                }
+            }
+            materialized = List.copyOf(list);
+            authorities = materialized;
+        }
+        return materialized;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,72 @@
+package com.datavion.authentication.security;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-size bloom filter over strings. Adds are lock-free and may run concurrently with lookups;
+ * a lookup that races an add may miss it, which callers cover by checking the source of truth
+ * for anything they just added.
+ */
+class BloomFilter {
+    
+    private final AtomicLongArray words;
+    
+    private final long bitCount;
+    
+    private final int hashCount;
+    
+    BloomFilter(long expectedInsertions, double falsePositiveRate) {
+        long n = Math.max(1, expectedInsertions);
+        long bits = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        int words = (int) Math.min(Integer.MAX_VALUE - 8, (bits + 63) >>> 6);
+        this.words = new AtomicLongArray(words);
+        this.bitCount = (long) words << 6;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / n * Math.log(2)));
+    }
+    
+    void add(String value) {
+        long hash1 = hash(value);
+        long hash2 = fmix64(hash1 ^ 0x9E3779B97F4A7C15L);
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(hash1 + i * hash2, bitCount);
+            int index = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long current = words.get(index);
+            while ((current & mask) == 0 && !words.compareAndSet(index, current, current | mask)) {
+                current = words.get(index);
+            }
+        }
+    }
+    
+    boolean mightContain(String value) {
+        long hash1 = hash(value);
+        long hash2 = fmix64(hash1 ^ 0x9E3779B97F4A7C15L);
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(hash1 + i * hash2, bitCount);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private static long hash(String value) {
+        // 64-bit FNV-1a, finished with the MurmurHash3 mixer for avalanche
+        long hash = 0xCBF29CE484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b;
+            hash *= 0x100000001B3L;
+        }
+        return fmix64(hash);
+    }
+    
+    private static long fmix64(long k) {
+        k ^= k >>> 33;
+        k *= 0xFF51AFD7ED558CCDL;
+        k ^= k >>> 33;
+        k *= 0xC4CEB93FE1A85A53L;
+        k ^= k >>> 33;
+        return k;
+    }
+}
\ No newline at end of file
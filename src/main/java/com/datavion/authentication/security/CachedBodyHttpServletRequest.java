@@ -0,0 +1,85 @@
+package com.datavion.authentication.security;
+
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Request wrapper that reads the body once so a filter can inspect it and the controller can
+ * still bind it. At most {@code maxBytes + 1} bytes are read, so a body longer than the limit
+ * shows up as {@link #exceedsLimit()} without ever being buffered whole.
+ */
+class CachedBodyHttpServletRequest extends HttpServletRequestWrapper {
+    
+    private final byte[] body;
+    private final int maxBytes;
+    
+    CachedBodyHttpServletRequest(HttpServletRequest request, int maxBytes) throws IOException {
+        super(request);
+        this.body = request.getInputStream().readNBytes(maxBytes + 1);
+        this.maxBytes = maxBytes;
+    }
+    
+    byte[] getBody() {
+        return body;
+    }
+    
+    boolean exceedsLimit() {
+        return body.length > maxBytes;
+    }
+    
+    @Override
+    public ServletInputStream getInputStream() {
+        ByteArrayInputStream input = new ByteArrayInputStream(body);
+        return new ServletInputStream() {
+            @Override
+            public int read() {
+                return input.read();
+            }
+            
+            @Override
+            public int read(byte[] b, int off, int len) {
+                return input.read(b, off, len);
+            }
+            
+            @Override
+            public boolean isFinished() {
+                return input.available() == 0;
+            }
+            
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+            
+            @Override
+            public void setReadListener(ReadListener listener) {
+                // Everything is already in memory, so the listener can be driven right away
+                try {
+                    if (!isFinished()) {
+                        listener.onDataAvailable();
+                    }
+                    if (isFinished()) {
+                        listener.onAllDataRead();
+                    }
+                } catch (IOException e) {
+                    listener.onError(e);
+                }
+            }
+        };
+    }
+    
+    @Override
+    public BufferedReader getReader() {
+        Charset charset = getCharacterEncoding() != null ? Charset.forName(getCharacterEncoding()) : StandardCharsets.UTF_8;
+        return new BufferedReader(new InputStreamReader(getInputStream(), charset));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,50 @@
+package com.datavion.authentication.security;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+/**
+ * Loads into a Caffeine {@link AsyncCache} on the calling thread. {@code Cache.get(key, fn)} runs
+ * {@code fn} inside a synchronized hash-bin lock, so a Redis, JDBC or LDAP call there pins a
+ * virtual thread's carrier and blocks unrelated keys in the same bin. Here only an incomplete
+ * future is published under the lock; the first caller runs the load and concurrent callers for
+ * the same key wait on that future, which parks a virtual thread instead of pinning it.
+ */
+final class CallerRunsLoads {
+    
+    private CallerRunsLoads() {
+    }
+    
+    /**
+     * Returns the cached value for {@code key}, running {@code loader} on this thread if no
+     * load is present or in flight. A null or failed load leaves nothing cached.
+     */
+    static <K, V> V get(AsyncCache<K, V> cache, K key, Function<? super K, ? extends V> loader) {
+        CompletableFuture<V> pending = new CompletableFuture<>();
+        CompletableFuture<V> existing = cache.asMap().putIfAbsent(key, pending);
+        if (existing == null) {
+            try {
+                V value = loader.apply(key);
+                pending.complete(value);
+                return value;
+            } catch (RuntimeException | Error e) {
+                pending.completeExceptionally(e);
+                throw e;
+            }
+        }
+        try {
+            return existing.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
\ No newline at end of file
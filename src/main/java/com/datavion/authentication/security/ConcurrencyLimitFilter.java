@@ -0,0 +1,114 @@
+package com.datavion.authentication.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caps the number of API requests in flight. On platform threads the Tomcat worker pool was the
+ * cap; with {@code spring.threads.virtual.enabled} every connection gets a thread, and thousands
+ * of them would otherwise queue inside Hikari until {@code connection-timeout} and fail slowly.
+ * Requests over the limit wait briefly for a permit and are then turned away with 503 and
+ * {@code Retry-After}, keeping the database pool working on requests that can still succeed.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@RequiredArgsConstructor
+@Slf4j
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+    
+    private final MeterRegistry meterRegistry;
+    
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    
+    @Value("${app.concurrency.enabled:${spring.threads.virtual.enabled:false}}")
+    private boolean enabled;
+    
+    @Value("${app.concurrency.max-in-flight:200}")
+    private int maxInFlight;
+    
+    @Value("${app.concurrency.acquire-timeout-millis:500}")
+    private long acquireTimeoutMillis;
+    
+    @Value("${app.concurrency.retry-after-seconds:1}")
+    private long retryAfterSeconds;
+    
+    private Semaphore permits;
+    private Counter rejected;
+    
+    @PostConstruct
+    void init() {
+        permits = new Semaphore(maxInFlight);
+        rejected = meterRegistry.counter("auth.requests.rejected", "reason", "concurrency");
+        Gauge.builder("auth.requests.in_flight", permits, semaphore -> maxInFlight - semaphore.availablePermits())
+                .register(meterRegistry);
+    }
+    
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || !request.getRequestURI().startsWith("/api/");
+    }
+    
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(acquireTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        
+        if (!acquired) {
+            reject(request, response);
+            return;
+        }
+        
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            permits.release();
+        }
+    }
+    
+    private void reject(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        rejected.increment();
+        log.warn("Rejecting {} with {} requests in flight", request.getRequestURI(), maxInFlight);
+        
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        
+        final Map<String, Object> body = new HashMap<>();
+        body.put("status", HttpStatus.SERVICE_UNAVAILABLE.value());
+        body.put("error", "Service Unavailable");
+        body.put("message", "Server is busy, retry after " + retryAfterSeconds + " seconds");
+        body.put("path", request.getRequestURI());
+        
+        objectMapper.writeValue(response.getOutputStream(), body);
+    }
+}
\ No newline at end of file
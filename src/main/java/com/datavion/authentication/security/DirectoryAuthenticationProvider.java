@@ -0,0 +1,276 @@
+package com.datavion.authentication.security;
+
+import com.datavion.authentication.entity.User;
+import com.datavion.authentication.exception.ServiceOverloadedException;
+import com.datavion.authentication.service.LdapUserProvisioner;
+import com.datavion.authentication.util.LoginIdentifierUtil;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.ldap.NamingException;
+import org.springframework.ldap.core.AttributesMapper;
+import org.springframework.ldap.core.DirContextOperations;
+import org.springframework.ldap.core.LdapTemplate;
+import org.springframework.ldap.core.support.AbstractContextMapper;
+import org.springframework.ldap.core.support.LdapContextSource;
+import org.springframework.ldap.support.LdapUtils;
+import org.springframework.security.authentication.AccountStatusUserDetailsChecker;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import javax.naming.directory.Attribute;
+import javax.naming.directory.DirContext;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.springframework.ldap.query.LdapQueryBuilder.query;
+
+/**
+ * Authenticates {@link User.UserSource#LDAP} accounts, and unknown usernames found in the
+ * directory, by binding as the user. Local accounts are left to the password provider.
+ *
+ * <p>A successful bind is remembered for a short time under a digest of the credentials salted
+ * with a per-process secret, so repeated logins skip the directory and no password is kept in
+ * memory. Group lookups are cached per user DN, and skipped for known users when the directory
+ * sync keeps their roles in local tables. Directory calls run behind a bulkhead: once
+ * {@code max-concurrent-operations} are in flight, further logins wait briefly and then get a
+ * {@link ServiceOverloadedException} instead of tying up request threads on a slow directory.
+ * An unreachable directory gets the same exception, so it is reported as a 503 rather than as bad
+ * credentials that would count towards locking the account.
+ */
+@Component
+@ConditionalOnProperty(name = "app.ldap.enabled", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class DirectoryAuthenticationProvider implements AuthenticationProvider {
+    
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    
+    private final LdapTemplate ldapTemplate;
+    private final LdapContextSource ldapBindContextSource;
+    private final UserDetailsService userDetailsService;
+    private final LdapUserProvisioner ldapUserProvisioner;
+    
+    private final AccountStatusUserDetailsChecker accountStatusChecker = new AccountStatusUserDetailsChecker();
+    
+    @Value("${spring.ldap.user-search-base}")
+    private String userSearchBase;
+    
+    @Value("${spring.ldap.user-search-filter}")
+    private String userSearchFilter;
+    
+    @Value("${spring.ldap.group-search-base}")
+    private String groupSearchBase;
+    
+    @Value("${spring.ldap.group-search-filter}")
+    private String groupSearchFilter;
+    
+    @Value("${app.ldap.username-attribute:uid}")
+    private String usernameAttribute;
+    
+    @Value("${app.ldap.email-attribute:mail}")
+    private String emailAttribute;
+    
+    @Value("${app.ldap.group-name-attribute:cn}")
+    private String groupNameAttribute;
+    
+    // With the sync job on, known users' roles are already in local tables
+    @Value("${app.ldap.sync.enabled:false}")
+    private boolean groupsSynced;
+    
+    @Value("${app.ldap.max-concurrent-operations:16}")
+    private int maxConcurrentOperations;
+    
+    @Value("${app.ldap.acquire-timeout-millis:500}")
+    private long acquireTimeoutMillis;
+    
+    @Value("${app.ldap.retry-after-seconds:2}")
+    private long retryAfterSeconds;
+    
+    @Value("${app.ldap.bind-cache.max-size:10000}")
+    private long bindCacheMaxSize;
+    
+    @Value("${app.ldap.bind-cache.ttl-seconds:60}")
+    private long bindCacheTtlSeconds;
+    
+    @Value("${app.ldap.group-cache.max-size:10000}")
+    private long groupCacheMaxSize;
+    
+    @Value("${app.ldap.group-cache.ttl-seconds:300}")
+    private long groupCacheTtlSeconds;
+    
+    private Semaphore bulkhead;
+    
+    private Mac digestPrototype;
+    
+    private Cache<String, DirectoryAccount> binds;
+    
+    private AsyncCache<String, List<String>> groupsByDn;
+    
+    record DirectoryAccount(String dn, String username, String email) {
+    }
+    
+    @PostConstruct
+    void init() throws GeneralSecurityException {
+        bulkhead = new Semaphore(maxConcurrentOperations, true);
+        
+        byte[] salt = new byte[32];
+        new SecureRandom().nextBytes(salt);
+        digestPrototype = Mac.getInstance(HMAC_ALGORITHM);
+        digestPrototype.init(new SecretKeySpec(salt, HMAC_ALGORITHM));
+        
+        binds = Caffeine.newBuilder()
+                .maximumSize(bindCacheMaxSize)
+                .expireAfterWrite(Duration.ofSeconds(bindCacheTtlSeconds))
+                .build();
+        groupsByDn = Caffeine.newBuilder()
+                .maximumSize(groupCacheMaxSize)
+                .expireAfterWrite(Duration.ofSeconds(groupCacheTtlSeconds))
+                .buildAsync();
+    }
+    
+    @Override
+    public Authentication authenticate(Authentication authentication) throws AuthenticationException {
+        String login = authentication.getName();
+        String password = authentication.getCredentials() != null ? authentication.getCredentials().toString() : "";
+        
+        UserPrincipal existing = findLocal(login);
+        if (existing != null && existing.getUser().getSource() != User.UserSource.LDAP) {
+            return null;
+        }
+        if (existing == null && LoginIdentifierUtil.looksLikeEmail(login)) {
+            // Directory logins are by username; an unknown email address cannot be searched for
+            return null;
+        }
+        if (existing != null) {
+            accountStatusChecker.check(existing);
+        }
+        // An empty password would be an unauthenticated bind, which most directories accept
+        if (password.isEmpty()) {
+            throw new BadCredentialsException("Invalid credentials");
+        }
+        
+        String username = existing != null ? existing.getUsername() : login;
+        String digest = credentialDigest(username, password);
+        DirectoryAccount account = binds.getIfPresent(digest);
+        if (account == null) {
+            account = withBulkhead(() -> bind(username, password));
+            if (existing == null || !groupsSynced) {
+                List<String> groups = CallerRunsLoads.get(groupsByDn, account.dn(), dn -> withBulkhead(() -> findGroups(dn)));
+                ldapUserProvisioner.provision(account.dn(), account.username(), account.email(), groups);
+            }
+            binds.put(digest, account);
+        }
+        
+        UserPrincipal principal = (UserPrincipal) userDetailsService.loadUserByUsername(account.username());
+        accountStatusChecker.check(principal);
+        return UsernamePasswordAuthenticationToken.authenticated(principal, null, principal.getAuthorities());
+    }
+    
+    @Override
+    public boolean supports(Class<?> authentication) {
+        return UsernamePasswordAuthenticationToken.class.isAssignableFrom(authentication);
+    }
+    
+    private UserPrincipal findLocal(String login) {
+        try {
+            return (UserPrincipal) userDetailsService.loadUserByUsername(login);
+        } catch (UsernameNotFoundException e) {
+            return null;
+        }
+    }
+    
+    private DirectoryAccount bind(String username, String password) {
+        List<DirectoryAccount> found = ldapTemplate.search(
+                query().base(userSearchBase).filter(userSearchFilter, username),
+                new AbstractContextMapper<>() {
+                    @Override
+                    protected DirectoryAccount doMapFromContext(DirContextOperations ctx) {
+                        return new DirectoryAccount(ctx.getNameInNamespace(),
+                                ctx.getStringAttribute(usernameAttribute), ctx.getStringAttribute(emailAttribute));
+                    }
+                });
+        if (found.size() != 1) {
+            throw new BadCredentialsException("Invalid credentials");
+        }
+        
+        DirectoryAccount account = found.getFirst();
+        DirContext context = null;
+        try {
+            context = ldapBindContextSource.getContext(account.dn(), password);
+        } catch (org.springframework.ldap.AuthenticationException e) {
+            throw new BadCredentialsException("Invalid credentials");
+        } finally {
+            LdapUtils.closeContext(context);
+        }
+        return account.username() != null ? account : new DirectoryAccount(account.dn(), username, account.email());
+    }
+    
+    private List<String> findGroups(String userDn) {
+        // Groups without the name attribute cannot map to a role, so they are skipped rather than failing the login
+        return ldapTemplate.search(
+                query().base(groupSearchBase).filter(groupSearchFilter, userDn),
+                (AttributesMapper<String>) attributes -> {
+                    Attribute name = attributes.get(groupNameAttribute);
+                    return name != null ? (String) name.get() : null;
+                }).stream()
+                .filter(Objects::nonNull)
+                .toList();
+    }
+    
+    private <T> T withBulkhead(Supplier<T> call) {
+        boolean acquired;
+        try {
+            acquired = bulkhead.tryAcquire(acquireTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceOverloadedException("Interrupted waiting for the directory", retryAfterSeconds);
+        }
+        if (!acquired) {
+            throw new ServiceOverloadedException("Too many concurrent directory requests", retryAfterSeconds);
+        }
+        try {
+            return call.get();
+        } catch (NamingException | DataAccessException e) {
+            // Not an AuthenticationException, so ProviderManager cannot fall through to the password
+            // provider and turn an outage into a failed attempt that counts towards a lockout
+            log.warn("Directory request failed: {}", e.getMessage());
+            throw new ServiceOverloadedException("Directory unavailable", retryAfterSeconds);
+        } finally {
+            bulkhead.release();
+        }
+    }
+    
+    private String credentialDigest(String username, String password) {
+        try {
+            Mac mac = (Mac) digestPrototype.clone();
+            mac.update(LoginIdentifierUtil.normalize(username).getBytes(StandardCharsets.UTF_8));
+            mac.update((byte) 0);
+            return HexFormat.of().formatHex(mac.doFinal(password.getBytes(StandardCharsets.UTF_8)));
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException("Cannot clone " + HMAC_ALGORITHM, e);
+        }
+    }
+}
\ No newline at end of file
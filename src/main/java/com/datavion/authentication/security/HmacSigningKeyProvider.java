@@ -0,0 +1,39 @@
+package com.datavion.authentication.security;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.PublicJwk;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.util.List;
+
+/**
+ * HS256 with the shared {@code app.jwt.secret}. Every verifier needs the secret, so nothing is
+ * published in the JWKS document. Tokens carry no {@code kid}.
+ */
+public class HmacSigningKeyProvider implements SigningKeyProvider {
+    
+    private final SigningKey signingKey;
+    
+    public HmacSigningKeyProvider(String secret) {
+        SecretKey key = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        this.signingKey = SigningKey.of(null, key, Jwts.SIG.HS256);
+    }
+    
+    @Override
+    public SigningKey signingKey() {
+        return signingKey;
+    }
+    
+    @Override
+    public Key verificationKey(String keyId) {
+        return keyId == null ? signingKey.key() : null;
+    }
+    
+    @Override
+    public List<PublicJwk<?>> publicJwks() {
+        return List.of();
+    }
+}
\ No newline at end of file
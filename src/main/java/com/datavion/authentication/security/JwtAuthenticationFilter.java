@@ -1,12 +1,14 @@
 package com.datavion.authentication.security;
 
 import com.datavion.authentication.util.JwtUtil;
+import com.datavion.authentication.util.ParsedToken;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -24,6 +26,10 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     
     private final JwtUtil jwtUtil;
     private final UserDetailsService userDetailsService;
+    private final AccessTokenRevocationService revocationService;
+    
+    @Value("${app.jwt.claims-trusted:false}")
+    private boolean claimsTrusted;
     
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
@@ -41,12 +47,14 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         jwt = authHeader.substring(7);
         
         try {
-            username = jwtUtil.extractUsername(jwt);
+            final ParsedToken parsedToken = jwtUtil.parse(jwt);
+            username = parsedToken.username();
             
-            if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+            if (username != null && SecurityContextHolder.getContext().getAuthentication() == null
+                    && !revocationService.isRevoked(parsedToken)) {
+                UserDetails userDetails = loadUserDetails(parsedToken);
                 
-                if (jwtUtil.validateToken(jwt, userDetails)) {
+                if (jwtUtil.validateToken(parsedToken, userDetails)) {
                     UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
                             userDetails,
                             null,
@@ -62,4 +70,14 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         
         filterChain.doFilter(request, response);
     }
+    
+    private UserDetails loadUserDetails(ParsedToken parsedToken) {
+        if (claimsTrusted) {
+            UserPrincipal principal = jwtUtil.extractPrincipal(parsedToken);
+            if (principal != null) {
+                return principal;
+            }
+        }
+        return userDetailsService.loadUserByUsername(parsedToken.username());
+    }
 }
\ No newline at end of file
@@ -0,0 +1,178 @@
+package com.datavion.authentication.security;
+
+import com.datavion.authentication.entity.KeyRingEntry;
+import com.datavion.authentication.repository.KeyRingEntryRepository;
+import com.datavion.authentication.service.SigningKeyRotationService;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.PublicJwk;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Signing keys from the database key ring maintained by {@link SigningKeyRotationService}.
+ *
+ * <p>The decoded ring is an immutable snapshot behind a volatile reference: every kid maps to a
+ * ready-to-use verification key, so a lookup is a single map read with no locking or decoding.
+ * The snapshot is replaced when a reload is announced over Redis, on a fixed interval as a
+ * fallback, and at most every few seconds when a token names a kid this node has not seen yet.
+ *
+ * <p>Tokens without a {@code kid} were signed with the static {@code app.jwt.secret}; they keep
+ * verifying while {@code accept-legacy-secret} is on, so switching to the ring logs nobody out.
+ */
+@Component
+@ConditionalOnProperty(name = "app.jwt.signing.key-source", havingValue = "ring")
+@RequiredArgsConstructor
+@Slf4j
+public class KeyRingSigningKeyProvider implements SigningKeyProvider, MessageListener {
+    
+    private static final long MISS_RELOAD_INTERVAL_MILLIS = 5000;
+    private static final String HS256 = "HS256";
+    
+    private final KeyRingEntryRepository keyRingEntryRepository;
+    private final KeyMaterialCipher keyMaterialCipher;
+    private final SigningKeyRotationService rotationService;
+    
+    @Value("${app.jwt.secret}")
+    private String legacySecret;
+    
+    @Value("${app.jwt.signing.ring.accept-legacy-secret:true}")
+    private boolean acceptLegacySecret;
+    
+    private Key legacyKey;
+    
+    private volatile Ring ring;
+    
+    private final AtomicLong lastMissReload = new AtomicLong();
+    
+    private record Ring(SigningKey signingKey, Map<String, Key> verificationKeys, List<PublicJwk<?>> publicJwks) {
+    }
+    
+    @PostConstruct
+    void init() {
+        if (acceptLegacySecret) {
+            legacyKey = new HmacSigningKeyProvider(legacySecret).signingKey().key();
+        }
+        
+        Ring loaded = load();
+        if (loaded.signingKey() == null) {
+            rotationService.bootstrap();
+            loaded = load();
+        }
+        ring = loaded;
+    }
+    
+    @Scheduled(fixedDelayString = "${app.jwt.signing.ring.reload-interval-millis:60000}",
+            initialDelayString = "${app.jwt.signing.ring.reload-interval-millis:60000}")
+    public void reload() {
+        try {
+            Ring loaded = load();
+            if (loaded.signingKey() != null) {
+                ring = loaded;
+            }
+        } catch (RuntimeException e) {
+            log.warn("Failed to reload the signing key ring, keeping the current one: {}", e.getMessage());
+        }
+    }
+    
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        reload();
+    }
+    
+    @Override
+    public SigningKey signingKey() {
+        return ring.signingKey();
+    }
+    
+    @Override
+    public Key verificationKey(String keyId) {
+        if (keyId == null) {
+            return legacyKey;
+        }
+        
+        Key key = ring.verificationKeys().get(keyId);
+        if (key == null) {
+            long last = lastMissReload.get();
+            long now = System.currentTimeMillis();
+            // Lets a node that missed a reload catch up, without letting unknown kids hammer the database
+            if (now - last >= MISS_RELOAD_INTERVAL_MILLIS && lastMissReload.compareAndSet(last, now)) {
+                reload();
+                key = ring.verificationKeys().get(keyId);
+            }
+        }
+        return key;
+    }
+    
+    @Override
+    public List<PublicJwk<?>> publicJwks() {
+        return ring.publicJwks();
+    }
+    
+    private Ring load() {
+        List<KeyRingEntry> entries = new ArrayList<>(keyRingEntryRepository.findAll());
+        entries.sort(Comparator.comparing(KeyRingEntry::getKid));
+        
+        SigningKey signingKey = null;
+        Map<String, Key> verificationKeys = new HashMap<>();
+        List<PublicJwk<?>> publicJwks = new ArrayList<>();
+        for (KeyRingEntry entry : entries) {
+            try {
+                if (HS256.equals(entry.getAlgorithm())) {
+                    Key secret = Keys.hmacShaKeyFor(keyMaterialCipher.decrypt(entry.getPrivateKey(), entry.getKid()));
+                    verificationKeys.put(entry.getKid(), secret);
+                    if (entry.getState() == KeyRingEntry.State.ACTIVE) {
+                        signingKey = SigningKey.of(entry.getKid(), secret, Jwts.SIG.HS256);
+                    }
+                } else {
+                    AsymmetricSigningKeyProvider.Algorithm algorithm =
+                            AsymmetricSigningKeyProvider.Algorithm.valueOf(entry.getAlgorithm());
+                    var publicKey = algorithm.decodePublicKey(entry.getPublicKey());
+                    verificationKeys.put(entry.getKid(), publicKey);
+                    publicJwks.add(AsymmetricSigningKeyProvider.toJwk(entry.getKid(), publicKey, algorithm));
+                    if (entry.getState() == KeyRingEntry.State.ACTIVE) {
+                        var privateKey = algorithm.decodePrivateKey(
+                                keyMaterialCipher.decrypt(entry.getPrivateKey(), entry.getKid()));
+                        signingKey = SigningKey.of(entry.getKid(), privateKey, algorithm.signatureAlgorithm());
+                    }
+                }
+            } catch (GeneralSecurityException | RuntimeException e) {
+                log.error("Skipping unusable signing key {}: {}", entry.getKid(), e.getMessage());
+            }
+        }
+        
+        return new Ring(signingKey, Map.copyOf(verificationKeys), sameKidsAsCurrent(publicJwks));
+    }
+    
+    /**
+     * Keeps the published list when no kid was added or removed, so callers relying on
+     * {@link #publicJwks()} returning the same instance see no change across periodic reloads.
+     */
+    private List<PublicJwk<?>> sameKidsAsCurrent(List<PublicJwk<?>> publicJwks) {
+        Ring current = ring;
+        if (current != null && kids(current.publicJwks()).equals(kids(publicJwks))) {
+            return current.publicJwks();
+        }
+        return List.copyOf(publicJwks);
+    }
+    
+    private static List<String> kids(List<PublicJwk<?>> publicJwks) {
+        return publicJwks.stream().map(PublicJwk::getId).toList();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,93 @@
+package com.datavion.authentication.security;
+
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+
+/**
+ * Immutable bitset of permission ordinals. A user's effective permissions fit in a few bytes,
+ * so they travel in the access token as one compact claim and are checked with a single bit test.
+ */
+public final class PermissionBitSet {
+    
+    public static final PermissionBitSet EMPTY = new PermissionBitSet(new long[0]);
+    
+    private final long[] words;
+    
+    private PermissionBitSet(long[] words) {
+        this.words = words;
+    }
+    
+    public static PermissionBitSet of(Collection<Integer> ordinals) {
+        int max = ordinals.stream().mapToInt(Integer::intValue).max().orElse(-1);
+        if (max < 0) {
+            return EMPTY;
+        }
+        long[] words = new long[(max >>> 6) + 1];
+        for (int ordinal : ordinals) {
+            words[ordinal >>> 6] |= 1L << ordinal;
+        }
+        return new PermissionBitSet(words);
+    }
+    
+    public static PermissionBitSet union(Collection<PermissionBitSet> sets) {
+        int length = sets.stream().mapToInt(set -> set.words.length).max().orElse(0);
+        long[] words = new long[length];
+        for (PermissionBitSet set : sets) {
+            for (int i = 0; i < set.words.length; i++) {
+                words[i] |= set.words[i];
+            }
+        }
+        return new PermissionBitSet(words);
+    }
+    
+    /**
+     * Decodes a value produced by {@link #toClaim()}.
+     *
+     * @throws IllegalArgumentException if the value is not valid base64url
+     */
+    public static PermissionBitSet fromClaim(String claim) {
+        byte[] bytes = Base64.getUrlDecoder().decode(claim);
+        long[] words = new long[(bytes.length + 7) >>> 3];
+        for (int i = 0; i < bytes.length; i++) {
+            words[i >>> 3] |= (bytes[i] & 0xFFL) << ((i & 7) << 3);
+        }
+        return new PermissionBitSet(words);
+    }
+    
+    public boolean get(int ordinal) {
+        int word = ordinal >>> 6;
+        return word < words.length && (words[word] & (1L << ordinal)) != 0;
+    }
+    
+    /** Index of the first set bit at or after {@code from}, or -1 if there is none. */
+    public int nextSetBit(int from) {
+        int word = from >>> 6;
+        if (word >= words.length) {
+            return -1;
+        }
+        long bits = words[word] & (-1L << from);
+        while (true) {
+            if (bits != 0) {
+                return (word << 6) + Long.numberOfTrailingZeros(bits);
+            }
+            if (++word == words.length) {
+                return -1;
+            }
+            bits = words[word];
+        }
+    }
+    
+    /** Little-endian bytes, trailing zero bytes dropped, as unpadded base64url. */
+    public String toClaim() {
+        int length = words.length << 3;
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = (byte) (words[i >>> 3] >>> ((i & 7) << 3));
+        }
+        while (length > 0 && bytes[length - 1] == 0) {
+            length--;
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(bytes, length));
+    }
+}
\ No newline at end of file
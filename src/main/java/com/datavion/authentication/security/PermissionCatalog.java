@@ -0,0 +1,50 @@
+package com.datavion.authentication.security;
+
+import com.datavion.authentication.entity.Permission;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Immutable mapping between {@code resource:action} authority names and the stable permission
+ * ordinals stored in {@code permissions.ordinal}. Authority names are concatenated once, here,
+ * rather than on every request.
+ */
+public final class PermissionCatalog {
+    
+    public static final PermissionCatalog EMPTY = new PermissionCatalog(Map.of(), new GrantedAuthority[0]);
+    
+    private final Map<String, Integer> ordinalByAuthority;
+    private final GrantedAuthority[] authorityByOrdinal;
+    
+    private PermissionCatalog(Map<String, Integer> ordinalByAuthority, GrantedAuthority[] authorityByOrdinal) {
+        this.ordinalByAuthority = ordinalByAuthority;
+        this.authorityByOrdinal = authorityByOrdinal;
+    }
+    
+    public static PermissionCatalog of(Collection<Permission> permissions) {
+        Map<String, Integer> ordinals = new HashMap<>();
+        int max = -1;
+        for (Permission permission : permissions) {
+            ordinals.put(permission.getResource() + ":" + permission.getAction(), permission.getOrdinal());
+            max = Math.max(max, permission.getOrdinal());
+        }
+        GrantedAuthority[] authorities = new GrantedAuthority[max + 1];
+        ordinals.forEach((name, ordinal) -> authorities[ordinal] = new SimpleGrantedAuthority(name));
+        return new PermissionCatalog(Map.copyOf(ordinals), authorities);
+    }
+    
+    /** Ordinal of the authority, or -1 if no known permission has that name. */
+    public int ordinalOf(String authority) {
+        Integer ordinal = ordinalByAuthority.get(authority);
+        return ordinal != null ? ordinal : -1;
+    }
+    
+    /** Shared authority instance for the ordinal, or {@code null} if the ordinal is unknown. */
+    public GrantedAuthority authorityAt(int ordinal) {
+        return ordinal < authorityByOrdinal.length ? authorityByOrdinal[ordinal] : null;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,60 @@
+package com.datavion.authentication.security;
+
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManager;
+import org.springframework.security.authorization.AuthorizationManagerFactory;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Evaluates {@code hasAuthority} and {@code hasAnyAuthority} in {@code @PreAuthorize} expressions
+ * as hash lookups in the principal's {@link AuthoritySet}, instead of copying the authority
+ * collection into a new set on every check.
+ */
+@Component
+public class PrincipalAuthorizationManagerFactory implements AuthorizationManagerFactory<MethodInvocation> {
+    
+    private static final AuthorizationDecision GRANTED = new AuthorizationDecision(true);
+    private static final AuthorizationDecision DENIED = new AuthorizationDecision(false);
+    
+    private final Map<String, AuthorizationManager<MethodInvocation>> managers = new ConcurrentHashMap<>();
+    
+    @Override
+    public AuthorizationManager<MethodInvocation> hasAuthority(String authority) {
+        return managers.computeIfAbsent(authority, required ->
+                (authentication, invocation) -> decide(authentication.get(), required));
+    }
+    
+    @Override
+    public AuthorizationManager<MethodInvocation> hasAnyAuthority(String... authorities) {
+        return (authentication, invocation) -> {
+            Authentication current = authentication.get();
+            for (String authority : authorities) {
+                if (decide(current, authority).isGranted()) {
+                    return GRANTED;
+                }
+            }
+            return DENIED;
+        };
+    }
+    
+    private static AuthorizationDecision decide(Authentication authentication, String authority) {
+        if (authentication == null || !authentication.isAuthenticated()) {
+            return DENIED;
+        }
+        if (authentication.getPrincipal() instanceof UserPrincipal principal) {
+            return principal.hasAuthority(authority) ? GRANTED : DENIED;
+        }
+        for (GrantedAuthority granted : authentication.getAuthorities()) {
+            if (authority.equals(granted.getAuthority())) {
+                return GRANTED;
+            }
+        }
+        return DENIED;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,185 @@
+package com.datavion.authentication.security;
+
+import com.datavion.authentication.util.LoginIdentifierUtil;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * Two-level cache of principal snapshots: a bounded in-process Caffeine cache in front of a
+ * Redis cache shared by all replicas. Evictions delete the Redis entries and are broadcast on
+ * {@link #INVALIDATION_CHANNEL} so every node drops its local copy. Redis failures degrade to
+ * the local cache and the database rather than failing the request.
+ *
+ * <p>Every eviction bumps a generation counter for its keys, or a global one for
+ * {@link #evictAll()}. A loader records the generations before reading the database and writes
+ * its snapshot to Redis only if they are unchanged, so a load that raced a commit cannot put the
+ * old state back for every node. Snapshots in Redis carry no password hash.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class PrincipalCache implements MessageListener {
+    
+    public static final String INVALIDATION_CHANNEL = "dauth:principal:invalidate";
+    
+    public static final String EVICT_ALL = "*";
+    
+    private static final String KEY_PREFIX = "dauth:principal:";
+    private static final String KEY_SEPARATOR = "\n";
+    private static final String GENERATION_PREFIX = "dauth:principal-gen:";
+    private static final String GLOBAL_GENERATION_KEY = "dauth:principal-gen";
+    
+    // Only has to outlive a load in flight; an expired counter reads as changed, or as a fresh 0
+    private static final Duration GENERATION_TTL = Duration.ofHours(1);
+    
+    private static final RedisScript<Long> WRITE_IF_CURRENT = RedisScript.of("""
+            if (redis.call('GET', KEYS[2]) or '0') == ARGV[1] and (redis.call('GET', KEYS[3]) or '0') == ARGV[2] then
+                redis.call('SET', KEYS[1], ARGV[3], 'PX', ARGV[4])
+                return 1
+            end
+            return 0
+            """, Long.class);
+    
+    private final StringRedisTemplate redisTemplate;
+    
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    
+    @Value("${app.cache.principal.l1-max-size:10000}")
+    private long l1MaxSize;
+    
+    @Value("${app.cache.principal.l1-ttl-seconds:60}")
+    private long l1TtlSeconds;
+    
+    @Value("${app.cache.principal.l2-ttl-seconds:600}")
+    private long l2TtlSeconds;
+    
+    private AsyncCache<String, PrincipalSnapshot> localCache;
+    
+    @PostConstruct
+    void init() {
+        localCache = Caffeine.newBuilder()
+                .maximumSize(l1MaxSize)
+                .expireAfterWrite(Duration.ofSeconds(l1TtlSeconds))
+                .buildAsync();
+    }
+    
+    /**
+     * Returns the snapshot for the given username or email, consulting the local cache, then
+     * Redis, then {@code loader}. Concurrent misses for the same key on one node share a single load,
+     * which runs on the calling thread outside any cache lock. A snapshot served from Redis has no
+     * password hash.
+     */
+    public PrincipalSnapshot get(String key, Function<String, PrincipalSnapshot> loader) {
+        return CallerRunsLoads.get(localCache, LoginIdentifierUtil.normalize(key), k -> {
+            SharedEntry shared = readShared(k);
+            if (shared != null && shared.snapshot() != null) {
+                return shared.snapshot();
+            }
+            PrincipalSnapshot snapshot = loader.apply(k);
+            if (shared != null) {
+                writeShared(k, snapshot, shared);
+            }
+            return snapshot;
+        });
+    }
+    
+    public void evict(Collection<String> names) {
+        List<String> keys = names.stream().map(LoginIdentifierUtil::normalize).toList();
+        localCache.synchronous().invalidateAll(keys);
+        try {
+            for (String key : keys) {
+                redisTemplate.opsForValue().increment(GENERATION_PREFIX + key);
+                redisTemplate.expire(GENERATION_PREFIX + key, GENERATION_TTL);
+            }
+            redisTemplate.delete(keys.stream().map(key -> KEY_PREFIX + key).toList());
+            redisTemplate.convertAndSend(INVALIDATION_CHANNEL, String.join(KEY_SEPARATOR, keys));
+        } catch (RuntimeException e) {
+            log.warn("Could not propagate principal eviction through Redis: {}", e.getMessage());
+        }
+    }
+    
+    public void evictAll() {
+        localCache.synchronous().invalidateAll();
+        try {
+            redisTemplate.opsForValue().increment(GLOBAL_GENERATION_KEY);
+            List<String> keys = new ArrayList<>();
+            try (Cursor<String> cursor = redisTemplate.scan(ScanOptions.scanOptions().match(KEY_PREFIX + "*").build())) {
+                cursor.forEachRemaining(keys::add);
+            }
+            if (!keys.isEmpty()) {
+                redisTemplate.delete(keys);
+            }
+            redisTemplate.convertAndSend(INVALIDATION_CHANNEL, EVICT_ALL);
+        } catch (RuntimeException e) {
+            log.warn("Could not propagate principal eviction through Redis: {}", e.getMessage());
+        }
+    }
+    
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        if (EVICT_ALL.equals(body)) {
+            localCache.synchronous().invalidateAll();
+        } else {
+            localCache.synchronous().invalidateAll(Arrays.asList(body.split(KEY_SEPARATOR)));
+        }
+    }
+    
+    /**
+     * Reads the shared snapshot and the generations guarding it in one round trip.
+     *
+     * @return null if Redis is unavailable, otherwise the entry, whose snapshot is null on a miss
+     */
+    private SharedEntry readShared(String key) {
+        try {
+            List<String> values = redisTemplate.opsForValue().multiGet(
+                    List.of(KEY_PREFIX + key, GENERATION_PREFIX + key, GLOBAL_GENERATION_KEY));
+            if (values == null) {
+                return null;
+            }
+            String json = values.get(0);
+            return new SharedEntry(json != null ? objectMapper.readValue(json, PrincipalSnapshot.class) : null,
+                    Objects.requireNonNullElse(values.get(1), "0"), Objects.requireNonNullElse(values.get(2), "0"));
+        } catch (Exception e) {
+            log.debug("Principal cache read from Redis failed: {}", e.getMessage());
+            return null;
+        }
+    }
+    
+    private void writeShared(String key, PrincipalSnapshot snapshot, SharedEntry readAt) {
+        try {
+            redisTemplate.execute(WRITE_IF_CURRENT,
+                    List.of(KEY_PREFIX + key, GENERATION_PREFIX + key, GLOBAL_GENERATION_KEY),
+                    readAt.generation(), readAt.globalGeneration(),
+                    objectMapper.writeValueAsString(snapshot.withoutPasswordHash()),
+                    String.valueOf(Duration.ofSeconds(l2TtlSeconds).toMillis()));
+        } catch (Exception e) {
+            log.debug("Principal cache write to Redis failed: {}", e.getMessage());
+        }
+    }
+    
+    private record SharedEntry(PrincipalSnapshot snapshot, String generation, String globalGeneration) {
+    }
+}
\ No newline at end of file
@@ -0,0 +1,107 @@
+package com.datavion.authentication.security;
+
+import com.datavion.authentication.entity.Permission;
+import com.datavion.authentication.entity.Role;
+import com.datavion.authentication.entity.User;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.*;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+
+/**
+ * Evicts cached principals whenever Hibernate writes a user, role or permission. Entity changes
+ * are handled after commit; collection changes (role assignments, role permissions) are deferred
+ * to the surrounding transaction's commit so no node can re-cache uncommitted state.
+ */
+@Component
+@RequiredArgsConstructor
+public class PrincipalCacheInvalidator implements PostCommitUpdateEventListener, PostCommitDeleteEventListener,
+        PostCollectionRecreateEventListener, PostCollectionUpdateEventListener, PostCollectionRemoveEventListener {
+    
+    private final EntityManagerFactory entityManagerFactory;
+    private final PrincipalCache principalCache;
+    private final RoleAuthorityRegistry roleAuthorityRegistry;
+    
+    @PostConstruct
+    void register() {
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .requireService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, this);
+        registry.appendListeners(EventType.POST_COMMIT_DELETE, this);
+        registry.appendListeners(EventType.POST_COLLECTION_RECREATE, this);
+        registry.appendListeners(EventType.POST_COLLECTION_UPDATE, this);
+        registry.appendListeners(EventType.POST_COLLECTION_REMOVE, this);
+    }
+    
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        invalidate(event.getEntity());
+    }
+    
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        invalidate(event.getEntity());
+    }
+    
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+        // Nothing was committed, so nothing cached is stale
+    }
+    
+    @Override
+    public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+        // Nothing was committed, so nothing cached is stale
+    }
+    
+    @Override
+    public void onPostRecreateCollection(PostCollectionRecreateEvent event) {
+        afterCommit(event.getAffectedOwnerOrNull());
+    }
+    
+    @Override
+    public void onPostUpdateCollection(PostCollectionUpdateEvent event) {
+        afterCommit(event.getAffectedOwnerOrNull());
+    }
+    
+    @Override
+    public void onPostRemoveCollection(PostCollectionRemoveEvent event) {
+        afterCommit(event.getAffectedOwnerOrNull());
+    }
+    
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        Class<?> type = persister.getMappedClass();
+        return type == User.class || type == Role.class || type == Permission.class;
+    }
+    
+    private void afterCommit(Object entity) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            invalidate(entity);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                invalidate(entity);
+            }
+        });
+    }
+    
+    private void invalidate(Object entity) {
+        if (entity instanceof User user) {
+            principalCache.evict(List.of(user.getUsername(), user.getEmail()));
+        } else if (entity instanceof Role || entity instanceof Permission) {
+            roleAuthorityRegistry.invalidate();
+            principalCache.evictAll();
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,66 @@
+package com.datavion.authentication.security;
+
+import com.datavion.authentication.entity.Role;
+import com.datavion.authentication.entity.Tenant;
+import com.datavion.authentication.entity.User;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Detached, serializable copy of everything {@link UserPrincipal} needs, so a cached principal
+ * can be rebuilt without touching the database or lazy associations.
+ */
+public record PrincipalSnapshot(
+        Long id,
+        String username,
+        String email,
+        String passwordHash,
+        Boolean emailVerified,
+        Boolean accountLocked,
+        User.UserSource source,
+        Long tenantId,
+        LocalDateTime lastLoginAt,
+        LocalDateTime createdAt,
+        List<Long> roleIds) {
+    
+    public static PrincipalSnapshot of(User user) {
+        return new PrincipalSnapshot(
+                user.getId(),
+                user.getUsername(),
+                user.getEmail(),
+                user.getPasswordHash(),
+                user.getEmailVerified(),
+                user.getAccountLocked(),
+                user.getSource(),
+                user.getTenant() != null ? user.getTenant().getId() : null,
+                user.getLastLoginAt(),
+                user.getCreatedAt(),
+                user.getRoles().stream()
+                        .map(Role::getId)
+                        .toList());
+    }
+    
+    /** The copy shared through Redis, which never holds password hashes. */
+    public PrincipalSnapshot withoutPasswordHash() {
+        return new PrincipalSnapshot(id, username, email, null, emailVerified, accountLocked, source, tenantId,
+                lastLoginAt, createdAt, roleIds);
+    }
+    
+    public UserPrincipal toPrincipal(RoleAuthorityRegistry roleAuthorityRegistry) {
+        User user = User.builder()
+                .id(id)
+                .username(username)
+                .email(email)
+                .passwordHash(passwordHash)
+                .emailVerified(emailVerified)
+                .accountLocked(accountLocked)
+                .source(source)
+                .tenant(tenantId != null ? Tenant.builder().id(tenantId).build() : null)
+                .lastLoginAt(lastLoginAt)
+                .createdAt(createdAt)
+                .build();
+        
+        return new UserPrincipal(user, roleAuthorityRegistry.forRoles(roleIds));
+    }
+}
\ No newline at end of file
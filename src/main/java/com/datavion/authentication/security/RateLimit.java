@@ -0,0 +1,9 @@
+package com.datavion.authentication.security;
+
+import java.time.Duration;
+
+/**
+ * One sliding-window limit: at most {@code maxAttempts} requests per {@code window} for {@code key}.
+ */
+public record RateLimit(String key, int maxAttempts, Duration window) {
+}
\ No newline at end of file
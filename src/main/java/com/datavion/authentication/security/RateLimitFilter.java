@@ -0,0 +1,202 @@
+package com.datavion.authentication.security;
+
+import com.datavion.authentication.util.TokenHashUtil;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Applies the {@code app.security.rate-limit} rules to the unauthenticated auth endpoints before
+ * the request reaches password hashing or the database. Each request counts against its client
+ * address and against the account it names (username or email from the JSON body), so neither
+ * one address spraying many accounts nor many addresses hammering one account gets through.
+ * Rejected requests get 429 with a {@code Retry-After} header.
+ *
+ * <p>The address limit is checked before the body is read, so a client over it cannot make the
+ * server buffer anything. Bodies over {@value #MAX_BODY_BYTES} bytes get 413. A body that names no
+ * account (malformed, or missing the field) counts against an account-sized limit for its address
+ * instead of escaping the account limit altogether.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class RateLimitFilter extends OncePerRequestFilter {
+    
+    private static final String KEY_PREFIX = "dauth:ratelimit:";
+    private static final int MAX_BODY_BYTES = 16 * 1024;
+    
+    private final RateLimiter rateLimiter;
+    private final TokenHashUtil tokenHashUtil;
+    
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    
+    @Value("${app.security.rate-limit.enabled:true}")
+    private boolean enabled;
+    
+    @Value("${app.security.rate-limit.login.max-attempts:5}")
+    private int loginMaxAttempts;
+    
+    @Value("${app.security.rate-limit.login.ip-max-attempts:50}")
+    private int loginIpMaxAttempts;
+    
+    @Value("${app.security.rate-limit.login.duration-minutes:5}")
+    private long loginDurationMinutes;
+    
+    @Value("${app.security.rate-limit.password-reset.max-attempts:3}")
+    private int passwordResetMaxAttempts;
+    
+    @Value("${app.security.rate-limit.password-reset.ip-max-attempts:20}")
+    private int passwordResetIpMaxAttempts;
+    
+    @Value("${app.security.rate-limit.password-reset.duration-minutes:60}")
+    private long passwordResetDurationMinutes;
+    
+    @Value("${app.security.rate-limit.registration.max-attempts:10}")
+    private int registrationMaxAttempts;
+    
+    @Value("${app.security.rate-limit.registration.ip-max-attempts:10}")
+    private int registrationIpMaxAttempts;
+    
+    @Value("${app.security.rate-limit.registration.duration-minutes:60}")
+    private long registrationDurationMinutes;
+    
+    private Map<String, Rule> rules;
+    
+    private record Rule(String name, int maxAttempts, int ipMaxAttempts, Duration window, List<String> identifierFields) {
+    }
+    
+    @PostConstruct
+    void init() {
+        rules = Map.of(
+                "/api/v1/auth/login", new Rule("login", loginMaxAttempts, loginIpMaxAttempts,
+                        Duration.ofMinutes(loginDurationMinutes), List.of("usernameOrEmail")),
+                "/api/v1/auth/register", new Rule("registration", registrationMaxAttempts, registrationIpMaxAttempts,
+                        Duration.ofMinutes(registrationDurationMinutes), List.of("email")),
+                "/api/v1/auth/password-reset/request", new Rule("password-reset", passwordResetMaxAttempts,
+                        passwordResetIpMaxAttempts, Duration.ofMinutes(passwordResetDurationMinutes), List.of("email")));
+    }
+    
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || !"POST".equals(request.getMethod()) || !rules.containsKey(request.getServletPath());
+    }
+    
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        
+        Rule rule = rules.get(request.getServletPath());
+        String keyPrefix = KEY_PREFIX + rule.name();
+        
+        long retryAfterMillis = rateLimiter.tryAcquire(List.of(new RateLimit(
+                keyPrefix + ":ip:" + request.getRemoteAddr(), rule.ipMaxAttempts(), rule.window())));
+        if (retryAfterMillis > 0) {
+            rejectTooManyRequests(request, response, retryAfterMillis);
+            return;
+        }
+        
+        if (request.getContentLengthLong() > MAX_BODY_BYTES) {
+            rejectTooLarge(request, response);
+            return;
+        }
+        // Content-Length can be absent (chunked) or wrong, so the read itself is bounded too
+        CachedBodyHttpServletRequest cachedRequest = new CachedBodyHttpServletRequest(request, MAX_BODY_BYTES);
+        if (cachedRequest.exceedsLimit()) {
+            rejectTooLarge(request, response);
+            return;
+        }
+        
+        List<String> identifiers = extractIdentifiers(cachedRequest.getBody(), rule.identifierFields());
+        List<RateLimit> limits = new ArrayList<>(Math.max(1, identifiers.size()));
+        for (String identifier : identifiers) {
+            // Keyed by digest so account names are not stored in Redis
+            limits.add(new RateLimit(keyPrefix + ":id:" + tokenHashUtil.hash(identifier),
+                    rule.maxAttempts(), rule.window()));
+        }
+        if (limits.isEmpty()) {
+            limits.add(new RateLimit(keyPrefix + ":uninspected:" + request.getRemoteAddr(),
+                    rule.maxAttempts(), rule.window()));
+        }
+        
+        retryAfterMillis = rateLimiter.tryAcquire(limits);
+        if (retryAfterMillis > 0) {
+            rejectTooManyRequests(request, response, retryAfterMillis);
+            return;
+        }
+        
+        filterChain.doFilter(cachedRequest, response);
+    }
+    
+    private List<String> extractIdentifiers(byte[] body, List<String> fields) {
+        if (body.length == 0) {
+            return List.of();
+        }
+        
+        try {
+            JsonNode json = objectMapper.readTree(body);
+            List<String> identifiers = new ArrayList<>(fields.size());
+            for (String field : fields) {
+                JsonNode value = json.get(field);
+                if (value != null && value.isTextual() && !value.asText().isBlank()) {
+                    identifiers.add(value.asText().trim().toLowerCase(Locale.ROOT));
+                }
+            }
+            return identifiers;
+        } catch (IOException e) {
+            // Malformed bodies are rejected by the controller, after counting as uninspected
+            return List.of();
+        }
+    }
+    
+    private void rejectTooManyRequests(HttpServletRequest request, HttpServletResponse response, long retryAfterMillis)
+            throws IOException {
+        
+        long retryAfterSeconds = Math.max(1, (retryAfterMillis + 999) / 1000);
+        log.warn("Rate limit exceeded for {} from {}", request.getServletPath(), request.getRemoteAddr());
+        
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        writeError(request, response, HttpStatus.TOO_MANY_REQUESTS,
+                "Too many attempts, retry after " + retryAfterSeconds + " seconds");
+    }
+    
+    private void rejectTooLarge(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        log.warn("Oversized body for {} from {}", request.getServletPath(), request.getRemoteAddr());
+        writeError(request, response, HttpStatus.CONTENT_TOO_LARGE,
+                "Request body exceeds " + MAX_BODY_BYTES + " bytes");
+    }
+    
+    private void writeError(HttpServletRequest request, HttpServletResponse response, HttpStatus status, String message)
+            throws IOException {
+        
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        
+        final Map<String, Object> body = new HashMap<>();
+        body.put("status", status.value());
+        body.put("error", status.getReasonPhrase());
+        body.put("message", message);
+        body.put("path", request.getServletPath());
+        
+        objectMapper.writeValue(response.getOutputStream(), body);
+    }
+}
\ No newline at end of file
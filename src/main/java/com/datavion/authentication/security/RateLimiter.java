@@ -0,0 +1,99 @@
+package com.datavion.authentication.security;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sliding-window rate limiter shared by all replicas through Redis. Every check runs as one Lua
+ * script that trims, counts and, only if every limit has room, records the request, so concurrent
+ * requests cannot race past a limit. While Redis is unreachable, checks fall back to a per-node
+ * {@link StripedRateLimiter} and Redis is retried after {@code redis-retry-seconds}.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class RateLimiter {
+    
+    private static final RedisScript<Long> SLIDING_WINDOW_SCRIPT = new DefaultRedisScript<>("""
+            local t = redis.call('TIME')
+            local now = tonumber(t[1]) * 1000 + math.floor(tonumber(t[2]) / 1000)
+            local retry = 0
+            for i, key in ipairs(KEYS) do
+                local limit = tonumber(ARGV[2 * i - 1])
+                local window = tonumber(ARGV[2 * i])
+                redis.call('ZREMRANGEBYSCORE', key, '-inf', now - window)
+                if redis.call('ZCARD', key) >= limit then
+                    local oldest = redis.call('ZRANGE', key, 0, 0, 'WITHSCORES')
+                    retry = math.max(retry, tonumber(oldest[2]) + window - now, 1)
+                end
+            end
+            if retry > 0 then
+                return retry
+            end
+            local member = ARGV[#ARGV]
+            for i, key in ipairs(KEYS) do
+                redis.call('ZADD', key, now, member)
+                redis.call('PEXPIRE', key, ARGV[2 * i])
+            end
+            return 0
+            """, Long.class);
+    
+    private final StringRedisTemplate redisTemplate;
+    
+    private final StripedRateLimiter fallback = new StripedRateLimiter(100_000, Duration.ofHours(1));
+    
+    private final String memberPrefix = UUID.randomUUID() + ":";
+    
+    private final AtomicLong sequence = new AtomicLong();
+    
+    @Value("${app.security.rate-limit.redis-retry-seconds:5}")
+    private long redisRetrySeconds;
+    
+    private volatile long redisRetryAt;
+    
+    /**
+     * @return 0 if the request is admitted under every limit, otherwise milliseconds to wait
+     */
+    public long tryAcquire(List<RateLimit> limits) {
+        if (limits.isEmpty()) {
+            return 0;
+        }
+        
+        if (System.currentTimeMillis() >= redisRetryAt) {
+            try {
+                return acquireShared(limits);
+            } catch (RuntimeException e) {
+                redisRetryAt = System.currentTimeMillis() + Duration.ofSeconds(redisRetrySeconds).toMillis();
+                log.warn("Rate limiter falling back to local windows for {}s: {}", redisRetrySeconds, e.getMessage());
+            }
+        }
+        
+        return fallback.tryAcquire(limits, System.currentTimeMillis());
+    }
+    
+    private long acquireShared(List<RateLimit> limits) {
+        List<String> keys = new ArrayList<>(limits.size());
+        Object[] args = new Object[limits.size() * 2 + 1];
+        for (int i = 0; i < limits.size(); i++) {
+            RateLimit limit = limits.get(i);
+            keys.add(limit.key());
+            args[2 * i] = String.valueOf(limit.maxAttempts());
+            args[2 * i + 1] = String.valueOf(limit.window().toMillis());
+        }
+        args[args.length - 1] = memberPrefix + sequence.incrementAndGet();
+        
+        Long retryAfter = redisTemplate.execute(SLIDING_WINDOW_SCRIPT, keys, args);
+        return retryAfter != null ? retryAfter : 0;
+    }
+}
\ No newline at end of file
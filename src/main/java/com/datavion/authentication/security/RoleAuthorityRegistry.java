@@ -0,0 +1,110 @@
+package com.datavion.authentication.security;
+
+import com.datavion.authentication.entity.Permission;
+import com.datavion.authentication.entity.Role;
+import com.datavion.authentication.entity.User;
+import com.datavion.authentication.repository.RoleRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Resolves roles to immutable {@link AuthoritySet}s. Every role's permissions are loaded in one
+ * query and turned into a permission bitset once; each distinct combination of roles is unioned
+ * once and shared by every user holding it. The whole table is rebuilt lazily after a role or
+ * permission change, whether it happened locally or on another node.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class RoleAuthorityRegistry implements MessageListener {
+    
+    private final RoleRepository roleRepository;
+    
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+    
+    private volatile Snapshot snapshot;
+    
+    public AuthoritySet forUser(User user) {
+        return forRoles(user.getRoles().stream().map(Role::getId).toList());
+    }
+    
+    public AuthoritySet forRoles(Collection<Long> roleIds) {
+        Snapshot current = current();
+        if (!current.roles.keySet().containsAll(roleIds)) {
+            // A role created since the last build; pick it up rather than silently dropping it
+            invalidate();
+            current = current();
+        }
+        Snapshot resolved = current;
+        return current.byRoles.computeIfAbsent(Set.copyOf(roleIds), ids -> new AuthoritySet(
+                PermissionBitSet.union(ids.stream()
+                        .map(id -> resolved.roles.getOrDefault(id, PermissionBitSet.EMPTY))
+                        .toList()),
+                resolved.catalog));
+    }
+    
+    /**
+     * Resolves the permission claim of a verified access token. Ordinals are never reused, so a
+     * claim issued before a catalog change still means the same permissions.
+     */
+    public AuthoritySet forClaim(String permissionClaim) {
+        Snapshot current = current();
+        return current.byClaim.computeIfAbsent(permissionClaim, claim ->
+                new AuthoritySet(PermissionBitSet.fromClaim(claim), current.catalog));
+    }
+    
+    public void invalidate() {
+        snapshot = null;
+    }
+    
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        if (PrincipalCache.EVICT_ALL.equals(new String(message.getBody(), StandardCharsets.UTF_8))) {
+            invalidate();
+        }
+    }
+    
+    private Snapshot current() {
+        Snapshot current = snapshot;
+        if (current != null) {
+            return current;
+        }
+        rebuildLock.lock();
+        try {
+            if (snapshot == null) {
+                snapshot = build();
+            }
+            return snapshot;
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+    
+    private Snapshot build() {
+        Map<Long, PermissionBitSet> roles = new HashMap<>();
+        Set<Permission> permissions = new HashSet<>();
+        for (Role role : roleRepository.findAllWithPermissions()) {
+            roles.put(role.getId(), PermissionBitSet.of(role.getPermissions().stream()
+                    .map(Permission::getOrdinal)
+                    .toList()));
+            permissions.addAll(role.getPermissions());
+        }
+        log.debug("Built permission bitsets for {} roles over {} permissions", roles.size(), permissions.size());
+        return new Snapshot(Map.copyOf(roles), PermissionCatalog.of(permissions),
+                new ConcurrentHashMap<>(), new ConcurrentHashMap<>());
+    }
+    
+    private record Snapshot(Map<Long, PermissionBitSet> roles,
+                            PermissionCatalog catalog,
+                            Map<Set<Long>, AuthoritySet> byRoles,
+                            Map<String, AuthoritySet> byClaim) {
+    }
+}
\ No newline at end of file
@@ -0,0 +1,17 @@
+package com.datavion.authentication.security;
+
+import io.jsonwebtoken.security.SecureDigestAlgorithm;
+
+import java.security.Key;
+
+/**
+ * The key new tokens are signed with. {@code keyId} goes into the {@code kid} header so verifiers
+ * can pick the matching public key; it is {@code null} only for the legacy shared-secret key.
+ */
+public record SigningKey(String keyId, Key key, SecureDigestAlgorithm<? super Key, ?> algorithm) {
+    
+    @SuppressWarnings("unchecked")
+    public static SigningKey of(String keyId, Key key, SecureDigestAlgorithm<?, ?> algorithm) {
+        return new SigningKey(keyId, key, (SecureDigestAlgorithm<? super Key, ?>) algorithm);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,29 @@
+package com.datavion.authentication.security;
+
+import io.jsonwebtoken.security.PublicJwk;
+
+import java.security.Key;
+import java.util.List;
+
+/**
+ * Source of the keys access tokens are signed and verified with.
+ */
+public interface SigningKeyProvider {
+    
+    /**
+     * The key that signs newly issued tokens.
+     */
+    SigningKey signingKey();
+    
+    /**
+     * The key that verifies tokens carrying the given {@code kid}, which is {@code null} for tokens
+     * without one, or {@code null} if no such key is known.
+     */
+    Key verificationKey(String keyId);
+    
+    /**
+     * Public keys for the JWKS document, including retired keys whose tokens may still be live.
+     * Returns the same instance until the key set changes. Empty for shared-secret algorithms.
+     */
+    List<PublicJwk<?>> publicJwks();
+}
\ No newline at end of file
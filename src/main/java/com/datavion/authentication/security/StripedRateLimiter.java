@@ -0,0 +1,83 @@
+package com.datavion.authentication.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-process sliding-window limiter used while Redis is unreachable. Each key keeps the
+ * timestamps of its accepted requests; keys hash onto a fixed set of lock stripes so unrelated
+ * keys rarely contend. Limits are per node, so a cluster admits up to N times the configured rate.
+ */
+class StripedRateLimiter {
+    
+    private static final int STRIPES = 64;
+    
+    private final ReentrantLock[] locks = new ReentrantLock[STRIPES];
+    
+    private final Cache<String, ArrayDeque<Long>> windows;
+    
+    StripedRateLimiter(long maxKeys, Duration maxWindow) {
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        windows = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterAccess(maxWindow)
+                .build();
+    }
+    
+    /**
+     * Records one request against every limit if all of them have room.
+     *
+     * @return 0 if admitted, otherwise milliseconds until the tightest window frees a slot
+     */
+    long tryAcquire(List<RateLimit> limits, long nowMillis) {
+        boolean[] held = lockStripes(limits);
+        try {
+            long retryAfter = 0;
+            for (RateLimit limit : limits) {
+                ArrayDeque<Long> window = windows.get(limit.key(), k -> new ArrayDeque<>());
+                long windowMillis = limit.window().toMillis();
+                while (!window.isEmpty() && window.peekFirst() <= nowMillis - windowMillis) {
+                    window.pollFirst();
+                }
+                if (window.size() >= limit.maxAttempts()) {
+                    retryAfter = Math.max(retryAfter, Math.max(1, window.peekFirst() + windowMillis - nowMillis));
+                }
+            }
+            if (retryAfter > 0) {
+                return retryAfter;
+            }
+            
+            for (RateLimit limit : limits) {
+                windows.get(limit.key(), k -> new ArrayDeque<>()).addLast(nowMillis);
+            }
+            return 0;
+        } finally {
+            for (int i = STRIPES - 1; i >= 0; i--) {
+                if (held[i]) {
+                    locks[i].unlock();
+                }
+            }
+        }
+    }
+    
+    private boolean[] lockStripes(List<RateLimit> limits) {
+        boolean[] held = new boolean[STRIPES];
+        for (RateLimit limit : limits) {
+            held[Math.floorMod(limit.key().hashCode(), STRIPES)] = true;
+        }
+        // Ascending order so two requests sharing stripes cannot deadlock
+        for (int i = 0; i < STRIPES; i++) {
+            if (held[i]) {
+                locks[i].lock();
+            }
+        }
+        return held;
+    }
+}
\ No newline at end of file
@@ -4,11 +4,9 @@ import com.datavion.authentication.entity.User;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
 import java.util.Collection;
-import java.util.stream.Collectors;
 
 @Data
 @AllArgsConstructor
@@ -16,12 +14,16 @@ public class UserPrincipal implements UserDetails {
     
     private User user;
     
+    /** Resolved authorities, shared through {@link RoleAuthorityRegistry}. */
+    private AuthoritySet authoritySet;
+    
+    public boolean hasAuthority(String authority) {
+        return authoritySet.contains(authority);
+    }
+    
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
-        return user.getRoles().stream()
-                .flatMap(role -> role.getPermissions().stream())
-                .map(permission -> new SimpleGrantedAuthority(permission.getResource() + ":" + permission.getAction()))
-                .collect(Collectors.toSet());
+        return authoritySet.getAuthorities();
     }
     
     @Override
@@ -0,0 +1,99 @@
+package com.datavion.authentication.service;
+
+import com.datavion.authentication.dto.ApiKeyResponse;
+import com.datavion.authentication.dto.CreateApiKeyRequest;
+import com.datavion.authentication.entity.ApiKey;
+import com.datavion.authentication.entity.User;
+import com.datavion.authentication.repository.ApiKeyRepository;
+import com.datavion.authentication.repository.UserRepository;
+import com.datavion.authentication.security.ApiKeyIndex;
+import com.datavion.authentication.util.TokenHashUtil;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Map;
+
+@Service
+@RequiredArgsConstructor
+public class ApiKeyService {
+    
+    private static final String KEY_PREFIX = "dak_";
+    
+    private final ApiKeyRepository apiKeyRepository;
+    private final UserRepository userRepository;
+    private final ApiKeyIndex apiKeyIndex;
+    private final TokenHashUtil tokenHashUtil;
+    private final AuditLogService auditLogService;
+    
+    /**
+     * Issues a key for the user, scoped to their tenant. Only the digest is stored, so the returned
+     * plaintext is the one chance to read it.
+     */
+    @Transactional
+    public ApiKeyResponse createKey(Long userId, CreateApiKeyRequest request) {
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+        
+        String key = KEY_PREFIX + tokenHashUtil.generateOpaqueToken();
+        ApiKey apiKey = apiKeyRepository.save(ApiKey.builder()
+                .keyHash(tokenHashUtil.hash(key))
+                .name(request.getName())
+                .user(user)
+                .tenant(user.getTenant())
+                .expiresAt(request.getExpiresAt())
+                .build());
+        
+        auditLogService.success(AuditLogService.ACTION_API_KEY_CREATED, userId, Map.of("apiKeyId", apiKey.getId()));
+        
+        ApiKeyResponse response = mapToResponse(apiKey);
+        response.setKey(key);
+        return response;
+    }
+    
+    @Transactional(readOnly = true)
+    public List<ApiKeyResponse> getKeys(Long userId) {
+        return apiKeyRepository.findByUserIdOrderByCreatedAtDesc(userId).stream()
+                .map(this::mapToResponse)
+                .toList();
+    }
+    
+    /**
+     * Revokes one of the user's keys. Every node drops it from its index once the update commits,
+     * so none can reload the key as it was before.
+     */
+    @Transactional
+    public void revokeKey(Long userId, Long id) {
+        ApiKey apiKey = apiKeyRepository.findByIdAndUserId(id, userId)
+                .orElseThrow(() -> new RuntimeException("API key not found"));
+        
+        if (apiKeyRepository.revoke(apiKey.getId()) == 0) {
+            return;
+        }
+        
+        String digest = apiKey.getKeyHash();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                apiKeyIndex.invalidate(digest);
+            }
+        });
+        
+        auditLogService.success(AuditLogService.ACTION_API_KEY_REVOKED, userId, Map.of("apiKeyId", id));
+    }
+    
+    private ApiKeyResponse mapToResponse(ApiKey apiKey) {
+        return ApiKeyResponse.builder()
+                .id(apiKey.getId())
+                .name(apiKey.getName())
+                .tenantId(apiKey.getTenant() != null ? apiKey.getTenant().getId() : null)
+                .revoked(apiKey.getRevoked())
+                .expiresAt(apiKey.getExpiresAt())
+                .lastUsedAt(apiKey.getLastUsedAt())
+                .createdAt(apiKey.getCreatedAt())
+                .build();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,69 @@
+package com.datavion.authentication.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Coalesces {@code api_keys.last_used_at} in memory per key and flushes it periodically, so a key
+ * used thousands of times a second costs one write per interval. Like last-login details, the
+ * value is informational and a crash loses at most one flush interval of it.
+ */
+@Service
+@RequiredArgsConstructor
+public class ApiKeyUsageRecorder {
+    
+    private static final String FLUSH_SQL_PREFIX =
+            "UPDATE api_keys AS k SET last_used_at = v.used_at FROM (VALUES ";
+    
+    private static final String FLUSH_SQL_ROW = "(CAST(? AS BIGINT), CAST(? AS TIMESTAMP))";
+    
+    private static final String FLUSH_SQL_SUFFIX = ") AS v(id, used_at) "
+            + "WHERE k.id = v.id AND (k.last_used_at IS NULL OR k.last_used_at < v.used_at)";
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+    
+    @Value("${app.security.api-keys.usage-flush-batch-size:500}")
+    private int flushBatchSize;
+    
+    private CoalescingBatchWriter<LocalDateTime> writer;
+    
+    @PostConstruct
+    void init() {
+        writer = new CoalescingBatchWriter<>(jdbcTemplate, FLUSH_SQL_PREFIX, FLUSH_SQL_ROW, FLUSH_SQL_SUFFIX,
+                (apiKeyId, usedAt) -> new Object[]{apiKeyId, Timestamp.valueOf(usedAt)},
+                ApiKeyUsageRecorder::latest, "API key last-used times");
+        Gauge.builder("auth.api_key_usage.pending", writer.pending(), Map::size)
+                .description("API keys with last-used updates not yet written")
+                .register(meterRegistry);
+    }
+    
+    public void recordUse(Long apiKeyId, LocalDateTime usedAt) {
+        writer.record(apiKeyId, usedAt);
+    }
+    
+    @Scheduled(fixedDelayString = "${app.security.api-keys.usage-flush-interval-millis:5000}")
+    public void flush() {
+        writer.flush(flushBatchSize);
+    }
+    
+    @PreDestroy
+    void shutdown() {
+        flush();
+    }
+    
+    private static LocalDateTime latest(LocalDateTime a, LocalDateTime b) {
+        return b.isAfter(a) ? b : a;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,18 @@
+package com.datavion.authentication.service;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * One {@code audit_logs} row as captured on the request thread, before it is queued for writing.
+ */
+public record AuditEvent(
+        Long userId,
+        String action,
+        String status,
+        String ipAddress,
+        String userAgent,
+        Map<String, Object> metadata,
+        LocalDateTime timestamp
+) {
+}
\ No newline at end of file
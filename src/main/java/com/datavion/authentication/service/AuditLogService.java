@@ -0,0 +1,260 @@
+package com.datavion.authentication.service;
+
+import com.datavion.authentication.util.RequestContextUtil;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records audit events without touching the database on the caller's thread. Events go into a
+ * bounded queue that a single writer thread drains into JDBC batches, flushing when a batch is
+ * full or {@code flush-interval-millis} after its first event. Batches the database rejects are
+ * spilled to disk and replayed once writes succeed again.
+ *
+ * <p>When the queue is full the {@code overflow-policy} decides: {@code SPILL} appends the event to
+ * the spill file, {@code BLOCK} waits up to {@code block-timeout-millis} and then drops, and
+ * {@code DROP} discards it immediately.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class AuditLogService {
+    
+    public static final String ACTION_REGISTER = "REGISTER";
+    public static final String ACTION_LOGIN = "LOGIN";
+    public static final String ACTION_TOKEN_REFRESH = "TOKEN_REFRESH";
+    public static final String ACTION_LOGOUT = "LOGOUT";
+    public static final String ACTION_ACCOUNT_LOCKED = "ACCOUNT_LOCKED";
+    public static final String ACTION_ACCOUNT_UNLOCKED = "ACCOUNT_UNLOCKED";
+    public static final String ACTION_USER_IMPORT = "USER_IMPORT";
+    public static final String ACTION_API_KEY_CREATED = "API_KEY_CREATED";
+    public static final String ACTION_API_KEY_REVOKED = "API_KEY_REVOKED";
+    public static final String ACTION_EMAIL_VERIFIED = "EMAIL_VERIFIED";
+    public static final String ACTION_PASSWORD_RESET_REQUESTED = "PASSWORD_RESET_REQUESTED";
+    public static final String ACTION_PASSWORD_RESET = "PASSWORD_RESET";
+    
+    public static final String STATUS_SUCCESS = "SUCCESS";
+    public static final String STATUS_FAILURE = "FAILURE";
+    
+    public enum OverflowPolicy { DROP, BLOCK, SPILL }
+    
+    private final AuditLogWriter writer;
+    private final AuditSpillFile spillFile;
+    private final MeterRegistry meterRegistry;
+    
+    @Value("${app.audit.queue-capacity:10000}")
+    private int queueCapacity;
+    
+    @Value("${app.audit.batch-size:500}")
+    private int batchSize;
+    
+    @Value("${app.audit.flush-interval-millis:200}")
+    private long flushIntervalMillis;
+    
+    @Value("${app.audit.overflow-policy:SPILL}")
+    private OverflowPolicy overflowPolicy;
+    
+    @Value("${app.audit.block-timeout-millis:50}")
+    private long blockTimeoutMillis;
+    
+    @Value("${app.audit.replay-interval-millis:30000}")
+    private long replayIntervalMillis;
+    
+    private BlockingQueue<AuditEvent> queue;
+    
+    private Thread writerThread;
+    
+    private volatile boolean running;
+    
+    private long lastReplayAttempt;
+    
+    private Counter writtenCounter;
+    private Counter spilledCounter;
+    private Counter droppedCounter;
+    private Counter quarantinedCounter;
+    
+    @PostConstruct
+    void start() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        writtenCounter = eventCounter("written");
+        spilledCounter = eventCounter("spilled");
+        droppedCounter = eventCounter("dropped");
+        quarantinedCounter = eventCounter("quarantined");
+        Gauge.builder("auth.audit.queue.depth", queue, BlockingQueue::size)
+                .description("Audit events waiting to be written")
+                .register(meterRegistry);
+        
+        running = true;
+        writerThread = Thread.ofPlatform().name("audit-writer").daemon().start(this::drainLoop);
+    }
+    
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        writerThread.join(flushIntervalMillis + 5000);
+        
+        List<AuditEvent> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        if (!remaining.isEmpty()) {
+            spill(remaining);
+        }
+        syncSpill();
+    }
+    
+    public void success(String action, Long userId) {
+        record(action, STATUS_SUCCESS, userId, Map.of());
+    }
+    
+    public void success(String action, Long userId, Map<String, Object> metadata) {
+        record(action, STATUS_SUCCESS, userId, metadata);
+    }
+    
+    public void failure(String action, Long userId, Map<String, Object> metadata) {
+        record(action, STATUS_FAILURE, userId, metadata);
+    }
+    
+    /**
+     * Queues an event, capturing the client address and user agent of the current request if any.
+     * Never throws: auditing must not fail the operation being audited.
+     */
+    public void record(String action, String status, Long userId, Map<String, Object> metadata) {
+        enqueue(new AuditEvent(userId, action, status, RequestContextUtil.currentRemoteAddress(),
+                RequestContextUtil.currentUserAgent(), metadata, LocalDateTime.now()));
+    }
+    
+    private void enqueue(AuditEvent event) {
+        if (queue.offer(event)) {
+            return;
+        }
+        
+        try {
+            switch (overflowPolicy) {
+                case SPILL -> spill(List.of(event));
+                case BLOCK -> {
+                    if (!queue.offer(event, blockTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                        droppedCounter.increment();
+                    }
+                }
+                case DROP -> droppedCounter.increment();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            droppedCounter.increment();
+        } catch (RuntimeException e) {
+            log.error("Failed to queue audit event {}", event.action(), e);
+            droppedCounter.increment();
+        }
+    }
+    
+    private void drainLoop() {
+        List<AuditEvent> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                collectBatch(batch);
+            } catch (InterruptedException e) {
+                running = false;
+            }
+            
+            boolean flushed = batch.isEmpty() || flush(batch);
+            batch.clear();
+            // One fsync covers everything spilled since the last pass, including overflow from request threads
+            syncSpill();
+            if (flushed) {
+                replaySpilled();
+            }
+        }
+    }
+    
+    private void collectBatch(List<AuditEvent> batch) throws InterruptedException {
+        AuditEvent first = queue.poll(flushIntervalMillis, TimeUnit.MILLISECONDS);
+        if (first == null) {
+            return;
+        }
+        batch.add(first);
+        
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+        while (batch.size() < batchSize && running) {
+            queue.drainTo(batch, batchSize - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() >= batchSize || remaining <= 0) {
+                break;
+            }
+            AuditEvent next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                break;
+            }
+            batch.add(next);
+        }
+    }
+    
+    private boolean flush(List<AuditEvent> batch) {
+        try {
+            writer.write(batch);
+            writtenCounter.increment(batch.size());
+            return true;
+        } catch (DataAccessException e) {
+            log.warn("Audit log write failed, spilling {} events: {}", batch.size(), e.getMessage());
+            spill(batch);
+            return false;
+        }
+    }
+    
+    private void spill(List<AuditEvent> events) {
+        try {
+            spillFile.append(events);
+            spilledCounter.increment(events.size());
+        } catch (RuntimeException e) {
+            log.error("Lost {} audit events: database and spill file both unavailable", events.size(), e);
+            droppedCounter.increment(events.size());
+        }
+    }
+    
+    private void syncSpill() {
+        try {
+            spillFile.sync();
+        } catch (IOException | RuntimeException e) {
+            log.error("Failed to force spilled audit events to disk", e);
+        }
+    }
+    
+    private void replaySpilled() {
+        long now = System.currentTimeMillis();
+        if (now - lastReplayAttempt < replayIntervalMillis || !spillFile.hasPending()) {
+            return;
+        }
+        lastReplayAttempt = now;
+        
+        try {
+            int quarantined = spillFile.replay(batchSize, events -> {
+                writer.write(events);
+                writtenCounter.increment(events.size());
+            });
+            quarantinedCounter.increment(quarantined);
+        } catch (Exception e) {
+            log.warn("Replay of spilled audit events failed, will retry: {}", e.getMessage());
+        }
+    }
+    
+    private Counter eventCounter(String outcome) {
+        return Counter.builder("auth.audit.events")
+                .description("Audit events by final outcome")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,78 @@
+package com.datavion.authentication.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.List;
+
+/**
+ * Writes audit events to {@code audit_logs} with a single JDBC batch per call.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class AuditLogWriter {
+    
+    private static final String INSERT_SQL = "INSERT INTO audit_logs "
+            + "(user_id, action, ip_address, user_agent, status, metadata, timestamp) "
+            + "VALUES (?, ?, ?, ?, ?, ?::jsonb, ?)";
+    
+    private final JdbcTemplate jdbcTemplate;
+    
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    
+    /**
+     * Inserts the batch. A constraint violation, such as a user deleted after the event was
+     * captured, falls back to row-by-row inserts so one bad row does not block the rest.
+     * Any other failure is rethrown for the caller to spill.
+     */
+    public void write(List<AuditEvent> events) {
+        try {
+            jdbcTemplate.batchUpdate(INSERT_SQL, events, events.size(), this::bind);
+        } catch (DataIntegrityViolationException e) {
+            for (AuditEvent event : events) {
+                try {
+                    jdbcTemplate.update(INSERT_SQL, ps -> bind(ps, event));
+                } catch (DataIntegrityViolationException rowFailure) {
+                    log.warn("Dropping audit event {} for user {}: {}", event.action(), event.userId(),
+                            rowFailure.getMostSpecificCause().getMessage());
+                }
+            }
+        }
+    }
+    
+    private void bind(PreparedStatement ps, AuditEvent event) throws SQLException {
+        if (event.userId() != null) {
+            ps.setLong(1, event.userId());
+        } else {
+            ps.setNull(1, Types.BIGINT);
+        }
+        ps.setString(2, event.action());
+        ps.setString(3, event.ipAddress());
+        ps.setString(4, event.userAgent());
+        ps.setString(5, event.status());
+        ps.setString(6, toJson(event));
+        ps.setTimestamp(7, Timestamp.valueOf(event.timestamp()));
+    }
+    
+    private String toJson(AuditEvent event) {
+        if (event.metadata() == null || event.metadata().isEmpty()) {
+            return null;
+        }
+        try {
+            return objectMapper.writeValueAsString(event.metadata());
+        } catch (JsonProcessingException e) {
+            log.warn("Unserializable metadata on audit event {}: {}", event.action(), e.getMessage());
+            return null;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,257 @@
+package com.datavion.authentication.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Append-only NDJSON file holding audit events that could not be written to the database.
+ * Appends go through one long-lived channel and reach the operating system before returning, so
+ * they survive a process crash; forcing them to disk is left to {@link #sync()}, which the audit
+ * writer calls once per drained batch rather than once per request. Replay moves the file aside
+ * first, so new spills never mix with a replay in progress. After each accepted batch the number of lines consumed is
+ * checkpointed, so a replay that fails part way resumes after the last accepted batch; a crash
+ * between a batch and its checkpoint repeats that batch, which makes delivery at-least-once.
+ * Lines that do not parse, such as one torn by a crash mid-append, are moved to a quarantine
+ * file instead of blocking the replay.
+ */
+@Component
+@Slf4j
+public class AuditSpillFile {
+    
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    
+    private final ReentrantLock appendLock = new ReentrantLock();
+    
+    private final Path file;
+    
+    private final Path replayFile;
+    
+    private final Path checkpointFile;
+    
+    private final Path quarantineFile;
+    
+    private FileChannel channel;
+    
+    private boolean dirty;
+    
+    public AuditSpillFile(@Value("${app.audit.spill-file:./data/audit-spill.ndjson}") String file) {
+        this.file = Path.of(file);
+        this.replayFile = Path.of(file + ".replay");
+        this.checkpointFile = Path.of(file + ".replay.offset");
+        this.quarantineFile = Path.of(file + ".quarantine");
+    }
+    
+    public void append(List<AuditEvent> events) {
+        StringBuilder lines = new StringBuilder();
+        try {
+            for (AuditEvent event : events) {
+                lines.append(objectMapper.writeValueAsString(event)).append('\n');
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to serialize audit events", e);
+        }
+        ByteBuffer buffer = StandardCharsets.UTF_8.encode(CharBuffer.wrap(lines));
+        
+        appendLock.lock();
+        try {
+            if (channel == null) {
+                Path parent = file.toAbsolutePath().getParent();
+                if (parent != null) {
+                    Files.createDirectories(parent);
+                }
+                channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            }
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            dirty = true;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to spill audit events to " + file, e);
+        } finally {
+            appendLock.unlock();
+        }
+    }
+    
+    /**
+     * Forces appends made since the last call to disk. Appenders are only held up while the
+     * channel is looked up, not for the fsync.
+     */
+    public void sync() throws IOException {
+        FileChannel toForce;
+        appendLock.lock();
+        try {
+            if (!dirty) {
+                return;
+            }
+            toForce = channel;
+            dirty = false;
+        } finally {
+            appendLock.unlock();
+        }
+        try {
+            toForce.force(false);
+        } catch (ClosedChannelException e) {
+            // Replay closed it, forcing it first
+        }
+    }
+    
+    @PreDestroy
+    void close() throws IOException {
+        appendLock.lock();
+        try {
+            closeChannel();
+        } finally {
+            appendLock.unlock();
+        }
+    }
+    
+    public boolean hasPending() {
+        return Files.exists(replayFile) || Files.exists(file);
+    }
+    
+    /**
+     * Feeds spilled events to {@code sink} in batches and deletes the file once every batch is
+     * accepted. An exception from {@code sink} leaves the unaccepted events on disk, and the next
+     * call resumes with them.
+     *
+     * @return the number of lines moved to the quarantine file because they did not parse
+     */
+    public int replay(int batchSize, Consumer<List<AuditEvent>> sink) throws IOException {
+        if (!Files.exists(replayFile)) {
+            appendLock.lock();
+            try {
+                if (!Files.exists(file)) {
+                    return 0;
+                }
+                closeChannel();
+                // A checkpoint left behind belongs to an earlier replay file
+                Files.deleteIfExists(checkpointFile);
+                Files.move(file, replayFile, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                appendLock.unlock();
+            }
+        }
+        
+        long consumed = readCheckpoint();
+        long position = 0;
+        int replayed = 0;
+        int quarantined = 0;
+        try (BufferedReader reader = Files.newBufferedReader(replayFile, StandardCharsets.UTF_8)) {
+            List<AuditEvent> batch = new ArrayList<>(batchSize);
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (++position <= consumed || line.isBlank()) {
+                    continue;
+                }
+                AuditEvent event;
+                try {
+                    event = objectMapper.readValue(line, AuditEvent.class);
+                } catch (JsonProcessingException e) {
+                    // Deliver what precedes the bad line so the checkpoint can move past it exactly once
+                    if (!batch.isEmpty()) {
+                        sink.accept(batch);
+                        replayed += batch.size();
+                        batch = new ArrayList<>(batchSize);
+                        writeCheckpoint(position - 1);
+                    }
+                    appendLines(quarantineFile, List.of(line));
+                    quarantined++;
+                    writeCheckpoint(position);
+                    continue;
+                }
+                batch.add(event);
+                if (batch.size() == batchSize) {
+                    sink.accept(batch);
+                    replayed += batch.size();
+                    batch = new ArrayList<>(batchSize);
+                    writeCheckpoint(position);
+                }
+            }
+            if (!batch.isEmpty()) {
+                sink.accept(batch);
+                replayed += batch.size();
+            }
+        }
+        
+        // Checkpoint first: a checkpoint without its replay file could skip lines of the next one
+        Files.deleteIfExists(checkpointFile);
+        Files.delete(replayFile);
+        if (quarantined > 0) {
+            log.warn("Quarantined {} unreadable spilled audit events in {}", quarantined, quarantineFile);
+        }
+        log.info("Replayed {} spilled audit events", replayed);
+        return quarantined;
+    }
+    
+    private void closeChannel() throws IOException {
+        if (channel != null) {
+            channel.force(false);
+            channel.close();
+            channel = null;
+            dirty = false;
+        }
+    }
+    
+    private long readCheckpoint() throws IOException {
+        if (!Files.exists(checkpointFile)) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(Files.readString(checkpointFile, StandardCharsets.US_ASCII).trim());
+        } catch (NumberFormatException e) {
+            log.warn("Ignoring unreadable audit replay checkpoint {}", checkpointFile);
+            return 0;
+        }
+    }
+    
+    private void writeCheckpoint(long position) throws IOException {
+        Path temp = Path.of(checkpointFile + ".tmp");
+        Files.writeString(temp, Long.toString(position), StandardCharsets.US_ASCII);
+        Files.move(temp, checkpointFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+    
+    private static void appendLines(Path target, List<String> lines) throws IOException {
+        Path parent = target.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        try (FileChannel channel = FileChannel.open(target,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+             BufferedWriter writer = new BufferedWriter(
+                     Channels.newWriter(channel, StandardCharsets.UTF_8))) {
+            for (String line : lines) {
+                writer.write(line);
+                writer.newLine();
+            }
+            writer.flush();
+            channel.force(false);
+        }
+    }
+}
\ No newline at end of file
@@ -7,8 +7,14 @@ import com.datavion.authentication.entity.User;
 import com.datavion.authentication.repository.RefreshTokenRepository;
 import com.datavion.authentication.repository.RoleRepository;
 import com.datavion.authentication.repository.UserRepository;
+import com.datavion.authentication.security.AccessTokenRevocationService;
+import com.datavion.authentication.security.PrincipalCache;
+import com.datavion.authentication.security.RoleAuthorityRegistry;
 import com.datavion.authentication.security.UserPrincipal;
 import com.datavion.authentication.util.JwtUtil;
+import com.datavion.authentication.util.RequestContextUtil;
+import com.datavion.authentication.util.TokenHashUtil;
+import io.jsonwebtoken.JwtException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
@@ -16,12 +22,17 @@ import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -35,7 +46,15 @@ public class AuthService {
     private final RefreshTokenRepository refreshTokenRepository;
     private final PasswordEncoder passwordEncoder;
     private final JwtUtil jwtUtil;
+    private final TokenHashUtil tokenHashUtil;
+    private final RoleAuthorityRegistry roleAuthorityRegistry;
     private final AuthenticationManager authenticationManager;
+    private final AuditLogService auditLogService;
+    private final LoginActivityRecorder loginActivityRecorder;
+    private final PrincipalCache principalCache;
+    private final AccessTokenRevocationService revocationService;
+    private final TransactionTemplate transactionTemplate;
+    private final EmailVerificationService emailVerificationService;
     
     @Value("${app.jwt.access-token-expiration}")
     private Long accessTokenExpiration;
@@ -43,114 +62,150 @@ public class AuthService {
     @Value("${app.jwt.refresh-token-expiration}")
     private Long refreshTokenExpiration;
     
-    @Transactional
+    /**
+     * Not transactional: the password is hashed on the bounded hashing pool, which may queue, before
+     * a database connection is taken for the insert.
+     */
     public AuthResponse register(RegisterRequest request) {
         // Check if user already exists
-        if (userRepository.existsByUsernameAndDeletedAtIsNull(request.getUsername())) {
+        if (userRepository.existsByUsernameIgnoreCaseAndDeletedAtIsNull(request.getUsername())) {
             throw new RuntimeException("Username already exists");
         }
         
-        if (userRepository.existsByEmailAndDeletedAtIsNull(request.getEmail())) {
+        if (userRepository.existsByEmailIgnoreCaseAndDeletedAtIsNull(request.getEmail())) {
             throw new RuntimeException("Email already exists");
         }
         
-        // Get default USER role
-        Role userRole = roleRepository.findByName("USER")
-                .orElseThrow(() -> new RuntimeException("Default USER role not found"));
-        
-        // Create new user
-        User user = User.builder()
-                .username(request.getUsername())
-                .email(request.getEmail())
-                .passwordHash(passwordEncoder.encode(request.getPassword()))
-                .emailVerified(false) // In production, this should be false and require email verification
-                .roles(Set.of(userRole))
-                .build();
-        
-        user = userRepository.save(user);
-        
-        // Generate tokens
-        UserPrincipal userPrincipal = new UserPrincipal(user);
-        String accessToken = jwtUtil.generateAccessToken(userPrincipal);
-        String refreshToken = jwtUtil.generateRefreshToken(userPrincipal);
-        
-        // Save refresh token
-        saveRefreshToken(user, refreshToken);
-        
-        log.info("User registered successfully: {}", user.getUsername());
+        String passwordHash = passwordEncoder.encode(request.getPassword());
         
-        return AuthResponse.builder()
-                .accessToken(accessToken)
-                .refreshToken(refreshToken)
-                .expiresIn(accessTokenExpiration / 1000)
-                .user(mapToUserResponse(user))
-                .build();
+        return transactionTemplate.execute(status -> {
+            // Get default USER role
+            Role userRole = roleRepository.findByName("USER")
+                    .orElseThrow(() -> new RuntimeException("Default USER role not found"));
+            
+            // Create new user
+            User user = User.builder()
+                    .username(request.getUsername())
+                    .email(request.getEmail())
+                    .passwordHash(passwordHash)
+                    .emailVerified(false)
+                    .roles(Set.of(userRole))
+                    .build();
+            
+            user = userRepository.save(user);
+            // Queued with the user, so the mail goes out only if the registration commits
+            emailVerificationService.sendVerification(user);
+            
+            // Generate tokens
+            UserPrincipal userPrincipal = new UserPrincipal(user, roleAuthorityRegistry.forUser(user));
+            String accessToken = jwtUtil.generateAccessToken(userPrincipal);
+            String refreshToken = saveRefreshToken(user);
+            
+            auditLogService.success(AuditLogService.ACTION_REGISTER, user.getId());
+            log.info("User registered successfully: {}", user.getUsername());
+            
+            return AuthResponse.builder()
+                    .accessToken(accessToken)
+                    .refreshToken(refreshToken)
+                    .expiresIn(accessTokenExpiration / 1000)
+                    .user(mapToUserResponse(user))
+                    .build();
+        });
     }
     
-    @Transactional
+    /**
+     * Not transactional: the password check runs without holding a database connection, and a
+     * failed attempt is counted in its own statement that a rollback cannot undo.
+     */
     public AuthResponse login(LoginRequest request) {
+        Authentication authentication;
         try {
-            Authentication authentication = authenticationManager.authenticate(
+            authentication = authenticationManager.authenticate(
                     new UsernamePasswordAuthenticationToken(
                             request.getUsernameOrEmail(),
                             request.getPassword()
                     )
             );
-            
-            UserPrincipal userPrincipal = (UserPrincipal) authentication.getPrincipal();
-            User user = userPrincipal.getUser();
-            
-            // Update last login info
-            user.setLastLoginAt(LocalDateTime.now());
-            user.setFailedLoginAttempts(0);
-            userRepository.save(user);
-            
-            // Generate tokens
-            String accessToken = jwtUtil.generateAccessToken(userPrincipal);
-            String refreshToken = jwtUtil.generateRefreshToken(userPrincipal);
+        } catch (BadCredentialsException e) {
+            // Handle failed login attempt
+            handleFailedLogin(request.getUsernameOrEmail());
+            throw new BadCredentialsException("Invalid credentials");
+        } catch (AuthenticationException e) {
+            // Locked, disabled or otherwise rejected accounts
+            auditLogService.failure(AuditLogService.ACTION_LOGIN, null, Map.of(
+                    "usernameOrEmail", request.getUsernameOrEmail(),
+                    "reason", e.getClass().getSimpleName()));
+            throw e;
+        }
+        
+        UserPrincipal userPrincipal = (UserPrincipal) authentication.getPrincipal();
+        Long userId = userPrincipal.getUser().getId();
+        LocalDateTime loginAt = LocalDateTime.now();
+        
+        // Update last login info
+        loginActivityRecorder.recordSuccess(userId, loginAt, RequestContextUtil.currentRemoteAddress());
+        
+        // Generate tokens
+        String accessToken = jwtUtil.generateAccessToken(userPrincipal);
+        
+        AuthResponse response = transactionTemplate.execute(status -> {
+            // The authenticated principal may come from the cache, so read the managed entity
+            User user = userRepository.findWithRolesById(userId)
+                    .orElseThrow(() -> new UsernameNotFoundException("User not found"));
             
             // Revoke old refresh tokens and save new one
             refreshTokenRepository.revokeAllByUser(user);
-            saveRefreshToken(user, refreshToken);
+            String refreshToken = saveRefreshToken(user);
             
-            log.info("User logged in successfully: {}", user.getUsername());
+            UserResponse userResponse = mapToUserResponse(user);
+            userResponse.setLastLoginAt(loginAt);
             
             return AuthResponse.builder()
                     .accessToken(accessToken)
                     .refreshToken(refreshToken)
                     .expiresIn(accessTokenExpiration / 1000)
-                    .user(mapToUserResponse(user))
+                    .user(userResponse)
                     .build();
-                    
-        } catch (BadCredentialsException e) {
-            // Handle failed login attempt
-            handleFailedLogin(request.getUsernameOrEmail());
-            throw new BadCredentialsException("Invalid credentials");
-        }
+        });
+        
+        auditLogService.success(AuditLogService.ACTION_LOGIN, userId);
+        log.info("User logged in successfully: {}", userPrincipal.getUsername());
+        
+        return response;
     }
     
     @Transactional
     public AuthResponse refreshToken(String refreshToken) {
-        String tokenHash = passwordEncoder.encode(refreshToken);
+        String tokenHash = tokenHashUtil.hash(refreshToken);
         
-        RefreshToken storedToken = refreshTokenRepository.findByTokenHash(tokenHash)
-                .orElseThrow(() -> new RuntimeException("Invalid refresh token"));
+        RefreshToken storedToken = refreshTokenRepository.findByTokenHashWithUser(tokenHash)
+                .orElseThrow(() -> {
+                    auditLogService.failure(AuditLogService.ACTION_TOKEN_REFRESH, null, Map.of("reason", "unknown"));
+                    return new RuntimeException("Invalid refresh token");
+                });
         
         if (!storedToken.isValid()) {
+            auditLogService.failure(AuditLogService.ACTION_TOKEN_REFRESH, storedToken.getUser().getId(),
+                    Map.of("reason", storedToken.getRevoked() ? "revoked" : "expired"));
             throw new RuntimeException("Refresh token is expired or revoked");
         }
         
         User user = storedToken.getUser();
-        UserPrincipal userPrincipal = new UserPrincipal(user);
+        if (user.isDeleted()) {
+            auditLogService.failure(AuditLogService.ACTION_TOKEN_REFRESH, user.getId(), Map.of("reason", "deleted"));
+            throw new RuntimeException("Refresh token is expired or revoked");
+        }
+        UserPrincipal userPrincipal = new UserPrincipal(user, roleAuthorityRegistry.forUser(user));
         
         // Generate new tokens
         String newAccessToken = jwtUtil.generateAccessToken(userPrincipal);
-        String newRefreshToken = jwtUtil.generateRefreshToken(userPrincipal);
+        String newRefreshToken = tokenHashUtil.generateOpaqueToken();
         
-        // Revoke old refresh token and save new one
-        storedToken.setRevoked(true);
+        // Rotate in place: the old token stops resolving as soon as its digest is replaced
+        storedToken.setTokenHash(tokenHashUtil.hash(newRefreshToken));
+        storedToken.setExpiresAt(LocalDateTime.now().plusSeconds(refreshTokenExpiration / 1000));
         refreshTokenRepository.save(storedToken);
-        saveRefreshToken(user, newRefreshToken);
+        auditLogService.success(AuditLogService.ACTION_TOKEN_REFRESH, user.getId());
         
         return AuthResponse.builder()
                 .accessToken(newAccessToken)
@@ -161,42 +216,56 @@ public class AuthService {
     }
     
     @Transactional
-    public void logout(String refreshToken) {
+    public void logout(String refreshToken, String accessToken) {
+        if (accessToken != null) {
+            revokeAccessToken(accessToken);
+        }
+        
         if (refreshToken != null) {
-            String tokenHash = passwordEncoder.encode(refreshToken);
-            refreshTokenRepository.findByTokenHash(tokenHash)
-                    .ifPresent(token -> {
+            refreshTokenRepository.findByTokenHash(tokenHashUtil.hash(refreshToken)).ifPresentOrElse(
+                    token -> {
                         token.setRevoked(true);
-                        refreshTokenRepository.save(token);
-                    });
+                        auditLogService.success(AuditLogService.ACTION_LOGOUT, token.getUser().getId());
+                    },
+                    () -> auditLogService.failure(AuditLogService.ACTION_LOGOUT, null, Map.of("reason", "unknown")));
         }
     }
     
-    private void saveRefreshToken(User user, String refreshToken) {
-        String tokenHash = passwordEncoder.encode(refreshToken);
+    private void revokeAccessToken(String accessToken) {
+        try {
+            revocationService.revoke(jwtUtil.parse(accessToken));
+        } catch (JwtException e) {
+            // Expired or invalid tokens are already unusable
+            log.debug("Ignoring unusable access token on logout: {}", e.getMessage());
+        }
+    }
+    
+    private String saveRefreshToken(User user) {
+        String refreshToken = tokenHashUtil.generateOpaqueToken();
         
         RefreshToken token = RefreshToken.builder()
-                .tokenHash(tokenHash)
+                .tokenHash(tokenHashUtil.hash(refreshToken))
                 .user(user)
                 .expiresAt(LocalDateTime.now().plusSeconds(refreshTokenExpiration / 1000))
                 .build();
         
         refreshTokenRepository.save(token);
+        return refreshToken;
     }
     
     private void handleFailedLogin(String usernameOrEmail) {
-        userRepository.findByUsernameOrEmailAndDeletedAtIsNull(usernameOrEmail)
-                .ifPresent(user -> {
-                    user.setFailedLoginAttempts(user.getFailedLoginAttempts() + 1);
-                    
-                    if (user.getFailedLoginAttempts() >= 5) {
-                        user.setAccountLocked(true);
-                        user.setLockedAt(LocalDateTime.now());
-                        log.warn("Account locked due to too many failed attempts: {}", user.getUsername());
-                    }
-                    
-                    userRepository.save(user);
-                });
+        Optional<LoginActivityRecorder.FailedLogin> failure = loginActivityRecorder.recordFailure(usernameOrEmail);
+        auditLogService.failure(AuditLogService.ACTION_LOGIN, failure.map(LoginActivityRecorder.FailedLogin::userId).orElse(null),
+                Map.of("usernameOrEmail", usernameOrEmail, "reason", "bad_credentials"));
+        
+        failure.filter(LoginActivityRecorder.FailedLogin::lockedNow).ifPresent(locked -> {
+            // Written outside Hibernate, so the cached principal has to be dropped explicitly
+            principalCache.evict(List.of(locked.username(), locked.email()));
+            revocationService.revokeAllForUser(locked.userId());
+            auditLogService.success(AuditLogService.ACTION_ACCOUNT_LOCKED, locked.userId(),
+                    Map.of("failedLoginAttempts", locked.failedAttempts()));
+            log.warn("Account locked due to too many failed attempts: {}", locked.username());
+        });
     }
     
     private UserResponse mapToUserResponse(User user) {
@@ -0,0 +1,101 @@
+package com.datavion.authentication.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
+import java.util.function.BinaryOperator;
+
+/**
+ * Keeps the latest value per row id in memory and writes the pending rows as a few
+ * {@code UPDATE ... FROM (VALUES ...)} statements, for informational columns that tolerate losing
+ * one flush interval on a crash. A chunk that fails to write is merged back and retried on the
+ * next flush.
+ *
+ * @param <V> the value recorded per row
+ */
+@Slf4j
+final class CoalescingBatchWriter<V> {
+    
+    private final Map<Long, V> pending = new ConcurrentHashMap<>();
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final String sqlPrefix;
+    private final String sqlRow;
+    private final String sqlSuffix;
+    private final BiFunction<Long, V, Object[]> rowBinder;
+    private final BinaryOperator<V> merge;
+    private final String description;
+    
+    /**
+     * @param sqlPrefix   the statement up to {@code (VALUES }
+     * @param sqlRow      one parenthesized row of placeholders, repeated per pending row
+     * @param sqlSuffix   the rest of the statement after the values list
+     * @param rowBinder   the arguments for one row's placeholders, given its id and value
+     * @param merge       picks the value to keep when a row is recorded again before a flush
+     * @param description what a row holds, for the retry warning
+     */
+    CoalescingBatchWriter(JdbcTemplate jdbcTemplate, String sqlPrefix, String sqlRow, String sqlSuffix,
+                          BiFunction<Long, V, Object[]> rowBinder, BinaryOperator<V> merge, String description) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.sqlPrefix = sqlPrefix;
+        this.sqlRow = sqlRow;
+        this.sqlSuffix = sqlSuffix;
+        this.rowBinder = rowBinder;
+        this.merge = merge;
+        this.description = description;
+    }
+    
+    void record(Long id, V value) {
+        pending.merge(id, value, merge);
+    }
+    
+    /** The live map of pending rows, for a size gauge. */
+    Map<Long, V> pending() {
+        return pending;
+    }
+    
+    void flush(int batchSize) {
+        if (pending.isEmpty()) {
+            return;
+        }
+        
+        List<Map.Entry<Long, V>> drained = new ArrayList<>(pending.size());
+        for (Long id : pending.keySet()) {
+            V value = pending.remove(id);
+            if (value != null) {
+                drained.add(Map.entry(id, value));
+            }
+        }
+        // A stable row order keeps concurrent flushes from different replicas from deadlocking
+        drained.sort(Map.Entry.comparingByKey());
+        
+        for (int from = 0; from < drained.size(); from += batchSize) {
+            List<Map.Entry<Long, V>> chunk = drained.subList(from, Math.min(from + batchSize, drained.size()));
+            try {
+                write(chunk);
+            } catch (RuntimeException e) {
+                log.warn("Failed to write {} for {} rows, will retry: {}", description, chunk.size(), e.getMessage());
+                chunk.forEach(entry -> record(entry.getKey(), entry.getValue()));
+            }
+        }
+    }
+    
+    private void write(List<Map.Entry<Long, V>> chunk) {
+        StringBuilder sql = new StringBuilder(sqlPrefix);
+        List<Object> args = new ArrayList<>();
+        for (int i = 0; i < chunk.size(); i++) {
+            Map.Entry<Long, V> entry = chunk.get(i);
+            sql.append(i == 0 ? "" : ", ").append(sqlRow);
+            Collections.addAll(args, rowBinder.apply(entry.getKey(), entry.getValue()));
+        }
+        sql.append(sqlSuffix);
+        
+        jdbcTemplate.update(sql.toString(), args.toArray());
+    }
+}
\ No newline at end of file
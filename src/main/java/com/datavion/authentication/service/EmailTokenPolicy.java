@@ -0,0 +1,43 @@
+package com.datavion.authentication.service;
+
+import com.datavion.authentication.entity.User;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Decides whether an emailed link carries a stateless signed token or an opaque token stored in
+ * the token tables. Stored tokens leave a row per issuance and use, which some tenants want for
+ * auditing. Redemption recognises either format, so changing the mode does not break sent links.
+ */
+@Component
+public class EmailTokenPolicy {
+    
+    private static final String MODE_STATELESS = "stateless";
+    private static final String MODE_TABLE = "table";
+    
+    @Value("${app.email.token-mode:stateless}")
+    private String mode;
+    
+    @Value("${app.email.table-mode-tenant-ids:}")
+    private Set<Long> tableModeTenantIds;
+    
+    @PostConstruct
+    void init() {
+        mode = mode.toLowerCase(Locale.ROOT);
+        if (!MODE_STATELESS.equals(mode) && !MODE_TABLE.equals(mode)) {
+            throw new IllegalStateException("app.email.token-mode must be stateless or table, not " + mode);
+        }
+    }
+    
+    public boolean storesTokens(User user) {
+        if (MODE_TABLE.equals(mode)) {
+            return true;
+        }
+        // The tenant proxy yields its id without loading the tenant
+        return user.getTenant() != null && tableModeTenantIds.contains(user.getTenant().getId());
+    }
+}
\ No newline at end of file
@@ -0,0 +1,108 @@
+package com.datavion.authentication.service;
+
+import com.datavion.authentication.entity.EmailVerificationToken;
+import com.datavion.authentication.entity.User;
+import com.datavion.authentication.repository.EmailVerificationTokenRepository;
+import com.datavion.authentication.repository.UserRepository;
+import com.datavion.authentication.util.SignedTokenUtil;
+import com.datavion.authentication.util.SignedTokenUtil.SignedToken;
+import com.datavion.authentication.util.TokenHashUtil;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Locale;
+import java.util.Map;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class EmailVerificationService {
+    
+    private final UserRepository userRepository;
+    private final EmailVerificationTokenRepository tokenRepository;
+    private final TokenHashUtil tokenHashUtil;
+    private final SignedTokenUtil signedTokenUtil;
+    private final EmailTokenPolicy tokenPolicy;
+    private final MailOutbox mailOutbox;
+    private final AuditLogService auditLogService;
+    
+    @Value("${app.email.verification-url}")
+    private String verificationUrl;
+    
+    @Value("${app.email.token-expiration-hours}")
+    private long tokenExpirationHours;
+    
+    /**
+     * Issues a verification token and queues the mail carrying it, both in the caller's transaction.
+     */
+    @Transactional
+    public void sendVerification(User user) {
+        String token = tokenPolicy.storesTokens(user) ? storeToken(user) : signedTokenUtil.issue(
+                SignedTokenUtil.PURPOSE_VERIFY_EMAIL, user.getId(),
+                Instant.now().plus(Duration.ofHours(tokenExpirationHours)), stamp(user));
+        
+        mailOutbox.enqueue(MailTemplates.VERIFY_EMAIL, user.getEmail(), Map.of(
+                "username", user.getUsername(),
+                "link", verificationUrl + "?token=" + token,
+                "expiresInHours", String.valueOf(tokenExpirationHours)));
+    }
+    
+    @Transactional
+    public void verify(String token) {
+        User user = SignedTokenUtil.isSigned(token) ? redeemSigned(token) : redeemStored(token);
+        user.setEmailVerified(true);
+        
+        auditLogService.success(AuditLogService.ACTION_EMAIL_VERIFIED, user.getId());
+        log.info("Email verified for user: {}", user.getUsername());
+    }
+    
+    private String storeToken(User user) {
+        String token = tokenHashUtil.generateOpaqueToken();
+        tokenRepository.save(EmailVerificationToken.builder()
+                .token(tokenHashUtil.hash(token))
+                .user(user)
+                .expiresAt(LocalDateTime.now().plusHours(tokenExpirationHours))
+                .build());
+        return token;
+    }
+    
+    private User redeemStored(String token) {
+        EmailVerificationToken stored = tokenRepository.findByTokenWithUser(tokenHashUtil.hash(token))
+                .orElseThrow(() -> new RuntimeException("Invalid verification token"));
+        
+        if (!stored.isValid()) {
+            throw new RuntimeException("Verification token is expired or already used");
+        }
+        
+        stored.setVerified(true);
+        return stored.getUser();
+    }
+    
+    /** Expiry is checked before the user read; the verified flag makes the token single-use. */
+    private User redeemSigned(String token) {
+        SignedToken signed = signedTokenUtil.decode(token, SignedTokenUtil.PURPOSE_VERIFY_EMAIL)
+                .orElseThrow(() -> new RuntimeException("Invalid verification token"));
+        if (signed.isExpired(Instant.now())) {
+            throw new RuntimeException("Verification token is expired or already used");
+        }
+        
+        User user = userRepository.findById(signed.userId())
+                .filter(candidate -> !candidate.isDeleted() && signedTokenUtil.verify(signed, stamp(candidate)))
+                .orElseThrow(() -> new RuntimeException("Invalid verification token"));
+        if (user.getEmailVerified()) {
+            throw new RuntimeException("Verification token is expired or already used");
+        }
+        return user;
+    }
+    
+    /** Binds the token to the address it was sent to, so it stops working if the email changes. */
+    private static String stamp(User user) {
+        return user.getEmail().toLowerCase(Locale.ROOT);
+    }
+}
\ No newline at end of file
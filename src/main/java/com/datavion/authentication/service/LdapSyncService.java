@@ -0,0 +1,276 @@
+package com.datavion.authentication.service;
+
+import com.datavion.authentication.security.AccessTokenRevocationService;
+import com.datavion.authentication.security.PrincipalCache;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.ldap.control.PagedResultsDirContextProcessor;
+import org.springframework.ldap.core.ContextMapper;
+import org.springframework.ldap.core.DirContextOperations;
+import org.springframework.ldap.core.support.AbstractContextMapper;
+import org.springframework.ldap.core.support.LdapContextSource;
+import org.springframework.ldap.core.support.SingleContextSource;
+import org.springframework.ldap.filter.AndFilter;
+import org.springframework.ldap.filter.GreaterThanOrEqualsFilter;
+import org.springframework.ldap.filter.HardcodedFilter;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.naming.directory.SearchControls;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Mirrors directory users and group memberships into {@code users} and {@code user_roles}, so
+ * logins of LDAP users resolve roles from local tables instead of searching groups.
+ *
+ * <p>Entries are read with RFC 2696 paged searches, one page in memory at a time, and each page is
+ * written with a few set-based statements. Runs are incremental: only entries whose
+ * {@code change-attribute} (modifyTimestamp, or a USN) is at or past the mark left by the previous
+ * run are read. Deletions are invisible to such a search, so a periodic full sync also soft-deletes
+ * LDAP users it no longer finds and strips LDAP holders from roles whose group it no longer finds.
+ * Only the replica holding the lease runs.
+ */
+@Service
+@ConditionalOnProperty(name = "app.ldap.enabled", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class LdapSyncService {
+    
+    static final String LEASE_NAME = "ldap-sync";
+    
+    // Pooled connections refuse request controls, and a run needs only one connection anyway
+    private final LdapContextSource ldapBindContextSource;
+    private final LdapSyncWriter writer;
+    private final SchedulerLeaseService leaseService;
+    private final PrincipalCache principalCache;
+    private final AccessTokenRevocationService revocationService;
+    
+    @Value("${app.ldap.sync.enabled:false}")
+    private boolean enabled;
+    
+    @Value("${app.ldap.sync.page-size:1000}")
+    private int pageSize;
+    
+    @Value("${app.ldap.sync.full-resync-interval-hours:24}")
+    private long fullResyncIntervalHours;
+    
+    @Value("${app.ldap.sync.lease-seconds:600}")
+    private long leaseSeconds;
+    
+    @Value("${app.ldap.sync.user-filter:(objectClass=person)}")
+    private String userFilter;
+    
+    @Value("${app.ldap.sync.group-filter:(objectClass=groupOfNames)}")
+    private String groupFilter;
+    
+    @Value("${app.ldap.sync.member-attribute:member}")
+    private String memberAttribute;
+    
+    @Value("${app.ldap.sync.change-attribute:modifyTimestamp}")
+    private String changeAttribute;
+    
+    @Value("${spring.ldap.user-search-base}")
+    private String userSearchBase;
+    
+    @Value("${spring.ldap.group-search-base}")
+    private String groupSearchBase;
+    
+    @Value("${app.ldap.username-attribute:uid}")
+    private String usernameAttribute;
+    
+    @Value("${app.ldap.email-attribute:mail}")
+    private String emailAttribute;
+    
+    @Value("${app.ldap.group-name-attribute:cn}")
+    private String groupNameAttribute;
+    
+    @Value("${app.ldap.default-role:USER}")
+    private String defaultRole;
+    
+    /** A mapped entry with its change mark. */
+    record DirectoryEntry<T>(T value, String mark) {
+    }
+    
+    record DirectoryGroup(String name, List<String> memberDns) {
+    }
+    
+    public record SyncResult(boolean full, int usersSeen, int usersAdded, int groupsApplied, int usersRemoved) {
+    }
+    
+    @Scheduled(fixedDelayString = "${app.ldap.sync.interval-millis:300000}",
+            initialDelayString = "${app.ldap.sync.initial-delay-millis:30000}")
+    public void scheduledSync() {
+        if (!enabled || !leaseService.tryAcquire(LEASE_NAME, Duration.ofSeconds(leaseSeconds))) {
+            return;
+        }
+        
+        try {
+            SyncResult result = sync(false);
+            log.info("Directory sync finished: {}", result);
+        } catch (RuntimeException e) {
+            log.error("Directory sync failed", e);
+        } finally {
+            leaseService.release(LEASE_NAME);
+        }
+    }
+    
+    /**
+     * Runs one sync, full if {@code forceFull} is set, no earlier full sync is recorded or the last
+     * one is older than {@code full-resync-interval-hours}. The marks only move once every page
+     * has been written, so a failed run is simply repeated.
+     */
+    public SyncResult sync(boolean forceFull) {
+        LocalDateTime startedAt = LocalDateTime.now();
+        LdapSyncWriter.SyncState state = writer.readState()
+                .orElse(new LdapSyncWriter.SyncState(null, null, null));
+        boolean full = forceFull || state.lastFullSyncAt() == null
+                || state.lastFullSyncAt().isBefore(startedAt.minusHours(fullResyncIntervalHours));
+        
+        Map<String, Long> roles = writer.globalRoles();
+        Long defaultRoleId = roles.get(defaultRole.toUpperCase(Locale.ROOT));
+        
+        int[] users = new int[2];
+        String[] userMark = {full ? null : state.userMark()};
+        searchPages(userSearchBase, changedSince(userFilter, userMark[0]),
+                new String[]{usernameAttribute, emailAttribute, changeAttribute}, userMapper(), page -> {
+                    List<LdapSyncWriter.DirectoryUser> valid = new ArrayList<>(page.size());
+                    for (DirectoryEntry<LdapSyncWriter.DirectoryUser> entry : page) {
+                        userMark[0] = laterMark(userMark[0], entry.mark());
+                        // Without a username and an email address there is nothing to log in with
+                        if (entry.value().username() != null && entry.value().email() != null) {
+                            valid.add(entry.value());
+                        }
+                    }
+                    users[0] += valid.size();
+                    users[1] += writer.upsertUsers(valid, startedAt);
+                    renewLease();
+                });
+        
+        int[] groupsApplied = new int[1];
+        Set<Long> appliedRoleIds = new HashSet<>();
+        String[] groupMark = {full ? null : state.groupMark()};
+        searchPages(groupSearchBase, changedSince(groupFilter, groupMark[0]),
+                new String[]{groupNameAttribute, memberAttribute, changeAttribute}, groupMapper(), page -> {
+                    for (DirectoryEntry<DirectoryGroup> entry : page) {
+                        groupMark[0] = laterMark(groupMark[0], entry.mark());
+                        DirectoryGroup group = entry.value();
+                        Long roleId = group.name() != null ? roles.get(group.name().toUpperCase(Locale.ROOT)) : null;
+                        // Every LDAP user holds the default role, so its group is not mirrored
+                        if (roleId != null && !roleId.equals(defaultRoleId)) {
+                            writer.replaceRoleMembers(roleId, group.memberDns(), pageSize);
+                            appliedRoleIds.add(roleId);
+                            groupsApplied[0]++;
+                        }
+                    }
+                    renewLease();
+                });
+        
+        int membershipsCleared = 0;
+        if (full) {
+            // A deleted or renamed group is invisible to the search, so its members would keep the role
+            for (Long roleId : roles.values()) {
+                if (!roleId.equals(defaultRoleId) && !appliedRoleIds.contains(roleId)) {
+                    membershipsCleared += writer.clearRoleMembers(roleId);
+                }
+            }
+        }
+        if (defaultRoleId != null) {
+            writer.assignDefaultRole(defaultRoleId);
+        }
+        // An empty result is more likely a misconfigured filter than an empty directory
+        List<Long> removedIds = full && users[0] > 0 ? writer.removeUnseen(startedAt) : List.of();
+        int removed = removedIds.size();
+        // removeUnseen runs as one auto-committed statement, so the removals are already visible
+        removedIds.forEach(revocationService::revokeAllForUser);
+        
+        writer.saveState(userMark[0], groupMark[0], full ? startedAt : null);
+        if (users[0] + groupsApplied[0] + membershipsCleared + removed > 0) {
+            // Roles were written around Hibernate, so cached principals cannot know they changed
+            principalCache.evictAll();
+        }
+        return new SyncResult(full, users[0], users[1], groupsApplied[0], removed);
+    }
+    
+    private <T> void searchPages(String base, String filter, String[] attributes,
+                                 ContextMapper<DirectoryEntry<T>> mapper, Consumer<List<DirectoryEntry<T>>> pageHandler) {
+        SearchControls controls = new SearchControls();
+        controls.setSearchScope(SearchControls.SUBTREE_SCOPE);
+        controls.setReturningAttributes(attributes);
+        
+        // The paged-results cookie is only valid on the connection that issued it
+        SingleContextSource.doWithSingleContext(ldapBindContextSource, operations -> {
+            PagedResultsDirContextProcessor processor = new PagedResultsDirContextProcessor(pageSize);
+            do {
+                pageHandler.accept(operations.search(base, filter, controls, mapper, processor));
+            } while (processor.hasMore());
+            return null;
+        });
+    }
+    
+    private ContextMapper<DirectoryEntry<LdapSyncWriter.DirectoryUser>> userMapper() {
+        return new AbstractContextMapper<>() {
+            @Override
+            protected DirectoryEntry<LdapSyncWriter.DirectoryUser> doMapFromContext(DirContextOperations ctx) {
+                return new DirectoryEntry<>(new LdapSyncWriter.DirectoryUser(ctx.getNameInNamespace(),
+                        ctx.getStringAttribute(usernameAttribute), ctx.getStringAttribute(emailAttribute)),
+                        ctx.getStringAttribute(changeAttribute));
+            }
+        };
+    }
+    
+    private ContextMapper<DirectoryEntry<DirectoryGroup>> groupMapper() {
+        return new AbstractContextMapper<>() {
+            @Override
+            protected DirectoryEntry<DirectoryGroup> doMapFromContext(DirContextOperations ctx) {
+                String[] members = ctx.getStringAttributes(memberAttribute);
+                return new DirectoryEntry<>(new DirectoryGroup(ctx.getStringAttribute(groupNameAttribute),
+                        members != null ? Arrays.asList(members) : List.of()),
+                        ctx.getStringAttribute(changeAttribute));
+            }
+        };
+    }
+    
+    private String changedSince(String filter, String mark) {
+        if (mark == null) {
+            return filter;
+        }
+        return new AndFilter()
+                .and(new HardcodedFilter(filter))
+                .and(new GreaterThanOrEqualsFilter(changeAttribute, mark))
+                .encode();
+    }
+    
+    private void renewLease() {
+        if (!leaseService.tryAcquire(LEASE_NAME, Duration.ofSeconds(leaseSeconds))) {
+            throw new IllegalStateException("Lost the " + LEASE_NAME + " lease");
+        }
+    }
+    
+    /**
+     * USNs are compared as numbers; generalized times, being fixed-width, compare as text.
+     */
+    static String laterMark(String current, String candidate) {
+        if (current == null) {
+            return candidate;
+        }
+        if (candidate == null) {
+            return current;
+        }
+        boolean numeric = current.chars().allMatch(Character::isDigit) && candidate.chars().allMatch(Character::isDigit);
+        int comparison = numeric && current.length() != candidate.length()
+                ? Integer.compare(current.length(), candidate.length())
+                : current.compareTo(candidate);
+        return comparison >= 0 ? current : candidate;
+    }
+}
\ No newline at end of file
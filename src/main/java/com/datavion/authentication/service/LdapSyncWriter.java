@@ -0,0 +1,228 @@
+package com.datavion.authentication.service;
+
+import com.datavion.authentication.util.LoginIdentifierUtil;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * JDBC side of the directory sync. Every write is a set-based statement over {@code unnest} arrays
+ * or a staging table, so a page of entries or a whole group costs a few round trips however large.
+ */
+@Component
+@RequiredArgsConstructor
+public class LdapSyncWriter {
+    
+    private static final String STATE_NAME = "directory";
+    
+    private static final String READ_STATE_SQL =
+            "SELECT user_mark, group_mark, last_full_sync_at FROM ldap_sync_state WHERE name = ?";
+    
+    private static final String SAVE_STATE_SQL = """
+            INSERT INTO ldap_sync_state (name, user_mark, group_mark, last_full_sync_at, updated_at)
+            VALUES (?, ?, ?, ?, LOCALTIMESTAMP)
+            ON CONFLICT (name) DO UPDATE
+            SET user_mark = EXCLUDED.user_mark, group_mark = EXCLUDED.group_mark,
+                last_full_sync_at = COALESCE(EXCLUDED.last_full_sync_at, ldap_sync_state.last_full_sync_at),
+                updated_at = LOCALTIMESTAMP
+            """;
+    
+    private static final String GLOBAL_ROLES_SQL = "SELECT id, name FROM roles WHERE tenant_id IS NULL";
+    
+    // An email another account already uses is left as it was rather than failing the page
+    private static final String UPDATE_USERS_SQL = """
+            UPDATE users AS u
+            SET email = CASE WHEN EXISTS (SELECT 1 FROM users o WHERE lower(o.email) = lower(d.email)
+                                          AND o.deleted_at IS NULL AND o.id <> u.id)
+                             THEN u.email ELSE d.email END,
+                ldap_dn = d.dn,
+                ldap_synced_at = ?
+            FROM unnest(?::varchar[], ?::varchar[], ?::varchar[]) AS d(username, email, dn)
+            WHERE lower(u.username) = lower(d.username) AND u.source = 'LDAP' AND u.deleted_at IS NULL
+            RETURNING lower(u.username)
+            """;
+    
+    // ON CONFLICT skips names and emails that local accounts hold
+    private static final String INSERT_USERS_SQL = """
+            INSERT INTO users (id, username, email, password_hash, email_verified, source, ldap_dn, ldap_synced_at)
+            SELECT d.id, d.username, d.email, ?, TRUE, 'LDAP', d.dn, ?
+            FROM unnest(?::bigint[], ?::varchar[], ?::varchar[], ?::varchar[]) AS d(id, username, email, dn)
+            ON CONFLICT DO NOTHING
+            """;
+    
+    private static final String CREATE_STAGING_SQL =
+            "CREATE TEMP TABLE IF NOT EXISTS ldap_sync_members (dn VARCHAR(1000) PRIMARY KEY) ON COMMIT DELETE ROWS";
+    
+    private static final String STAGE_MEMBERS_SQL =
+            "INSERT INTO ldap_sync_members (dn) SELECT lower(m.dn) FROM unnest(?::varchar[]) AS m(dn) ON CONFLICT DO NOTHING";
+    
+    private static final String REMOVE_MEMBERS_SQL = """
+            DELETE FROM user_roles AS ur USING users AS u
+            WHERE ur.user_id = u.id AND ur.role_id = ? AND u.source = 'LDAP'
+              AND NOT EXISTS (SELECT 1 FROM ldap_sync_members m WHERE m.dn = lower(u.ldap_dn))
+            """;
+    
+    private static final String ADD_MEMBERS_SQL = """
+            INSERT INTO user_roles (user_id, role_id)
+            SELECT u.id, ? FROM ldap_sync_members m
+            JOIN users u ON lower(u.ldap_dn) = m.dn AND u.deleted_at IS NULL AND u.source = 'LDAP'
+            ON CONFLICT DO NOTHING
+            """;
+    
+    private static final String ASSIGN_DEFAULT_ROLE_SQL = """
+            INSERT INTO user_roles (user_id, role_id)
+            SELECT u.id, ? FROM users u
+            WHERE u.source = 'LDAP' AND u.deleted_at IS NULL
+              AND NOT EXISTS (SELECT 1 FROM user_roles ur WHERE ur.user_id = u.id AND ur.role_id = ?)
+            """;
+    
+    // created_at guards users provisioned at login while the full sync was running; the removed
+    // users' refresh tokens are revoked in the same statement so none outlives the deletion
+    private static final String REMOVE_UNSEEN_SQL = """
+            WITH removed AS (
+                UPDATE users SET deleted_at = LOCALTIMESTAMP
+                WHERE source = 'LDAP' AND deleted_at IS NULL AND created_at < ?
+                  AND (ldap_synced_at IS NULL OR ldap_synced_at < ?)
+                RETURNING id),
+            revoked AS (
+                UPDATE refresh_tokens SET revoked = TRUE
+                WHERE user_id IN (SELECT id FROM removed) AND revoked = FALSE)
+            SELECT id FROM removed
+            """;
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final UserIdAllocator userIdAllocator;
+    
+    record DirectoryUser(String dn, String username, String email) {
+    }
+    
+    record SyncState(String userMark, String groupMark, LocalDateTime lastFullSyncAt) {
+    }
+    
+    Optional<SyncState> readState() {
+        return jdbcTemplate.query(READ_STATE_SQL, (rs, rowNum) -> new SyncState(
+                rs.getString("user_mark"),
+                rs.getString("group_mark"),
+                rs.getTimestamp("last_full_sync_at") != null ? rs.getTimestamp("last_full_sync_at").toLocalDateTime() : null),
+                STATE_NAME).stream().findFirst();
+    }
+    
+    void saveState(String userMark, String groupMark, LocalDateTime fullSyncAt) {
+        jdbcTemplate.update(SAVE_STATE_SQL, STATE_NAME, userMark, groupMark,
+                fullSyncAt != null ? Timestamp.valueOf(fullSyncAt) : null);
+    }
+    
+    /** Global role ids by upper-cased name, which is how directory groups map to roles. */
+    Map<String, Long> globalRoles() {
+        Map<String, Long> roles = new HashMap<>();
+        jdbcTemplate.query(GLOBAL_ROLES_SQL, rs -> {
+            roles.put(rs.getString("name").toUpperCase(Locale.ROOT), rs.getLong("id"));
+        });
+        return roles;
+    }
+    
+    /**
+     * Updates the page's users that already exist and inserts the rest.
+     *
+     * @return the number of users inserted
+     */
+    @Transactional
+    public int upsertUsers(List<DirectoryUser> users, LocalDateTime syncedAt) {
+        if (users.isEmpty()) {
+            return 0;
+        }
+        Timestamp syncedAtValue = Timestamp.valueOf(syncedAt);
+        Set<String> updated = new HashSet<>(jdbcTemplate.query(connection -> {
+            var statement = connection.prepareStatement(UPDATE_USERS_SQL);
+            statement.setTimestamp(1, syncedAtValue);
+            statement.setArray(2, varcharArray(connection, users.stream().map(DirectoryUser::username).toList()));
+            statement.setArray(3, varcharArray(connection, users.stream().map(DirectoryUser::email).toList()));
+            statement.setArray(4, varcharArray(connection, users.stream().map(DirectoryUser::dn).toList()));
+            return statement;
+        }, (rs, rowNum) -> rs.getString(1)));
+        
+        List<DirectoryUser> added = users.stream()
+                .filter(user -> !updated.contains(LoginIdentifierUtil.normalize(user.username())))
+                .toList();
+        if (added.isEmpty()) {
+            return 0;
+        }
+        Long[] ids = userIdAllocator.allocate(added.size());
+        return jdbcTemplate.update(connection -> {
+            var statement = connection.prepareStatement(INSERT_USERS_SQL);
+            statement.setString(1, LdapUserProvisioner.NO_LOCAL_PASSWORD);
+            statement.setTimestamp(2, syncedAtValue);
+            statement.setArray(3, connection.createArrayOf("bigint", ids));
+            statement.setArray(4, varcharArray(connection, added.stream().map(DirectoryUser::username).toList()));
+            statement.setArray(5, varcharArray(connection, added.stream().map(DirectoryUser::email).toList()));
+            statement.setArray(6, varcharArray(connection, added.stream().map(DirectoryUser::dn).toList()));
+            return statement;
+        });
+    }
+    
+    /**
+     * Makes the role's LDAP holders exactly the given member DNs. Members are staged in batches,
+     * then one anti-join removes leavers and one join adds newcomers.
+     */
+    @Transactional
+    public void replaceRoleMembers(long roleId, List<String> memberDns, int batchSize) {
+        jdbcTemplate.execute(CREATE_STAGING_SQL);
+        for (int from = 0; from < memberDns.size(); from += batchSize) {
+            List<String> batch = memberDns.subList(from, Math.min(from + batchSize, memberDns.size()));
+            jdbcTemplate.update(connection -> {
+                var statement = connection.prepareStatement(STAGE_MEMBERS_SQL);
+                statement.setArray(1, varcharArray(connection, batch));
+                return statement;
+            });
+        }
+        jdbcTemplate.update(REMOVE_MEMBERS_SQL, roleId);
+        jdbcTemplate.update(ADD_MEMBERS_SQL, roleId);
+    }
+    
+    /**
+     * Removes every LDAP holder of the role, for a role whose group the directory no longer has.
+     * This is the anti-join of {@link #replaceRoleMembers} against an empty member set.
+     *
+     * @return the number of memberships removed
+     */
+    @Transactional
+    public int clearRoleMembers(long roleId) {
+        jdbcTemplate.execute(CREATE_STAGING_SQL);
+        return jdbcTemplate.update(REMOVE_MEMBERS_SQL, roleId);
+    }
+    
+    public int assignDefaultRole(long roleId) {
+        return jdbcTemplate.update(ASSIGN_DEFAULT_ROLE_SQL, roleId, roleId);
+    }
+    
+    /**
+     * Soft-deletes LDAP users a full sync started at {@code syncStartedAt} did not see and revokes
+     * their refresh tokens.
+     *
+     * @return the ids of the removed users
+     */
+    public List<Long> removeUnseen(LocalDateTime syncStartedAt) {
+        Timestamp startedAt = Timestamp.valueOf(syncStartedAt);
+        return jdbcTemplate.queryForList(REMOVE_UNSEEN_SQL, Long.class, startedAt, startedAt);
+    }
+    
+    private static Array varcharArray(Connection connection, Collection<String> values) throws SQLException {
+        return connection.createArrayOf("varchar", new ArrayList<>(values).toArray());
+    }
+}
\ No newline at end of file
@@ -0,0 +1,85 @@
+package com.datavion.authentication.service;
+
+import com.datavion.authentication.entity.Role;
+import com.datavion.authentication.entity.User;
+import com.datavion.authentication.repository.RoleRepository;
+import com.datavion.authentication.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.InternalAuthenticationServiceException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps the local rows of directory users in step with the directory at login. Groups map to
+ * global roles of the same name, upper-cased, and every directory user also holds
+ * {@code app.ldap.default-role}, the same rule {@link LdapSyncService} applies in bulk.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class LdapUserProvisioner {
+    
+    /** Stored instead of a hash: directory accounts are only ever verified by a bind. */
+    public static final String NO_LOCAL_PASSWORD = "{ldap}";
+    
+    private final UserRepository userRepository;
+    private final RoleRepository roleRepository;
+    
+    @Value("${app.ldap.default-role:USER}")
+    private String defaultRole;
+    
+    /**
+     * Creates the user on first login and otherwise updates their roles if their groups changed.
+     * Role changes evict the cached principal once this commits.
+     */
+    @Transactional
+    public void provision(String dn, String username, String email, Collection<String> groups) {
+        Set<Role> roles = resolveRoles(groups);
+        User user = userRepository.findWithRolesByUsernameIgnoreCase(username).orElse(null);
+        
+        if (user == null) {
+            if (email == null || userRepository.existsByEmailIgnoreCaseAndDeletedAtIsNull(email)) {
+                throw new InternalAuthenticationServiceException("Directory user " + username + " has no usable email address");
+            }
+            userRepository.save(User.builder()
+                    .username(username)
+                    .email(email)
+                    .passwordHash(NO_LOCAL_PASSWORD)
+                    .emailVerified(true)
+                    .source(User.UserSource.LDAP)
+                    .ldapDn(dn)
+                    .roles(roles)
+                    .build());
+            log.info("Provisioned directory user: {}", username);
+            return;
+        }
+        
+        if (user.getSource() != User.UserSource.LDAP) {
+            throw new InternalAuthenticationServiceException("Username " + username + " belongs to a local account");
+        }
+        user.setLdapDn(dn);
+        if (!roleNames(user.getRoles()).equals(roleNames(roles))) {
+            user.setRoles(roles);
+        }
+    }
+    
+    private Set<Role> resolveRoles(Collection<String> groups) {
+        Set<String> names = groups.stream()
+                .map(group -> group.toUpperCase(Locale.ROOT))
+                .collect(Collectors.toCollection(HashSet::new));
+        names.add(defaultRole.toUpperCase(Locale.ROOT));
+        return new HashSet<>(roleRepository.findByNameInAndTenantIsNull(names));
+    }
+    
+    private static Set<String> roleNames(Collection<Role> roles) {
+        return roles.stream().map(Role::getName).collect(Collectors.toSet());
+    }
+}
\ No newline at end of file
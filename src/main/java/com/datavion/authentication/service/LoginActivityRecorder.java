@@ -0,0 +1,137 @@
+package com.datavion.authentication.service;
+
+import com.datavion.authentication.util.LoginIdentifierUtil;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Login bookkeeping on {@code users}, split by how consistent each write must be.
+ *
+ * <p>Last-login time and address are informational. They are coalesced in memory per user, so a
+ * user logging in repeatedly costs one write, and flushed periodically as a few
+ * {@code UPDATE ... FROM (VALUES ...)} statements. A crash loses at most one flush interval of them.
+ *
+ * <p>The failed-attempt counter decides lockout, so it is written immediately with single-statement
+ * atomic updates that need no prior read and cannot lose concurrent increments.
+ */
+@Service
+@RequiredArgsConstructor
+public class LoginActivityRecorder {
+    
+    private static final String RESET_FAILED_ATTEMPTS_SQL =
+            "UPDATE users SET failed_login_attempts = 0 WHERE id = ? AND failed_login_attempts > 0";
+    
+    private static final String RECORD_FAILURE_SQL = """
+            UPDATE users SET
+                failed_login_attempts = COALESCE(failed_login_attempts, 0) + 1,
+                account_locked = COALESCE(account_locked, FALSE) OR COALESCE(failed_login_attempts, 0) + 1 >= ?,
+                locked_at = CASE WHEN NOT COALESCE(account_locked, FALSE) AND COALESCE(failed_login_attempts, 0) + 1 >= ?
+                                 THEN LOCALTIMESTAMP ELSE locked_at END
+            WHERE lower(%s) = lower(?) AND deleted_at IS NULL
+            RETURNING id, username, email, failed_login_attempts
+            """;
+    
+    private static final String RECORD_FAILURE_BY_USERNAME_SQL = RECORD_FAILURE_SQL.formatted("username");
+    
+    private static final String RECORD_FAILURE_BY_EMAIL_SQL = RECORD_FAILURE_SQL.formatted("email");
+    
+    private static final String FLUSH_SQL_PREFIX =
+            "UPDATE users AS u SET last_login_at = v.login_at, last_login_ip = v.login_ip FROM (VALUES ";
+    
+    private static final String FLUSH_SQL_ROW = "(CAST(? AS BIGINT), CAST(? AS TIMESTAMP), CAST(? AS VARCHAR))";
+    
+    private static final String FLUSH_SQL_SUFFIX = ") AS v(id, login_at, login_ip) "
+            + "WHERE u.id = v.id AND (u.last_login_at IS NULL OR u.last_login_at < v.login_at)";
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+    
+    @Value("${app.security.account-lockout.max-failed-attempts:5}")
+    private int maxFailedAttempts;
+    
+    @Value("${app.login-activity.flush-batch-size:500}")
+    private int flushBatchSize;
+    
+    private CoalescingBatchWriter<LoginActivity> activityWriter;
+    
+    record LoginActivity(LocalDateTime loginAt, String ipAddress) {
+        
+        LoginActivity latest(LoginActivity other) {
+            return other.loginAt.isAfter(loginAt) ? other : this;
+        }
+    }
+    
+    public record FailedLogin(Long userId, String username, String email, int failedAttempts, boolean lockedNow) {
+    }
+    
+    @PostConstruct
+    void init() {
+        activityWriter = new CoalescingBatchWriter<>(jdbcTemplate, FLUSH_SQL_PREFIX, FLUSH_SQL_ROW, FLUSH_SQL_SUFFIX,
+                (userId, activity) -> new Object[]{userId, Timestamp.valueOf(activity.loginAt()), activity.ipAddress()},
+                LoginActivity::latest, "last-login details");
+        Gauge.builder("auth.login_activity.pending", activityWriter.pending(), Map::size)
+                .description("Users with last-login updates not yet written")
+                .register(meterRegistry);
+    }
+    
+    /**
+     * Records a successful login. Clears any failed attempts right away; the last-login details
+     * are queued for the next flush.
+     */
+    public void recordSuccess(Long userId, LocalDateTime loginAt, String ipAddress) {
+        // Matches no row, and so writes nothing, in the common case of no prior failures
+        jdbcTemplate.update(RESET_FAILED_ATTEMPTS_SQL, userId);
+        activityWriter.record(userId, new LoginActivity(loginAt, ipAddress));
+    }
+    
+    /**
+     * Counts a failed login against the named account and locks it once the limit is reached.
+     *
+     * @return the updated account state, or empty if no active account has that name
+     */
+    public Optional<FailedLogin> recordFailure(String usernameOrEmail) {
+        // Routed like the login lookup so each statement probes a single lower() index
+        if (LoginIdentifierUtil.looksLikeEmail(usernameOrEmail)) {
+            Optional<FailedLogin> byEmail = recordFailure(RECORD_FAILURE_BY_EMAIL_SQL, usernameOrEmail);
+            if (byEmail.isPresent()) {
+                return byEmail;
+            }
+        }
+        return recordFailure(RECORD_FAILURE_BY_USERNAME_SQL, usernameOrEmail);
+    }
+    
+    private Optional<FailedLogin> recordFailure(String sql, String identifier) {
+        List<FailedLogin> updated = jdbcTemplate.query(sql,
+                (rs, rowNum) -> {
+                    int attempts = rs.getInt("failed_login_attempts");
+                    // Attempts grow by one per failure, so exactly one failure crosses the limit
+                    return new FailedLogin(rs.getLong("id"), rs.getString("username"), rs.getString("email"),
+                            attempts, attempts == maxFailedAttempts);
+                },
+                maxFailedAttempts, maxFailedAttempts, identifier);
+        return updated.stream().findFirst();
+    }
+    
+    @Scheduled(fixedDelayString = "${app.login-activity.flush-interval-millis:1000}")
+    public void flush() {
+        activityWriter.flush(flushBatchSize);
+    }
+    
+    @PreDestroy
+    void shutdown() {
+        flush();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,35 @@
+package com.datavion.authentication.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+
+/**
+ * Queues mail in the caller's transaction, so a message exists exactly when the change that caused
+ * it commits and the request never waits on SMTP. {@link MailOutboxWorker} does the sending.
+ */
+@Service
+@RequiredArgsConstructor
+public class MailOutbox {
+    
+    private final MailOutboxStore store;
+    private final MailOutboxWorker worker;
+    
+    public void enqueue(String template, String recipient, Map<String, String> model) {
+        store.insert(template, recipient, model);
+        
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    worker.wakeUp();
+                }
+            });
+        } else {
+            worker.wakeUp();
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,154 @@
+package com.datavion.authentication.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JDBC access to {@code mail_outbox}. Times are taken from the database clock so replicas with
+ * skewed clocks agree on when a message is due.
+ *
+ * <p>A model can hold a live verification or reset link, so it is cleared as soon as the message is
+ * sent or given up; only pending messages keep theirs.
+ */
+@Component
+@RequiredArgsConstructor
+public class MailOutboxStore {
+    
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    
+    private static final TypeReference<Map<String, String>> MODEL_TYPE = new TypeReference<>() {
+    };
+    
+    private static final String INSERT_SQL =
+            "INSERT INTO mail_outbox (template, recipient, model) VALUES (?, ?, ?)";
+    
+    // SKIP LOCKED lets every replica claim a disjoint batch without waiting on the others
+    private static final String CLAIM_SQL = """
+            UPDATE mail_outbox SET attempts = attempts + 1,
+                next_attempt_at = LOCALTIMESTAMP + make_interval(secs => ?)
+            WHERE id IN (
+                SELECT id FROM mail_outbox
+                WHERE status = 'PENDING' AND next_attempt_at <= LOCALTIMESTAMP
+                ORDER BY next_attempt_at
+                LIMIT ?
+                FOR UPDATE SKIP LOCKED)
+            RETURNING id, template, recipient, model, attempts
+            """;
+    
+    private static final String MARK_SENT_SQL = """
+            UPDATE mail_outbox SET status = 'SENT', sent_at = LOCALTIMESTAMP, last_error = NULL, model = '{}'
+            WHERE id = ANY(?)
+            """;
+    
+    private static final String MARK_FAILED_SQL = """
+            UPDATE mail_outbox SET status = ?, last_error = ?,
+                next_attempt_at = LOCALTIMESTAMP + make_interval(secs => ?),
+                model = CASE WHEN ? THEN '{}' ELSE model END
+            WHERE id = ?
+            """;
+    
+    private static final String PURGE_SENT_SQL = """
+            DELETE FROM mail_outbox WHERE id IN (
+                SELECT id FROM mail_outbox WHERE status = 'SENT' AND sent_at < LOCALTIMESTAMP - make_interval(days => ?) LIMIT ?)
+            """;
+    
+    // A given-up message's next_attempt_at is when it was given up
+    private static final String PURGE_FAILED_SQL = """
+            DELETE FROM mail_outbox WHERE id IN (
+                SELECT id FROM mail_outbox WHERE status = 'FAILED' AND next_attempt_at < LOCALTIMESTAMP - make_interval(days => ?) LIMIT ?)
+            """;
+    
+    private static final int MAX_ERROR_LENGTH = 1000;
+    
+    private final JdbcTemplate jdbcTemplate;
+    
+    public void insert(String template, String recipient, Map<String, String> model) {
+        String json;
+        try {
+            json = OBJECT_MAPPER.writeValueAsString(model);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Cannot serialize mail model", e);
+        }
+        jdbcTemplate.update(INSERT_SQL, template, recipient, json);
+    }
+    
+    /**
+     * Claims up to {@code limit} due messages, hiding them from other claims for
+     * {@code claimTimeoutSeconds} in case this sender dies before reporting back.
+     */
+    public List<OutboxMessage> claim(int limit, long claimTimeoutSeconds) {
+        return jdbcTemplate.query(CLAIM_SQL, (rs, rowNum) -> new OutboxMessage(
+                rs.getLong("id"),
+                rs.getString("template"),
+                rs.getString("recipient"),
+                readModel(rs.getString("model")),
+                rs.getInt("attempts")), claimTimeoutSeconds, limit);
+    }
+    
+    public void markSent(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.update(connection -> {
+            var statement = connection.prepareStatement(MARK_SENT_SQL);
+            statement.setArray(1, connection.createArrayOf("bigint", ids.toArray()));
+            return statement;
+        });
+    }
+    
+    public void markFailed(List<Failure> failures) {
+        if (failures.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(MARK_FAILED_SQL, failures.stream()
+                .map(failure -> new Object[]{
+                        failure.permanent() ? "FAILED" : "PENDING",
+                        truncate(failure.error()),
+                        failure.retryAfterSeconds(),
+                        failure.permanent(),
+                        failure.id()})
+                .toList());
+    }
+    
+    public int purgeSent(int retentionDays, int limit) {
+        return jdbcTemplate.update(PURGE_SENT_SQL, retentionDays, limit);
+    }
+    
+    public int purgeFailed(int retentionDays, int limit) {
+        return jdbcTemplate.update(PURGE_FAILED_SQL, retentionDays, limit);
+    }
+    
+    /**
+     * Throwing here would drop the whole claimed batch until the claim timeout, again on every
+     * claim the row lands in, so an unreadable model comes back as {@code null} for the worker to
+     * give up on.
+     */
+    private static Map<String, String> readModel(String json) {
+        try {
+            return OBJECT_MAPPER.readValue(json, MODEL_TYPE);
+        } catch (JsonProcessingException e) {
+            return null;
+        }
+    }
+    
+    private static String truncate(String error) {
+        if (error == null) {
+            return null;
+        }
+        return error.length() <= MAX_ERROR_LENGTH ? error : error.substring(0, MAX_ERROR_LENGTH);
+    }
+    
+    /** {@code model} is {@code null} if the stored JSON could not be read. */
+    public record OutboxMessage(long id, String template, String recipient, Map<String, String> model, int attempts) {
+    }
+    
+    public record Failure(long id, String error, long retryAfterSeconds, boolean permanent) {
+    }
+}
\ No newline at end of file
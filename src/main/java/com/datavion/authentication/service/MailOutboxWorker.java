@@ -0,0 +1,272 @@
+package com.datavion.authentication.service;
+
+import com.datavion.authentication.service.MailOutboxStore.Failure;
+import com.datavion.authentication.service.MailOutboxStore.OutboxMessage;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.IntBinaryOperator;
+
+/**
+ * Sends {@code mail_outbox} messages off the request path. Each poll claims a batch and splits it
+ * across a fixed pool of senders; a sender renders its share and hands it to
+ * {@link JavaMailSender#send(MimeMessage...)}, which delivers it over a single SMTP connection.
+ * Failed messages are retried with exponential backoff until {@code max-attempts}.
+ *
+ * <p>Commits that enqueue mail wake the worker through {@link #wakeUp()}, so the poll interval only
+ * bounds how quickly retries, and mail enqueued on other replicas, are picked up.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class MailOutboxWorker {
+    
+    static final String PURGE_LEASE_NAME = "mail-outbox-purge";
+    
+    private final MailOutboxStore store;
+    private final MailTemplates templates;
+    private final JavaMailSender mailSender;
+    private final SchedulerLeaseService leaseService;
+    private final MeterRegistry meterRegistry;
+    
+    @Value("${app.mail.outbox.enabled:true}")
+    private boolean enabled;
+    
+    @Value("${app.email.from}")
+    private String from;
+    
+    @Value("${app.mail.outbox.batch-size:100}")
+    private int batchSize;
+    
+    @Value("${app.mail.outbox.senders:4}")
+    private int senders;
+    
+    @Value("${app.mail.outbox.claim-timeout-seconds:300}")
+    private long claimTimeoutSeconds;
+    
+    @Value("${app.mail.outbox.max-attempts:8}")
+    private int maxAttempts;
+    
+    @Value("${app.mail.outbox.backoff-base-seconds:30}")
+    private long backoffBaseSeconds;
+    
+    @Value("${app.mail.outbox.backoff-max-seconds:3600}")
+    private long backoffMaxSeconds;
+    
+    @Value("${app.mail.outbox.retention-days:7}")
+    private int retentionDays;
+    
+    @Value("${app.mail.outbox.purge-chunk-size:1000}")
+    private int purgeChunkSize;
+    
+    private ExecutorService senderPool;
+    private ExecutorService poller;
+    
+    private final AtomicBoolean polling = new AtomicBoolean();
+    
+    private Counter sentCounter;
+    private Counter retriedCounter;
+    private Counter failedCounter;
+    
+    @PostConstruct
+    void init() {
+        senderPool = Executors.newFixedThreadPool(senders, Thread.ofPlatform().name("mail-sender-", 0).daemon().factory());
+        poller = Executors.newSingleThreadExecutor(Thread.ofPlatform().name("mail-outbox").daemon().factory());
+        sentCounter = Counter.builder("auth.mail.sent")
+                .description("Outbox messages delivered to the SMTP server")
+                .register(meterRegistry);
+        retriedCounter = Counter.builder("auth.mail.retried")
+                .description("Outbox messages that failed and were scheduled for another attempt")
+                .register(meterRegistry);
+        failedCounter = Counter.builder("auth.mail.failed")
+                .description("Outbox messages given up on")
+                .register(meterRegistry);
+    }
+    
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        poller.shutdown();
+        poller.awaitTermination(10, TimeUnit.SECONDS);
+        senderPool.shutdown();
+        senderPool.awaitTermination(10, TimeUnit.SECONDS);
+    }
+    
+    /** Starts a poll without waiting for it. If one is already running, new mail waits at most one poll interval. */
+    public void wakeUp() {
+        if (enabled && !polling.get() && !poller.isShutdown()) {
+            poller.execute(this::poll);
+        }
+    }
+    
+    @Scheduled(fixedDelayString = "${app.mail.outbox.poll-interval-millis:1000}")
+    public void poll() {
+        if (!enabled || !polling.compareAndSet(false, true)) {
+            return;
+        }
+        
+        try {
+            int claimed;
+            do {
+                claimed = dispatchBatch();
+            } while (claimed == batchSize);
+        } catch (RuntimeException e) {
+            log.error("Mail outbox poll failed", e);
+        } finally {
+            polling.set(false);
+        }
+    }
+    
+    @Scheduled(fixedDelayString = "${app.mail.outbox.purge-interval-millis:3600000}",
+            initialDelayString = "${app.mail.outbox.purge-initial-delay-millis:120000}")
+    public void purgeFinished() {
+        if (!enabled || !leaseService.tryAcquire(PURGE_LEASE_NAME, Duration.ofMinutes(5))) {
+            return;
+        }
+        
+        try {
+            long total = purge(store::purgeSent) + purge(store::purgeFailed);
+            if (total > 0) {
+                log.info("Purged {} finished outbox messages", total);
+            }
+        } catch (RuntimeException e) {
+            log.error("Mail outbox purge failed", e);
+        } finally {
+            leaseService.release(PURGE_LEASE_NAME);
+        }
+    }
+    
+    private long purge(IntBinaryOperator purgeChunk) {
+        long total = 0;
+        int deleted;
+        do {
+            deleted = purgeChunk.applyAsInt(retentionDays, purgeChunkSize);
+            total += deleted;
+        } while (deleted == purgeChunkSize);
+        return total;
+    }
+    
+    int dispatchBatch() {
+        List<OutboxMessage> claimed = store.claim(batchSize, claimTimeoutSeconds);
+        if (claimed.isEmpty()) {
+            return 0;
+        }
+        
+        int chunkSize = (claimed.size() + senders - 1) / senders;
+        List<Future<?>> futures = new ArrayList<>();
+        for (int from = 0; from < claimed.size(); from += chunkSize) {
+            List<OutboxMessage> chunk = claimed.subList(from, Math.min(from + chunkSize, claimed.size()));
+            futures.add(senderPool.submit(() -> sendChunk(chunk)));
+        }
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                // The claim timeout returns anything unreported to the queue
+                return 0;
+            } catch (ExecutionException e) {
+                log.error("Mail sender failed", e.getCause());
+            }
+        }
+        return claimed.size();
+    }
+    
+    private void sendChunk(List<OutboxMessage> chunk) {
+        Map<MimeMessage, OutboxMessage> prepared = new IdentityHashMap<>();
+        List<Failure> failures = new ArrayList<>();
+        for (OutboxMessage message : chunk) {
+            if (message.model() == null) {
+                failures.add(new Failure(message.id(), "Unreadable mail model", 0, true));
+                continue;
+            }
+            try {
+                prepared.put(toMimeMessage(message), message);
+            } catch (MessagingException | RuntimeException e) {
+                // Rendering will not succeed on a retry either
+                failures.add(new Failure(message.id(), "Cannot build message: " + e.getMessage(), 0, true));
+            }
+        }
+        
+        List<Long> sent = new ArrayList<>();
+        if (!prepared.isEmpty()) {
+            Map<Object, Exception> rejected = Map.of();
+            try {
+                mailSender.send(prepared.keySet().toArray(MimeMessage[]::new));
+            } catch (MailException e) {
+                // A rejected recipient fails only its own message; a connection failure fails them all
+                rejected = e instanceof MailSendException sendException && !sendException.getFailedMessages().isEmpty()
+                        ? sendException.getFailedMessages()
+                        : allRejected(prepared, e);
+            }
+            
+            for (Map.Entry<MimeMessage, OutboxMessage> entry : prepared.entrySet()) {
+                Exception error = rejected.get(entry.getKey());
+                if (error == null) {
+                    sent.add(entry.getValue().id());
+                } else {
+                    failures.add(retryOrGiveUp(entry.getValue(), error));
+                }
+            }
+        }
+        
+        store.markSent(sent);
+        store.markFailed(failures);
+        sentCounter.increment(sent.size());
+        for (Failure failure : failures) {
+            if (failure.permanent()) {
+                failedCounter.increment();
+                log.warn("Giving up on outbox message {}: {}", failure.id(), failure.error());
+            } else {
+                retriedCounter.increment();
+            }
+        }
+    }
+    
+    private MimeMessage toMimeMessage(OutboxMessage message) throws MessagingException {
+        MailTemplates.Rendered rendered = templates.render(message.template(), message.model());
+        MimeMessage mimeMessage = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(mimeMessage, StandardCharsets.UTF_8.name());
+        helper.setFrom(from);
+        helper.setTo(message.recipient());
+        helper.setSubject(rendered.subject());
+        helper.setText(rendered.body(), false);
+        return mimeMessage;
+    }
+    
+    private static Map<Object, Exception> allRejected(Map<MimeMessage, OutboxMessage> prepared, Exception error) {
+        Map<Object, Exception> rejected = new IdentityHashMap<>();
+        prepared.keySet().forEach(mimeMessage -> rejected.put(mimeMessage, error));
+        return rejected;
+    }
+    
+    private Failure retryOrGiveUp(OutboxMessage message, Exception error) {
+        boolean giveUp = message.attempts() >= maxAttempts;
+        long delay = Math.min(backoffMaxSeconds, backoffBaseSeconds << Math.min(message.attempts() - 1, 20));
+        return new Failure(message.id(), error.getMessage(), delay, giveUp);
+    }
+}
\ No newline at end of file
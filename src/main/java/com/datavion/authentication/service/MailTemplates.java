@@ -0,0 +1,106 @@
+package com.datavion.authentication.service;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Plain-text mail templates under {@code classpath:mail/}, parsed once at startup into literal and
+ * {@code ${name}} segments so rendering a batch is only string concatenation. The first line of a
+ * template is {@code Subject: ...}, followed by a blank line and the body.
+ */
+@Component
+public class MailTemplates {
+    
+    public static final String VERIFY_EMAIL = "verify-email";
+    public static final String PASSWORD_RESET = "password-reset";
+    
+    private static final String SUBJECT_PREFIX = "Subject: ";
+    
+    private final Map<String, Template> templates = new HashMap<>();
+    
+    @PostConstruct
+    void init() {
+        for (String name : List.of(VERIFY_EMAIL, PASSWORD_RESET)) {
+            templates.put(name, load(name));
+        }
+    }
+    
+    public Rendered render(String name, Map<String, String> model) {
+        Template template = templates.get(name);
+        if (template == null) {
+            throw new IllegalArgumentException("Unknown mail template: " + name);
+        }
+        return new Rendered(template.subject().render(model), template.body().render(model));
+    }
+    
+    private static Template load(String name) {
+        String text;
+        try {
+            text = new ClassPathResource("mail/" + name + ".txt").getContentAsString(StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read mail template " + name, e);
+        }
+        
+        int subjectEnd = text.indexOf('\n');
+        if (!text.startsWith(SUBJECT_PREFIX) || subjectEnd < 0) {
+            throw new IllegalStateException("Mail template " + name + " must start with a Subject line");
+        }
+        String subject = text.substring(SUBJECT_PREFIX.length(), subjectEnd).strip();
+        String body = text.substring(subjectEnd + 1).stripLeading();
+        return new Template(Segments.compile(subject), Segments.compile(body));
+    }
+    
+    public record Rendered(String subject, String body) {
+    }
+    
+    private record Template(Segments subject, Segments body) {
+    }
+    
+    /**
+     * Alternating literal and placeholder parts; even indexes are literals, odd indexes are model keys.
+     */
+    private record Segments(String[] parts) {
+        
+        static Segments compile(String text) {
+            List<String> parts = new ArrayList<>();
+            int from = 0;
+            int start;
+            while ((start = text.indexOf("${", from)) >= 0) {
+                int end = text.indexOf('}', start);
+                if (end < 0) {
+                    break;
+                }
+                parts.add(text.substring(from, start));
+                parts.add(text.substring(start + 2, end));
+                from = end + 1;
+            }
+            parts.add(text.substring(from));
+            return new Segments(parts.toArray(String[]::new));
+        }
+        
+        String render(Map<String, String> model) {
+            StringBuilder out = new StringBuilder(parts[0].length() * 2);
+            for (int i = 0; i < parts.length; i++) {
+                if (i % 2 == 0) {
+                    out.append(parts[i]);
+                    continue;
+                }
+                String value = model.get(parts[i]);
+                if (value == null) {
+                    throw new IllegalArgumentException("Missing mail template value: " + parts[i]);
+                }
+                out.append(value);
+            }
+            return out.toString();
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,164 @@
+package com.datavion.authentication.service;
+
+import com.datavion.authentication.exception.ServiceOverloadedException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.*;
+
+/**
+ * Password encoder that runs every hash and verification on a dedicated, bounded pool so a burst
+ * of logins cannot take every core away from token-authenticated traffic. When the queue is full
+ * callers get a {@link ServiceOverloadedException} (503 with Retry-After) instead of piling up.
+ *
+ * <p>New hashes use the configured algorithm with a {@code {id}} prefix. Legacy unprefixed BCrypt
+ * hashes and hashes with a lower cost or another algorithm still verify, and report
+ * {@link #upgradeEncoding(String)} so they are rehashed on the next successful login.
+ */
+@Service
+@Slf4j
+public class PasswordHashingService implements PasswordEncoder {
+    
+    private static final String BCRYPT = "bcrypt";
+    private static final String ARGON2 = "argon2";
+    private static final String CALIBRATION_PASSWORD = "Calibration@123";
+    
+    @Value("${app.security.password.hashing.algorithm:bcrypt}")
+    private String algorithm;
+    
+    @Value("${app.security.password.hashing.bcrypt-cost:0}")
+    private int bcryptCost;
+    
+    @Value("${app.security.password.hashing.target-millis:250}")
+    private long targetMillis;
+    
+    @Value("${app.security.password.hashing.min-bcrypt-cost:10}")
+    private int minBcryptCost;
+    
+    @Value("${app.security.password.hashing.max-bcrypt-cost:14}")
+    private int maxBcryptCost;
+    
+    @Value("${app.security.password.hashing.pool-size:0}")
+    private int poolSize;
+    
+    @Value("${app.security.password.hashing.queue-capacity:64}")
+    private int queueCapacity;
+    
+    @Value("${app.security.password.hashing.timeout-millis:10000}")
+    private long timeoutMillis;
+    
+    @Value("${app.security.password.hashing.retry-after-seconds:2}")
+    private long retryAfterSeconds;
+    
+    private PasswordEncoder delegate;
+    
+    private ThreadPoolExecutor executor;
+    
+    @PostConstruct
+    void init() {
+        int cost = bcryptCost > 0 ? bcryptCost : calibrateBcryptCost();
+        
+        DelegatingPasswordEncoder encoder = new DelegatingPasswordEncoder(algorithm, Map.of(
+                BCRYPT, new BCryptPasswordEncoder(cost),
+                ARGON2, Argon2PasswordEncoder.defaultsForSpringSecurity_v5_8()));
+        // Hashes written before prefixes were introduced are plain BCrypt
+        encoder.setDefaultPasswordEncoderForMatches(new BCryptPasswordEncoder(cost));
+        delegate = encoder;
+        
+        int threads = poolSize > 0 ? poolSize : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                Thread.ofPlatform().name("password-hash-", 0).daemon().factory(),
+                new ThreadPoolExecutor.AbortPolicy());
+        
+        log.info("Password hashing: algorithm={}, bcrypt cost={}, threads={}, queue={}",
+                algorithm, cost, threads, queueCapacity);
+    }
+    
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+    
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return submit(() -> delegate.encode(rawPassword));
+    }
+    
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return submit(() -> delegate.matches(rawPassword, encodedPassword));
+    }
+    
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+    
+    /**
+     * The underlying encoder, bypassing the pool, for callers that manage their own parallelism.
+     */
+    public PasswordEncoder unboundedEncoder() {
+        return delegate;
+    }
+    
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+    
+    private <T> T submit(Callable<T> task) {
+        Future<T> future;
+        try {
+            future = executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            throw new ServiceOverloadedException("Too many concurrent authentication requests", retryAfterSeconds);
+        }
+        
+        try {
+            return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new ServiceOverloadedException("Password hashing timed out", retryAfterSeconds);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while hashing password", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+    
+    /**
+     * Picks the BCrypt cost whose hashing time on this machine is closest to the target. Each cost
+     * step doubles the work, so one measurement at the minimum cost is enough to project the rest.
+     */
+    private int calibrateBcryptCost() {
+        BCryptPasswordEncoder probe = new BCryptPasswordEncoder(minBcryptCost);
+        probe.encode(CALIBRATION_PASSWORD);
+        
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < 3; i++) {
+            long start = System.nanoTime();
+            probe.encode(CALIBRATION_PASSWORD);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        
+        double millis = Math.max(best / 1_000_000.0, 0.1);
+        int steps = (int) Math.round(Math.log(targetMillis / millis) / Math.log(2));
+        int cost = Math.clamp(minBcryptCost + steps, minBcryptCost, maxBcryptCost);
+        log.info("Calibrated bcrypt cost {} ({} ms at cost {}, target {} ms)", cost,
+                String.format("%.1f", millis), minBcryptCost, targetMillis);
+        return cost;
+    }
+}
\ No newline at end of file
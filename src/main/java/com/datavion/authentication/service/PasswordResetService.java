@@ -0,0 +1,140 @@
+package com.datavion.authentication.service;
+
+import com.datavion.authentication.entity.PasswordResetToken;
+import com.datavion.authentication.entity.User;
+import com.datavion.authentication.repository.PasswordResetTokenRepository;
+import com.datavion.authentication.repository.RefreshTokenRepository;
+import com.datavion.authentication.repository.UserRepository;
+import com.datavion.authentication.security.AccessTokenRevocationService;
+import com.datavion.authentication.util.SignedTokenUtil;
+import com.datavion.authentication.util.SignedTokenUtil.SignedToken;
+import com.datavion.authentication.util.TokenHashUtil;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PasswordResetService {
+    
+    private final UserRepository userRepository;
+    private final PasswordResetTokenRepository tokenRepository;
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final PasswordEncoder passwordEncoder;
+    private final TokenHashUtil tokenHashUtil;
+    private final SignedTokenUtil signedTokenUtil;
+    private final EmailTokenPolicy tokenPolicy;
+    private final MailOutbox mailOutbox;
+    private final AccessTokenRevocationService revocationService;
+    private final AuditLogService auditLogService;
+    private final TransactionTemplate transactionTemplate;
+    
+    @Value("${app.email.password-reset-url}")
+    private String passwordResetUrl;
+    
+    @Value("${app.email.password-reset-expiration-minutes:30}")
+    private long expirationMinutes;
+    
+    /**
+     * Queues a reset mail for an active local account with this email. Unknown addresses and
+     * directory accounts, whose passwords live in LDAP, are ignored without telling the caller.
+     */
+    @Transactional
+    public void requestReset(String email) {
+        User user = userRepository.findWithRolesByEmailIgnoreCase(email)
+                .filter(candidate -> candidate.getSource() == User.UserSource.LOCAL)
+                .orElse(null);
+        if (user == null) {
+            log.debug("Password reset requested for unknown or non-local email");
+            return;
+        }
+        
+        String token = tokenPolicy.storesTokens(user) ? storeToken(user) : signedTokenUtil.issue(
+                SignedTokenUtil.PURPOSE_PASSWORD_RESET, user.getId(),
+                Instant.now().plus(Duration.ofMinutes(expirationMinutes)), user.getPasswordHash());
+        
+        mailOutbox.enqueue(MailTemplates.PASSWORD_RESET, user.getEmail(), Map.of(
+                "username", user.getUsername(),
+                "link", passwordResetUrl + "?token=" + token,
+                "expiresInMinutes", String.valueOf(expirationMinutes)));
+        auditLogService.success(AuditLogService.ACTION_PASSWORD_RESET_REQUESTED, user.getId());
+    }
+    
+    /**
+     * Sets the new password and ends every session of the account: outstanding reset tokens
+     * (signed ones die with the old password hash), refresh tokens and, once committed, access tokens.
+     * The new password is hashed before the transaction, so a queued hash holds neither a
+     * connection nor the user's row lock.
+     */
+    public void resetPassword(String token, String newPassword) {
+        String passwordHash = passwordEncoder.encode(newPassword);
+        
+        transactionTemplate.executeWithoutResult(status -> {
+            User user = SignedTokenUtil.isSigned(token) ? redeemSigned(token) : redeemStored(token);
+            user.setPasswordHash(passwordHash);
+            tokenRepository.markAllUsedByUser(user);
+            refreshTokenRepository.revokeAllByUser(user);
+            
+            Long userId = user.getId();
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    revocationService.revokeAllForUser(userId);
+                }
+            });
+            
+            auditLogService.success(AuditLogService.ACTION_PASSWORD_RESET, userId);
+            log.info("Password reset for user: {}", user.getUsername());
+        });
+    }
+    
+    private String storeToken(User user) {
+        String token = tokenHashUtil.generateOpaqueToken();
+        tokenRepository.save(PasswordResetToken.builder()
+                .token(tokenHashUtil.hash(token))
+                .user(user)
+                .expiresAt(LocalDateTime.now().plusMinutes(expirationMinutes))
+                .build());
+        return token;
+    }
+    
+    private User redeemStored(String token) {
+        PasswordResetToken stored = tokenRepository.findByTokenWithUser(tokenHashUtil.hash(token))
+                .orElseThrow(() -> new RuntimeException("Invalid password reset token"));
+        
+        if (!stored.isValid()) {
+            throw new RuntimeException("Password reset token is expired or already used");
+        }
+        return stored.getUser();
+    }
+    
+    /**
+     * The token is signed over the password hash it was issued against, so the reset it performs,
+     * or any other password change, invalidates it.
+     */
+    private User redeemSigned(String token) {
+        SignedToken signed = signedTokenUtil.decode(token, SignedTokenUtil.PURPOSE_PASSWORD_RESET)
+                .orElseThrow(() -> new RuntimeException("Invalid password reset token"));
+        if (signed.isExpired(Instant.now())) {
+            throw new RuntimeException("Password reset token is expired or already used");
+        }
+        
+        // Locked so a concurrent use of the same link waits and then sees the new password hash
+        return userRepository.findForUpdateById(signed.userId())
+                .filter(candidate -> candidate.getSource() == User.UserSource.LOCAL
+                        && signedTokenUtil.verify(signed, candidate.getPasswordHash()))
+                .orElseThrow(() -> new RuntimeException("Password reset token is expired or already used"));
+    }
+}
\ No newline at end of file
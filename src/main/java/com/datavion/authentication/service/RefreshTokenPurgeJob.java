@@ -0,0 +1,99 @@
+package com.datavion.authentication.service;
+
+import com.datavion.authentication.repository.RefreshTokenRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Deletes expired and revoked refresh tokens in small chunks, each in its own transaction, so the
+ * purge never holds long locks or builds one huge WAL burst. Only the replica holding the lease runs.
+ *
+ * <p>Publishes {@code auth.refresh_tokens.purged} (rows deleted) and {@code auth.refresh_tokens.purge.lag}
+ * (seconds since the oldest still-present token expired, 0 when the backlog is clear).
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RefreshTokenPurgeJob {
+    
+    static final String LEASE_NAME = "refresh-token-purge";
+    
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final SchedulerLeaseService leaseService;
+    private final MeterRegistry meterRegistry;
+    
+    @Value("${app.jobs.refresh-token-purge.enabled:true}")
+    private boolean enabled;
+    
+    @Value("${app.jobs.refresh-token-purge.chunk-size:1000}")
+    private int chunkSize;
+    
+    @Value("${app.jobs.refresh-token-purge.max-chunks-per-run:200}")
+    private int maxChunksPerRun;
+    
+    @Value("${app.jobs.refresh-token-purge.lease-seconds:240}")
+    private long leaseSeconds;
+    
+    private Counter purgedCounter;
+    
+    private final AtomicLong lagSeconds = new AtomicLong();
+    
+    @PostConstruct
+    void init() {
+        purgedCounter = Counter.builder("auth.refresh_tokens.purged")
+                .description("Expired or revoked refresh tokens deleted by the purge job")
+                .register(meterRegistry);
+        Gauge.builder("auth.refresh_tokens.purge.lag", lagSeconds, AtomicLong::get)
+                .description("Seconds since the oldest remaining refresh token expired")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+    
+    @Scheduled(fixedDelayString = "${app.jobs.refresh-token-purge.interval-millis:300000}",
+            initialDelayString = "${app.jobs.refresh-token-purge.initial-delay-millis:60000}")
+    public void purge() {
+        if (!enabled || !leaseService.tryAcquire(LEASE_NAME, Duration.ofSeconds(leaseSeconds))) {
+            return;
+        }
+        
+        try {
+            long deadline = System.nanoTime() + Duration.ofSeconds(leaseSeconds).toNanos() / 2;
+            long total = 0;
+            for (int chunk = 0; chunk < maxChunksPerRun && System.nanoTime() < deadline; chunk++) {
+                int deleted = refreshTokenRepository.purgeChunk(LocalDateTime.now(), chunkSize);
+                total += deleted;
+                purgedCounter.increment(deleted);
+                if (deleted < chunkSize) {
+                    break;
+                }
+            }
+            
+            updateLag();
+            if (total > 0) {
+                log.info("Purged {} refresh tokens", total);
+            }
+        } catch (RuntimeException e) {
+            log.error("Refresh token purge failed", e);
+        } finally {
+            leaseService.release(LEASE_NAME);
+        }
+    }
+    
+    private void updateLag() {
+        LocalDateTime now = LocalDateTime.now();
+        lagSeconds.set(refreshTokenRepository.findOldestExpiry(now)
+                .map(oldest -> Duration.between(oldest, now).toSeconds())
+                .orElse(0L));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,63 @@
+package com.datavion.authentication.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.net.InetAddress;
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * Cluster-wide leases backed by the {@code scheduler_leases} table. A single upsert either takes a
+ * free or expired lease, renews one this instance already holds, or changes nothing, so replicas
+ * never need to coordinate beyond the database they already share.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SchedulerLeaseService {
+    
+    private static final String ACQUIRE_SQL = """
+            INSERT INTO scheduler_leases (name, owner, expires_at)
+            VALUES (?, ?, LOCALTIMESTAMP + make_interval(secs => ?))
+            ON CONFLICT (name) DO UPDATE
+            SET owner = EXCLUDED.owner, expires_at = EXCLUDED.expires_at
+            WHERE scheduler_leases.expires_at < LOCALTIMESTAMP OR scheduler_leases.owner = EXCLUDED.owner
+            """;
+    
+    private static final String RELEASE_SQL =
+            "UPDATE scheduler_leases SET expires_at = LOCALTIMESTAMP WHERE name = ? AND owner = ?";
+    
+    private final JdbcTemplate jdbcTemplate;
+    
+    private final String owner = resolveOwner();
+    
+    public boolean tryAcquire(String name, Duration duration) {
+        return jdbcTemplate.update(ACQUIRE_SQL, name, owner, (double) duration.toSeconds()) > 0;
+    }
+    
+    public void release(String name) {
+        try {
+            jdbcTemplate.update(RELEASE_SQL, name, owner);
+        } catch (RuntimeException e) {
+            // The lease simply runs out on its own
+            log.warn("Failed to release lease {}: {}", name, e.getMessage());
+        }
+    }
+    
+    public String getOwner() {
+        return owner;
+    }
+    
+    private static String resolveOwner() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            host = "unknown";
+        }
+        return host + "/" + UUID.randomUUID();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,210 @@
+package com.datavion.authentication.service;
+
+import com.datavion.authentication.entity.KeyRingEntry;
+import com.datavion.authentication.repository.KeyRingEntryRepository;
+import com.datavion.authentication.security.AsymmetricSigningKeyProvider;
+import com.datavion.authentication.security.KeyMaterialCipher;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Advances the signing key ring in {@code signing_keys}. Only the instance holding the rotation
+ * lease changes the ring; every change is announced on {@link #RELOAD_CHANNEL} so all instances
+ * reload it.
+ *
+ * <p>A key is created as NEXT and published in the JWKS document for at least
+ * {@code publish-ahead-minutes} before it is promoted, so verifiers already hold it when the first
+ * token signed with it arrives. The key it replaces becomes RETIRING and keeps verifying until every
+ * token it signed has expired, so a rotation never invalidates a live session.
+ */
+@Service
+@ConditionalOnProperty(name = "app.jwt.signing.key-source", havingValue = "ring")
+@RequiredArgsConstructor
+@Slf4j
+public class SigningKeyRotationService {
+    
+    public static final String RELOAD_CHANNEL = "dauth:keyring:reload";
+    
+    static final String LEASE_NAME = "signing-key-rotation";
+    
+    private static final DateTimeFormatter KID_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss");
+    private static final Duration LEASE_DURATION = Duration.ofMinutes(1);
+    private static final int BOOTSTRAP_ATTEMPTS = 30;
+    private static final String HS256 = "HS256";
+    private static final int HMAC_SECRET_BYTES = 32;
+    
+    private final KeyRingEntryRepository keyRingEntryRepository;
+    private final SchedulerLeaseService leaseService;
+    private final KeyMaterialCipher keyMaterialCipher;
+    private final StringRedisTemplate redisTemplate;
+    private final TransactionTemplate transactionTemplate;
+    
+    private final SecureRandom secureRandom = new SecureRandom();
+    
+    @Value("${app.jwt.signing.algorithm:HS256}")
+    private String algorithm;
+    
+    @Value("${app.jwt.access-token-expiration}")
+    private long accessTokenExpiration;
+    
+    @Value("${app.jwt.signing.ring.rotation-interval-hours:168}")
+    private long rotationIntervalHours;
+    
+    @Value("${app.jwt.signing.ring.publish-ahead-minutes:30}")
+    private long publishAheadMinutes;
+    
+    @Value("${app.jwt.signing.ring.retire-grace-minutes:5}")
+    private long retireGraceMinutes;
+    
+    @Scheduled(fixedDelayString = "${app.jwt.signing.ring.check-interval-millis:300000}",
+            initialDelayString = "${app.jwt.signing.ring.check-interval-millis:300000}")
+    public void rotateIfDue() {
+        if (!leaseService.tryAcquire(LEASE_NAME, LEASE_DURATION)) {
+            return;
+        }
+        
+        try {
+            if (Boolean.TRUE.equals(transactionTemplate.execute(status -> advance(LocalDateTime.now())))) {
+                redisTemplate.convertAndSend(RELOAD_CHANNEL, "reload");
+            }
+        } catch (RuntimeException e) {
+            log.error("Signing key rotation failed", e);
+        } finally {
+            leaseService.release(LEASE_NAME);
+        }
+    }
+    
+    /**
+     * Makes sure the ring has an active key, creating one if this instance gets the lease or
+     * waiting for the instance that has it.
+     */
+    public void bootstrap() {
+        for (int attempt = 0; attempt < BOOTSTRAP_ATTEMPTS; attempt++) {
+            if (hasActiveKey()) {
+                return;
+            }
+            rotateIfDue();
+            if (hasActiveKey()) {
+                return;
+            }
+            try {
+                Thread.sleep(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        throw new IllegalStateException("No active signing key in the key ring");
+    }
+    
+    /**
+     * Moves the ring one step forward if anything is due.
+     *
+     * @return whether the ring changed
+     */
+    boolean advance(LocalDateTime now) {
+        List<KeyRingEntry> entries = keyRingEntryRepository.findAll();
+        Optional<KeyRingEntry> active = find(entries, KeyRingEntry.State.ACTIVE);
+        Optional<KeyRingEntry> next = find(entries, KeyRingEntry.State.NEXT);
+        boolean changed = false;
+        
+        if (active.isEmpty()) {
+            KeyRingEntry first = newKey(KeyRingEntry.State.ACTIVE, now);
+            first.setActivatedAt(now);
+            keyRingEntryRepository.saveAndFlush(first);
+            log.info("Created initial signing key {}", first.getKid());
+            changed = true;
+        }
+        
+        if (next.isEmpty()) {
+            KeyRingEntry created = keyRingEntryRepository.save(newKey(KeyRingEntry.State.NEXT, now));
+            log.info("Published next signing key {}", created.getKid());
+            changed = true;
+        } else if (active.isPresent() && isDue(active.get(), next.get(), now)) {
+            KeyRingEntry retiring = active.get();
+            retiring.setState(KeyRingEntry.State.RETIRING);
+            retiring.setRetireAt(now.plus(Duration.ofMillis(accessTokenExpiration)).plusMinutes(retireGraceMinutes));
+            // Flushed first so the single-ACTIVE index never sees two active keys
+            keyRingEntryRepository.saveAndFlush(retiring);
+            
+            KeyRingEntry promoted = next.get();
+            promoted.setState(KeyRingEntry.State.ACTIVE);
+            promoted.setActivatedAt(now);
+            keyRingEntryRepository.saveAndFlush(promoted);
+            
+            KeyRingEntry created = keyRingEntryRepository.save(newKey(KeyRingEntry.State.NEXT, now));
+            log.info("Rotated signing key {} -> {}, next is {}", retiring.getKid(), promoted.getKid(), created.getKid());
+            changed = true;
+        }
+        
+        for (KeyRingEntry entry : entries) {
+            if (entry.getState() == KeyRingEntry.State.RETIRING && entry.getRetireAt().isBefore(now)) {
+                keyRingEntryRepository.delete(entry);
+                log.info("Removed retired signing key {}", entry.getKid());
+                changed = true;
+            }
+        }
+        
+        return changed;
+    }
+    
+    private boolean isDue(KeyRingEntry active, KeyRingEntry next, LocalDateTime now) {
+        return !active.getActivatedAt().plusHours(rotationIntervalHours).isAfter(now)
+                && !next.getCreatedAt().plusMinutes(publishAheadMinutes).isAfter(now);
+    }
+    
+    private boolean hasActiveKey() {
+        return find(keyRingEntryRepository.findAll(), KeyRingEntry.State.ACTIVE).isPresent();
+    }
+    
+    private KeyRingEntry newKey(KeyRingEntry.State state, LocalDateTime now) {
+        byte[] suffix = new byte[3];
+        secureRandom.nextBytes(suffix);
+        String kid = KID_TIMESTAMP.format(now) + "-" + HexFormat.of().formatHex(suffix);
+        
+        byte[] publicKey;
+        byte[] privateKey;
+        if (HS256.equalsIgnoreCase(algorithm)) {
+            publicKey = null;
+            privateKey = new byte[HMAC_SECRET_BYTES];
+            secureRandom.nextBytes(privateKey);
+        } else {
+            try {
+                KeyPair keyPair = AsymmetricSigningKeyProvider.Algorithm.valueOf(algorithm).generateKeyPair();
+                publicKey = keyPair.getPublic().getEncoded();
+                privateKey = keyPair.getPrivate().getEncoded();
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("Cannot generate " + algorithm + " signing key", e);
+            }
+        }
+        
+        return KeyRingEntry.builder()
+                .kid(kid)
+                .algorithm(HS256.equalsIgnoreCase(algorithm) ? HS256 : algorithm)
+                .state(state)
+                .publicKey(publicKey)
+                .privateKey(keyMaterialCipher.encrypt(privateKey, kid))
+                .createdAt(now)
+                .build();
+    }
+    
+    private static Optional<KeyRingEntry> find(List<KeyRingEntry> entries, KeyRingEntry.State state) {
+        return entries.stream().filter(entry -> entry.getState() == state).findFirst();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,44 @@
+package com.datavion.authentication.service;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+
+/**
+ * Position in the user listing: the {@code (created_at, id)} of the last row a page returned.
+ * Encoded as URL-safe base64 so clients treat it as opaque and the sort key can change later.
+ */
+record UserCursor(LocalDateTime createdAt, long id) {
+    
+    private static final byte VERSION = 1;
+    private static final LocalDateTime EPOCH = LocalDateTime.of(1970, 1, 1, 0, 0);
+    
+    String encode() {
+        ByteBuffer buffer = ByteBuffer.allocate(17)
+                .put(VERSION)
+                .putLong(ChronoUnit.MICROS.between(EPOCH, createdAt))
+                .putLong(id);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+    }
+    
+    static UserCursor decode(String token) {
+        byte[] bytes;
+        try {
+            bytes = Base64.getUrlDecoder().decode(token.getBytes(StandardCharsets.US_ASCII));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        if (bytes.length != 17 || bytes[0] != VERSION) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        
+        ByteBuffer buffer = ByteBuffer.wrap(bytes, 1, 16);
+        long micros = buffer.getLong();
+        LocalDateTime createdAt = LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000L),
+                (int) Math.floorMod(micros, 1_000_000L) * 1000, ZoneOffset.UTC);
+        return new UserCursor(createdAt, buffer.getLong());
+    }
+}
\ No newline at end of file
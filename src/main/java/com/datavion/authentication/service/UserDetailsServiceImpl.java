@@ -2,26 +2,64 @@ package com.datavion.authentication.service;
 
 import com.datavion.authentication.entity.User;
 import com.datavion.authentication.repository.UserRepository;
+import com.datavion.authentication.security.PrincipalCache;
+import com.datavion.authentication.security.PrincipalSnapshot;
+import com.datavion.authentication.security.RoleAuthorityRegistry;
 import com.datavion.authentication.security.UserPrincipal;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
+
 @Service
 @RequiredArgsConstructor
-public class UserDetailsServiceImpl implements UserDetailsService {
+public class UserDetailsServiceImpl implements UserDetailsService, UserDetailsPasswordService {
     
     private final UserRepository userRepository;
+    private final PrincipalCache principalCache;
+    private final RoleAuthorityRegistry roleAuthorityRegistry;
     
     @Override
-    @Transactional(readOnly = true)
     public UserDetails loadUserByUsername(String usernameOrEmail) throws UsernameNotFoundException {
-        User user = userRepository.findByUsernameOrEmailAndDeletedAtIsNull(usernameOrEmail)
+        return principalCache.get(usernameOrEmail, this::loadSnapshot).toPrincipal(roleAuthorityRegistry);
+    }
+    
+    /**
+     * For the password check. Snapshots shared through Redis carry no password hash, so one that
+     * came from there is re-read from the database.
+     */
+    public UserDetails loadUserWithPassword(String usernameOrEmail) throws UsernameNotFoundException {
+        PrincipalSnapshot snapshot = principalCache.get(usernameOrEmail, this::loadSnapshot);
+        if (snapshot.passwordHash() == null) {
+            snapshot = loadSnapshot(usernameOrEmail);
+        }
+        return snapshot.toPrincipal(roleAuthorityRegistry);
+    }
+    
+    /**
+     * Stores a rehashed password after a successful login with an outdated encoding.
+     */
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails userDetails, String newPassword) {
+        User user = ((UserPrincipal) userDetails).getUser();
+        userRepository.updatePasswordHash(user.getId(), newPassword);
+        principalCache.evict(List.of(user.getUsername(), user.getEmail()));
+        
+        user.setPasswordHash(newPassword);
+        return userDetails;
+    }
+    
+    private PrincipalSnapshot loadSnapshot(String usernameOrEmail) {
+        // Roles are fetched with the user, so the snapshot needs no open session
+        User user = userRepository.findWithRolesByUsernameOrEmail(usernameOrEmail)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found: " + usernameOrEmail));
         
-        return new UserPrincipal(user);
+        return PrincipalSnapshot.of(user);
     }
 }
\ No newline at end of file
@@ -0,0 +1,183 @@
+package com.datavion.authentication.service;
+
+import com.datavion.authentication.entity.UserImportJob;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Streams rows out of a spooled import file one line at a time, so memory use depends on the chunk
+ * size and not on the file. CSV files start with a header naming the {@code username},
+ * {@code email} and {@code password} (or {@code password_hash}) columns in any order; NDJSON lines
+ * are objects with the same fields, {@code passwordHash} for pre-hashed imports. Quoted CSV fields
+ * may contain commas and doubled quotes but not line breaks.
+ */
+class UserImportReader implements Closeable {
+    
+    record ImportRow(long lineNumber, String username, String email, String password, String error) {
+        
+        static ImportRow invalid(long lineNumber, String error) {
+            return new ImportRow(lineNumber, null, null, null, error);
+        }
+    }
+    
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    
+    private final BufferedReader reader;
+    private final UserImportJob.Format format;
+    private final String passwordField;
+    
+    private long lineNumber;
+    private int usernameColumn = -1;
+    private int emailColumn = -1;
+    private int passwordColumn = -1;
+    
+    UserImportReader(BufferedReader reader, UserImportJob.Format format, boolean preHashed) throws IOException {
+        this.reader = reader;
+        this.format = format;
+        if (format == UserImportJob.Format.CSV) {
+            this.passwordField = preHashed ? "password_hash" : "password";
+            readHeader();
+        } else {
+            this.passwordField = preHashed ? "passwordHash" : "password";
+        }
+    }
+    
+    static UserImportReader open(Path file, UserImportJob.Format format, boolean preHashed) throws IOException {
+        return new UserImportReader(Files.newBufferedReader(file, StandardCharsets.UTF_8), format, preHashed);
+    }
+    
+    /**
+     * Lines consumed so far, header included. After a chunk this is the checkpoint to record.
+     */
+    long getLinesRead() {
+        return lineNumber;
+    }
+    
+    /**
+     * Skips forward to just after {@code checkpoint}, the lines a previous run already committed.
+     */
+    void skipTo(long checkpoint) throws IOException {
+        while (lineNumber < checkpoint && reader.readLine() != null) {
+            lineNumber++;
+        }
+    }
+    
+    /**
+     * Reads up to {@code limit} rows, skipping blank lines; an empty list means the file is done.
+     */
+    List<ImportRow> readChunk(int limit) throws IOException {
+        List<ImportRow> rows = new ArrayList<>(limit);
+        String line;
+        while (rows.size() < limit && (line = reader.readLine()) != null) {
+            lineNumber++;
+            if (!line.isBlank()) {
+                rows.add(format == UserImportJob.Format.CSV ? parseCsv(line) : parseJson(line));
+            }
+        }
+        return rows;
+    }
+    
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+    
+    private void readHeader() throws IOException {
+        String header = reader.readLine();
+        if (header == null) {
+            return;
+        }
+        lineNumber++;
+        
+        List<String> columns = splitCsv(header.startsWith("\uFEFF") ? header.substring(1) : header);
+        for (int i = 0; i < columns.size(); i++) {
+            String column = columns.get(i).trim().toLowerCase(Locale.ROOT);
+            if (column.equals("username")) {
+                usernameColumn = i;
+            } else if (column.equals("email")) {
+                emailColumn = i;
+            } else if (column.equals(passwordField)) {
+                passwordColumn = i;
+            }
+        }
+        if (usernameColumn < 0 || emailColumn < 0 || passwordColumn < 0) {
+            throw new IllegalArgumentException("CSV header must name username, email and " + passwordField + " columns");
+        }
+    }
+    
+    private ImportRow parseCsv(String line) {
+        List<String> fields = splitCsv(line);
+        if (fields == null) {
+            return ImportRow.invalid(lineNumber, "Unterminated quoted field");
+        }
+        return new ImportRow(lineNumber, field(fields, usernameColumn), field(fields, emailColumn),
+                field(fields, passwordColumn), null);
+    }
+    
+    private ImportRow parseJson(String line) {
+        try {
+            JsonNode json = OBJECT_MAPPER.readTree(line);
+            if (!json.isObject()) {
+                return ImportRow.invalid(lineNumber, "Line is not a JSON object");
+            }
+            return new ImportRow(lineNumber, text(json, "username"), text(json, "email"), text(json, passwordField), null);
+        } catch (IOException e) {
+            return ImportRow.invalid(lineNumber, "Malformed JSON");
+        }
+    }
+    
+    private static String field(List<String> fields, int column) {
+        return column < fields.size() ? fields.get(column) : null;
+    }
+    
+    private static String text(JsonNode json, String field) {
+        JsonNode value = json.get(field);
+        return value != null && value.isTextual() ? value.asText() : null;
+    }
+    
+    /**
+     * Splits one CSV record, or returns {@code null} when a quoted field is not closed.
+     */
+    static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        
+        if (quoted) {
+            return null;
+        }
+        fields.add(current.toString());
+        return fields;
+    }
+}
\ No newline at end of file
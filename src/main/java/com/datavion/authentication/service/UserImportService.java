@@ -0,0 +1,365 @@
+package com.datavion.authentication.service;
+
+import com.datavion.authentication.dto.RegisterRequest;
+import com.datavion.authentication.dto.UserImportErrorResponse;
+import com.datavion.authentication.dto.UserImportJobResponse;
+import com.datavion.authentication.entity.Role;
+import com.datavion.authentication.entity.UserImportJob;
+import com.datavion.authentication.repository.RoleRepository;
+import com.datavion.authentication.repository.UserImportJobRepository;
+import com.datavion.authentication.util.LoginIdentifierUtil;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.CharacterCodingException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+import java.util.regex.Pattern;
+
+/**
+ * Bulk user creation for tenant onboarding. An upload is spooled to disk and processed in the
+ * background in chunks: rows are validated with the {@link RegisterRequest} constraints, checked
+ * for duplicates with one query per chunk, hashed in parallel on a dedicated fork-join pool and
+ * written by {@link UserImportWriter} together with the job's checkpoint. A job interrupted by a
+ * restart, a crash or a database error is picked up again by whichever instance gets its lease and
+ * resumes after the last committed chunk; only an unusable upload fails the job.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class UserImportService {
+    
+    static final String LEASE_PREFIX = "user-import:";
+    
+    private static final String DEFAULT_ROLE = "USER";
+    private static final int MAX_ERROR_MESSAGE_LENGTH = 1000;
+    
+    // At a calibrated ~250 ms per hash, a few seconds of work between lease renewals
+    private static final int HASHES_PER_THREAD_PER_RENEWAL = 16;
+    private static final List<UserImportJob.Status> OPEN_STATUSES =
+            List.of(UserImportJob.Status.PENDING, UserImportJob.Status.RUNNING);
+    
+    // Encodings PasswordHashingService can verify: prefixed ids, or legacy bare BCrypt
+    private static final Pattern SUPPORTED_HASH =
+            Pattern.compile("^(\\{(bcrypt|argon2)}.+|\\$2[aby]\\$\\d{2}\\$[./A-Za-z0-9]{53})$");
+    
+    private final UserImportJobRepository jobRepository;
+    private final UserImportWriter writer;
+    private final RoleRepository roleRepository;
+    private final SchedulerLeaseService leaseService;
+    private final PasswordHashingService passwordHashingService;
+    private final AuditLogService auditLogService;
+    private final Validator validator;
+    
+    @Value("${app.user-import.spool-dir:./data/imports}")
+    private String spoolDir;
+    
+    @Value("${app.user-import.max-file-size-mb:1024}")
+    private long maxFileSizeMb;
+    
+    @Value("${app.user-import.chunk-size:1000}")
+    private int chunkSize;
+    
+    @Value("${app.user-import.hash-parallelism:0}")
+    private int hashParallelism;
+    
+    @Value("${app.user-import.lease-seconds:120}")
+    private long leaseSeconds;
+    
+    private ForkJoinPool hashPool;
+    
+    private static final class LeaseLostException extends IllegalStateException {
+        
+        LeaseLostException(String message) {
+            super(message);
+        }
+    }
+    
+    @PostConstruct
+    void init() {
+        int parallelism = hashParallelism > 0 ? hashParallelism : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        hashPool = new ForkJoinPool(parallelism);
+    }
+    
+    @PreDestroy
+    void shutdown() {
+        hashPool.shutdownNow();
+    }
+    
+    /**
+     * Spools the upload and queues the job; processing starts on the next poll.
+     */
+    public UserImportJobResponse submit(InputStream body, UserImportJob.Format format, boolean preHashed,
+                                        Long tenantId, Long createdBy) throws IOException {
+        Path directory = Path.of(spoolDir);
+        Files.createDirectories(directory);
+        Path spoolFile = directory.resolve("import-" + UUID.randomUUID() + "." + format.name().toLowerCase(Locale.ROOT));
+        
+        long maxBytes = maxFileSizeMb * 1024 * 1024;
+        try (OutputStream out = Files.newOutputStream(spoolFile)) {
+            byte[] buffer = new byte[64 * 1024];
+            long total = 0;
+            int read;
+            while ((read = body.read(buffer)) != -1) {
+                total += read;
+                if (total > maxBytes) {
+                    throw new IllegalArgumentException("Import file exceeds " + maxFileSizeMb + " MB");
+                }
+                out.write(buffer, 0, read);
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(spoolFile);
+            throw e;
+        }
+        
+        UserImportJob job = jobRepository.save(UserImportJob.builder()
+                .format(format)
+                .preHashed(preHashed)
+                .tenantId(tenantId)
+                .spoolPath(spoolFile.toAbsolutePath().toString())
+                .status(UserImportJob.Status.PENDING)
+                .createdBy(createdBy)
+                .createdAt(LocalDateTime.now())
+                .build());
+        
+        log.info("Queued user import {} ({} bytes, {})", job.getId(), Files.size(spoolFile), format);
+        return mapToResponse(job);
+    }
+    
+    public UserImportJobResponse getJob(Long id) {
+        return jobRepository.findById(id)
+                .map(this::mapToResponse)
+                .orElseThrow(() -> new RuntimeException("Import job not found"));
+    }
+    
+    public List<UserImportErrorResponse> getErrors(Long id, long afterLine, int limit) {
+        if (!jobRepository.existsById(id)) {
+            throw new RuntimeException("Import job not found");
+        }
+        return writer.findErrors(id, afterLine, Math.min(Math.max(limit, 1), 1000));
+    }
+    
+    @Scheduled(fixedDelayString = "${app.user-import.poll-interval-millis:5000}")
+    public void processOpenJobs() {
+        for (UserImportJob job : jobRepository.findByStatusInOrderByIdAsc(OPEN_STATUSES)) {
+            String lease = LEASE_PREFIX + job.getId();
+            if (!Files.exists(Path.of(job.getSpoolPath())) || !leaseService.tryAcquire(lease, leaseDuration())) {
+                // Another instance is on it, or holds the spool file on storage this one cannot see
+                continue;
+            }
+            try {
+                run(job);
+            } finally {
+                leaseService.release(lease);
+            }
+        }
+    }
+    
+    void run(UserImportJob job) {
+        job.setStatus(UserImportJob.Status.RUNNING);
+        job.setUpdatedAt(LocalDateTime.now());
+        jobRepository.save(job);
+        
+        Role role = roleRepository.findByName(DEFAULT_ROLE)
+                .orElseThrow(() -> new RuntimeException("Default USER role not found"));
+        Path spoolFile = Path.of(job.getSpoolPath());
+        
+        try (UserImportReader reader = UserImportReader.open(spoolFile, job.getFormat(), job.getPreHashed())) {
+            reader.skipTo(job.getLinesProcessed());
+            long checkpoint = job.getLinesProcessed();
+            long imported = 0;
+            
+            List<UserImportReader.ImportRow> rows;
+            while (!(rows = reader.readChunk(chunkSize)).isEmpty()) {
+                List<UserImportWriter.RowError> errors = new ArrayList<>();
+                List<UserImportReader.ImportRow> accepted = deduplicate(validate(rows, job.getPreHashed(), errors), errors);
+                List<UserImportWriter.NewUser> users = hash(job, accepted);
+                
+                imported += writer.commitChunk(job.getId(), users, role.getId(), job.getTenantId(), errors,
+                        checkpoint, reader.getLinesRead());
+                checkpoint = reader.getLinesRead();
+                renewLease(job);
+            }
+            
+            writer.finish(job.getId(), UserImportJob.Status.COMPLETED.name(), null);
+            auditLogService.success(AuditLogService.ACTION_USER_IMPORT, job.getCreatedBy(),
+                    Map.of("jobId", job.getId(), "imported", imported));
+            log.info("User import {} completed, {} users imported in this run", job.getId(), imported);
+        } catch (LeaseLostException | UserImportWriter.CheckpointMovedException e) {
+            // Another instance owns the job now and keeps the spool
+            log.warn("Stopped user import {}: {}", job.getId(), e.getMessage());
+            return;
+        } catch (IllegalArgumentException | CharacterCodingException e) {
+            // The upload itself is unusable, so retrying cannot help
+            log.error("User import {} failed", job.getId(), e);
+            String reason = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+            writer.finish(job.getId(), UserImportJob.Status.FAILED.name(),
+                    reason.length() <= MAX_ERROR_MESSAGE_LENGTH ? reason : reason.substring(0, MAX_ERROR_MESSAGE_LENGTH));
+            auditLogService.failure(AuditLogService.ACTION_USER_IMPORT, job.getCreatedBy(),
+                    Map.of("jobId", job.getId(), "reason", reason));
+        } catch (IOException | RuntimeException e) {
+            // A database or lease-table outage; the spool stays and the next poll resumes after the checkpoint
+            log.warn("User import {} interrupted, will resume after its last checkpoint: {}",
+                    job.getId(), e.getMessage());
+            requeue(job);
+            return;
+        }
+        
+        try {
+            Files.deleteIfExists(spoolFile);
+        } catch (IOException e) {
+            log.warn("Could not delete import spool file {}: {}", spoolFile, e.getMessage());
+        }
+    }
+    
+    private void requeue(UserImportJob job) {
+        try {
+            writer.requeue(job.getId());
+        } catch (RuntimeException e) {
+            // RUNNING is still an open status, so the job is picked up again either way
+            log.debug("Could not mark user import {} pending: {}", job.getId(), e.getMessage());
+        }
+    }
+    
+    private List<UserImportReader.ImportRow> validate(List<UserImportReader.ImportRow> rows, boolean preHashed,
+                                                      List<UserImportWriter.RowError> errors) {
+        List<UserImportReader.ImportRow> valid = new ArrayList<>(rows.size());
+        for (UserImportReader.ImportRow row : rows) {
+            if (row.error() != null) {
+                errors.add(new UserImportWriter.RowError(row.lineNumber(), row.error(), false));
+                continue;
+            }
+            
+            RegisterRequest request = new RegisterRequest();
+            request.setUsername(row.username());
+            request.setEmail(row.email());
+            request.setPassword(row.password());
+            
+            Set<ConstraintViolation<RegisterRequest>> violations = new LinkedHashSet<>();
+            violations.addAll(validator.validateProperty(request, "username"));
+            violations.addAll(validator.validateProperty(request, "email"));
+            if (!preHashed) {
+                violations.addAll(validator.validateProperty(request, "password"));
+            }
+            
+            if (!violations.isEmpty()) {
+                errors.add(new UserImportWriter.RowError(row.lineNumber(), violations.stream()
+                        .map(ConstraintViolation::getMessage)
+                        .sorted()
+                        .reduce((a, b) -> a + "; " + b)
+                        .orElseThrow(), false));
+            } else if (preHashed && (row.password() == null || !SUPPORTED_HASH.matcher(row.password()).matches())) {
+                errors.add(new UserImportWriter.RowError(row.lineNumber(), "Unsupported password hash format", false));
+            } else {
+                valid.add(row);
+            }
+        }
+        return valid;
+    }
+    
+    /**
+     * Drops rows whose username or email is already taken or repeats an earlier row of the chunk.
+     * Earlier chunks are committed by now, so the database check also catches repeats across chunks.
+     */
+    private List<UserImportReader.ImportRow> deduplicate(List<UserImportReader.ImportRow> rows,
+                                                         List<UserImportWriter.RowError> errors) {
+        if (rows.isEmpty()) {
+            return rows;
+        }
+        
+        UserImportWriter.Taken taken = writer.findTaken(
+                rows.stream().map(UserImportReader.ImportRow::username).toList(),
+                rows.stream().map(UserImportReader.ImportRow::email).toList());
+        Set<String> usernames = new HashSet<>(taken.usernames());
+        Set<String> emails = new HashSet<>(taken.emails());
+        
+        List<UserImportReader.ImportRow> unique = new ArrayList<>(rows.size());
+        for (UserImportReader.ImportRow row : rows) {
+            String username = LoginIdentifierUtil.normalize(row.username());
+            if (!usernames.add(username)) {
+                errors.add(new UserImportWriter.RowError(row.lineNumber(), "Username already exists", true));
+            } else if (!emails.add(LoginIdentifierUtil.normalize(row.email()))) {
+                usernames.remove(username);
+                errors.add(new UserImportWriter.RowError(row.lineNumber(), "Email already exists", true));
+            } else {
+                unique.add(row);
+            }
+        }
+        return unique;
+    }
+    
+    /**
+     * Hashes in slices of a few seconds' work each and renews the lease between them, so a large
+     * chunk on few cores cannot outlast the lease.
+     */
+    private List<UserImportWriter.NewUser> hash(UserImportJob job, List<UserImportReader.ImportRow> rows) {
+        if (job.getPreHashed()) {
+            return rows.stream()
+                    .map(row -> new UserImportWriter.NewUser(row.lineNumber(), row.username(), row.email(), row.password()))
+                    .toList();
+        }
+        
+        // The request-path pool is bounded for interactive latency; bulk hashing uses its own pool
+        PasswordEncoder encoder = passwordHashingService.unboundedEncoder();
+        int sliceSize = hashPool.getParallelism() * HASHES_PER_THREAD_PER_RENEWAL;
+        List<UserImportWriter.NewUser> users = new ArrayList<>(rows.size());
+        for (int from = 0; from < rows.size(); from += sliceSize) {
+            renewLease(job);
+            List<UserImportReader.ImportRow> slice = rows.subList(from, Math.min(from + sliceSize, rows.size()));
+            users.addAll(hashPool.submit(() -> slice.parallelStream()
+                    .map(row -> new UserImportWriter.NewUser(row.lineNumber(), row.username(), row.email(),
+                            encoder.encode(row.password())))
+                    .toList()).join());
+        }
+        return users;
+    }
+    
+    private void renewLease(UserImportJob job) {
+        if (!leaseService.tryAcquire(LEASE_PREFIX + job.getId(), leaseDuration())) {
+            throw new LeaseLostException("Lost the lease on user import " + job.getId());
+        }
+    }
+    
+    private Duration leaseDuration() {
+        return Duration.ofSeconds(leaseSeconds);
+    }
+    
+    private UserImportJobResponse mapToResponse(UserImportJob job) {
+        return UserImportJobResponse.builder()
+                .id(job.getId())
+                .status(job.getStatus().name())
+                .format(job.getFormat().name())
+                .preHashed(job.getPreHashed())
+                .linesProcessed(job.getLinesProcessed())
+                .rowsImported(job.getRowsImported())
+                .rowsSkipped(job.getRowsSkipped())
+                .rowsFailed(job.getRowsFailed())
+                .errorMessage(job.getErrorMessage())
+                .createdAt(job.getCreatedAt())
+                .updatedAt(job.getUpdatedAt())
+                .finishedAt(job.getFinishedAt())
+                .build();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,177 @@
+package com.datavion.authentication.service;
+
+import com.datavion.authentication.dto.UserImportErrorResponse;
+import com.datavion.authentication.util.LoginIdentifierUtil;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * JDBC side of the user import. Users of a chunk go in with one set-based INSERT over
+ * {@code unnest} arrays and their roles with a second one, so a chunk costs a handful of
+ * round trips regardless of its size, and the job checkpoint is committed with them.
+ */
+@Component
+@RequiredArgsConstructor
+public class UserImportWriter {
+    
+    private static final String EXISTING_SQL =
+            "SELECT lower(username), lower(email) FROM users "
+            + "WHERE (lower(username) = ANY(?) OR lower(email) = ANY(?)) AND deleted_at IS NULL";
+    
+    // ON CONFLICT covers registrations that land between the duplicate check and this insert
+    private static final String INSERT_USERS_SQL = """
+            INSERT INTO users (id, username, email, password_hash, email_verified, source, tenant_id)
+            SELECT u.id, u.username, u.email, u.password_hash, FALSE, 'LOCAL', ?
+            FROM unnest(?::bigint[], ?::varchar[], ?::varchar[], ?::varchar[]) AS u(id, username, email, password_hash)
+            ON CONFLICT DO NOTHING
+            RETURNING id
+            """;
+    
+    private static final String INSERT_ROLES_SQL =
+            "INSERT INTO user_roles (user_id, role_id) SELECT unnest(?::bigint[]), ?";
+    
+    private static final String INSERT_ERROR_SQL = "INSERT INTO user_import_errors (job_id, line_number, reason) "
+            + "VALUES (?, ?, ?) ON CONFLICT DO NOTHING";
+    
+    // Fenced on the chunk's start line: an instance that lost its lease cannot count a chunk twice
+    private static final String CHECKPOINT_SQL = """
+            UPDATE user_import_jobs
+            SET lines_processed = ?, rows_imported = rows_imported + ?, rows_skipped = rows_skipped + ?,
+                rows_failed = rows_failed + ?, updated_at = LOCALTIMESTAMP
+            WHERE id = ? AND lines_processed = ?
+            """;
+    
+    private static final String FINISH_SQL = "UPDATE user_import_jobs SET status = ?, error_message = ?, "
+            + "updated_at = LOCALTIMESTAMP, finished_at = LOCALTIMESTAMP WHERE id = ?";
+    
+    private static final String REQUEUE_SQL = "UPDATE user_import_jobs SET status = 'PENDING', "
+            + "updated_at = LOCALTIMESTAMP WHERE id = ? AND status = 'RUNNING'";
+    
+    private static final String ERRORS_SQL = "SELECT line_number, reason FROM user_import_errors "
+            + "WHERE job_id = ? AND line_number > ? ORDER BY line_number LIMIT ?";
+    
+    private static final int MAX_REASON_LENGTH = 500;
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final UserIdAllocator userIdAllocator;
+    
+    record NewUser(long lineNumber, String username, String email, String passwordHash) {
+    }
+    
+    /** A row that was not imported; duplicates count as skipped, everything else as failed. */
+    record RowError(long lineNumber, String reason, boolean duplicate) {
+    }
+    
+    /** The job's checkpoint moved past the chunk's start, so another instance has taken the job over. */
+    static class CheckpointMovedException extends IllegalStateException {
+        
+        CheckpointMovedException(long jobId, long fromLine) {
+            super("User import " + jobId + " is no longer at line " + fromLine);
+        }
+    }
+    
+    /** Lower-cased usernames and emails of a chunk that active accounts already use. */
+    record Taken(Set<String> usernames, Set<String> emails) {
+    }
+    
+    Taken findTaken(Collection<String> usernames, Collection<String> emails) {
+        Set<String> takenUsernames = new HashSet<>();
+        Set<String> takenEmails = new HashSet<>();
+        jdbcTemplate.query(connection -> {
+            var statement = connection.prepareStatement(EXISTING_SQL);
+            statement.setArray(1, varcharArray(connection, usernames.stream().map(LoginIdentifierUtil::normalize).toList()));
+            statement.setArray(2, varcharArray(connection, emails.stream().map(LoginIdentifierUtil::normalize).toList()));
+            return statement;
+        }, rs -> {
+            takenUsernames.add(rs.getString(1));
+            takenEmails.add(rs.getString(2));
+        });
+        return new Taken(takenUsernames, takenEmails);
+    }
+    
+    /**
+     * Inserts the chunk's users with the given role, records its rejected rows and moves the job's
+     * checkpoint from {@code fromLine} to {@code linesProcessed}, all in one transaction.
+     *
+     * @return the number of users inserted; the rest lost a race to a concurrent registration
+     * @throws CheckpointMovedException if the checkpoint is no longer at {@code fromLine}; nothing is written
+     */
+    @Transactional
+    public int commitChunk(long jobId, List<NewUser> users, long roleId, Long tenantId, List<RowError> errors,
+                           long fromLine, long linesProcessed) {
+        Long[] userIds = userIdAllocator.allocate(users.size());
+        List<Long> ids = users.isEmpty() ? List.of() : jdbcTemplate.query(connection -> {
+            var statement = connection.prepareStatement(INSERT_USERS_SQL);
+            if (tenantId == null) {
+                statement.setNull(1, Types.BIGINT);
+            } else {
+                statement.setLong(1, tenantId);
+            }
+            statement.setArray(2, connection.createArrayOf("bigint", userIds));
+            statement.setArray(3, varcharArray(connection, users.stream().map(NewUser::username).toList()));
+            statement.setArray(4, varcharArray(connection, users.stream().map(NewUser::email).toList()));
+            statement.setArray(5, varcharArray(connection, users.stream().map(NewUser::passwordHash).toList()));
+            return statement;
+        }, (rs, rowNum) -> rs.getLong(1));
+        
+        if (!ids.isEmpty()) {
+            jdbcTemplate.update(connection -> {
+                var statement = connection.prepareStatement(INSERT_ROLES_SQL);
+                statement.setArray(1, connection.createArrayOf("bigint", ids.toArray()));
+                statement.setLong(2, roleId);
+                return statement;
+            });
+        }
+        
+        long duplicates = errors.stream().filter(RowError::duplicate).count();
+        long skipped = duplicates + users.size() - ids.size();
+        if (!errors.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_ERROR_SQL, errors, errors.size(), (ps, error) -> {
+                ps.setLong(1, jobId);
+                ps.setLong(2, error.lineNumber());
+                ps.setString(3, truncate(error.reason()));
+            });
+        }
+        
+        if (jdbcTemplate.update(CHECKPOINT_SQL, linesProcessed, ids.size(), skipped, errors.size() - duplicates,
+                jobId, fromLine) == 0) {
+            throw new CheckpointMovedException(jobId, fromLine);
+        }
+        return ids.size();
+    }
+    
+    void finish(long jobId, String status, String errorMessage) {
+        jdbcTemplate.update(FINISH_SQL, status, errorMessage, jobId);
+    }
+    
+    void requeue(long jobId) {
+        jdbcTemplate.update(REQUEUE_SQL, jobId);
+    }
+    
+    List<UserImportErrorResponse> findErrors(long jobId, long afterLine, int limit) {
+        return jdbcTemplate.query(ERRORS_SQL, (rs, rowNum) -> UserImportErrorResponse.builder()
+                .lineNumber(rs.getLong(1))
+                .reason(rs.getString(2))
+                .build(), jobId, afterLine, limit);
+    }
+    
+    private static Array varcharArray(Connection connection, Collection<String> values) throws SQLException {
+        return connection.createArrayOf("varchar", new ArrayList<>(values).toArray());
+    }
+    
+    private static String truncate(String reason) {
+        return reason.length() <= MAX_REASON_LENGTH ? reason : reason.substring(0, MAX_REASON_LENGTH);
+    }
+}
\ No newline at end of file
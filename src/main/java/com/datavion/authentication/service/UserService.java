@@ -1,38 +1,87 @@
 package com.datavion.authentication.service;
 
+import com.datavion.authentication.dto.UserCursorPage;
 import com.datavion.authentication.dto.UserResponse;
+import com.datavion.authentication.dto.UserRoleName;
+import com.datavion.authentication.dto.UserSummary;
 import com.datavion.authentication.entity.Role;
 import com.datavion.authentication.entity.User;
 import com.datavion.authentication.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class UserService {
     
+    private static final int MAX_SCROLL_LIMIT = 500;
+    
     private final UserRepository userRepository;
+    private final AuditLogService auditLogService;
     
+    /**
+     * One query for the page, one for its total and one for the roles of every user on it.
+     */
     @Transactional(readOnly = true)
     public Page<UserResponse> getAllUsers(Pageable pageable) {
-        return userRepository.findByDeletedAtIsNull(pageable)
-                .map(this::mapToUserResponse);
+        Page<UserSummary> page = userRepository.findSummaries(pageable);
+        Map<Long, Set<String>> rolesByUser = rolesByUser(page.stream().map(UserSummary::id).toList());
+        return page.map(summary -> mapToUserResponse(summary, rolesByUser.getOrDefault(summary.id(), Set.of())));
     }
     
+    /**
+     * Seek pagination over {@code (created_at, id)}, newest first. Every page is one index range
+     * read plus the roles query, however deep it is, and there is no exact count.
+     */
     @Transactional(readOnly = true)
-    public UserResponse getUserById(Long id) {
-        User user = userRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+    public UserCursorPage scrollUsers(String cursor, int limit, boolean estimateTotal) {
+        int size = Math.min(Math.max(limit, 1), MAX_SCROLL_LIMIT);
+        // One extra row tells whether another page follows
+        List<UserSummary> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = userRepository.findFirstSummaries(Limit.of(size + 1));
+        } else {
+            UserCursor position = UserCursor.decode(cursor);
+            rows = userRepository.findSummariesBefore(position.createdAt(), position.id(), Limit.of(size + 1));
+        }
         
-        if (user.isDeleted()) {
-            throw new RuntimeException("User not found");
+        String nextCursor = null;
+        if (rows.size() > size) {
+            rows = rows.subList(0, size);
+            UserSummary last = rows.getLast();
+            nextCursor = new UserCursor(last.createdAt(), last.id()).encode();
         }
         
+        Map<Long, Set<String>> rolesByUser = rolesByUser(rows.stream().map(UserSummary::id).toList());
+        Long estimatedTotal = null;
+        if (estimateTotal) {
+            long estimate = userRepository.estimateUserRows();
+            estimatedTotal = estimate >= 0 ? estimate : null;
+        }
+        
+        return UserCursorPage.builder()
+                .content(rows.stream()
+                        .map(summary -> mapToUserResponse(summary, rolesByUser.getOrDefault(summary.id(), Set.of())))
+                        .toList())
+                .nextCursor(nextCursor)
+                .estimatedTotal(estimatedTotal)
+                .build();
+    }
+    
+    @Transactional(readOnly = true)
+    public UserResponse getUserById(Long id) {
+        User user = userRepository.findWithRolesByIdAndDeletedAtIsNull(id)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+        
         return mapToUserResponse(user);
     }
     
@@ -46,6 +95,30 @@ public class UserService {
         user.setFailedLoginAttempts(0);
         
         userRepository.save(user);
+        auditLogService.success(AuditLogService.ACTION_ACCOUNT_UNLOCKED, user.getId());
+    }
+    
+    private Map<Long, Set<String>> rolesByUser(List<Long> userIds) {
+        if (userIds.isEmpty()) {
+            return Map.of();
+        }
+        return userRepository.findRoleNamesByUserIds(userIds).stream()
+                .collect(Collectors.groupingBy(UserRoleName::userId,
+                        Collectors.mapping(UserRoleName::roleName, Collectors.toSet())));
+    }
+    
+    private UserResponse mapToUserResponse(UserSummary summary, Set<String> roles) {
+        return UserResponse.builder()
+                .id(summary.id())
+                .username(summary.username())
+                .email(summary.email())
+                .emailVerified(summary.emailVerified())
+                .accountLocked(summary.accountLocked())
+                .lastLoginAt(summary.lastLoginAt())
+                .source(summary.source().name())
+                .roles(roles)
+                .createdAt(summary.createdAt())
+                .build();
     }
     
     private UserResponse mapToUserResponse(User user) {
@@ -1,33 +1,69 @@
 package com.datavion.authentication.util;
 
+import com.datavion.authentication.entity.Tenant;
+import com.datavion.authentication.entity.User;
+import com.datavion.authentication.security.RoleAuthorityRegistry;
+import com.datavion.authentication.security.SigningKey;
+import com.datavion.authentication.security.SigningKeyProvider;
+import com.datavion.authentication.security.UserPrincipal;
 import io.jsonwebtoken.*;
-import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
-import javax.crypto.SecretKey;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.UUID;
 import java.util.function.Function;
 
 @Component
+@RequiredArgsConstructor
 @Slf4j
 public class JwtUtil {
     
-    @Value("${app.jwt.secret}")
-    private String secret;
+    public static final String CLAIM_USER_ID = "uid";
+    public static final String CLAIM_TENANT_ID = "tid";
+    public static final String CLAIM_LOCKED = "locked";
+    public static final String CLAIM_ENABLED = "enabled";
+    public static final String CLAIM_PERMISSIONS = "perm";
+    // iat has whole seconds only; revocation cut-offs need the exact issue time
+    public static final String CLAIM_ISSUED_AT_MILLIS = "iatms";
+    
+    private final RoleAuthorityRegistry roleAuthorityRegistry;
+    private final SigningKeyProvider signingKeyProvider;
     
     @Value("${app.jwt.access-token-expiration}")
     private Long accessTokenExpiration;
     
-    @Value("${app.jwt.refresh-token-expiration}")
-    private Long refreshTokenExpiration;
+    private JwtParser jwtParser;
+    
+    @PostConstruct
+    void init() {
+        // Build the parser once; it is immutable and safe to share across threads.
+        // The verification key is picked by the token's kid header, so rotated keys keep verifying.
+        jwtParser = Jwts.parser()
+                .keyLocator(header -> signingKeyProvider.verificationKey(
+                        header instanceof ProtectedHeader protectedHeader ? protectedHeader.getKeyId() : null))
+                .build();
+    }
     
-    private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(secret.getBytes());
+    /**
+     * Verifies the signature and expiry of the token exactly once and returns the result
+     * for reuse by every later check on the same request.
+     *
+     * @throws JwtException if the token is malformed, tampered with or expired
+     */
+    public ParsedToken parse(String token) {
+        try {
+            return new ParsedToken(token, jwtParser.parseSignedClaims(token).getPayload());
+        } catch (JwtException e) {
+            log.error("JWT parsing error: {}", e.getMessage());
+            throw e;
+        }
     }
     
     public String extractUsername(String token) {
@@ -39,61 +75,87 @@ public class JwtUtil {
     }
     
     public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
-        return claimsResolver.apply(claims);
-    }
-    
-    private Claims extractAllClaims(String token) {
-        try {
-            return Jwts.parser()
-                    .verifyWith(getSigningKey())
-                    .build()
-                    .parseSignedClaims(token)
-                    .getPayload();
-        } catch (JwtException e) {
-            log.error("JWT parsing error: {}", e.getMessage());
-            throw e;
-        }
-    }
-    
-    private Boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+        return claimsResolver.apply(parse(token).claims());
     }
     
     public String generateAccessToken(UserDetails userDetails) {
         Map<String, Object> claims = new HashMap<>();
+        if (userDetails instanceof UserPrincipal userPrincipal) {
+            claims.putAll(buildPrincipalClaims(userPrincipal));
+        }
         return createToken(claims, userDetails.getUsername(), accessTokenExpiration);
     }
     
-    public String generateRefreshToken(UserDetails userDetails) {
+    private Map<String, Object> buildPrincipalClaims(UserPrincipal userPrincipal) {
+        User user = userPrincipal.getUser();
         Map<String, Object> claims = new HashMap<>();
-        return createToken(claims, userDetails.getUsername(), refreshTokenExpiration);
+        claims.put(CLAIM_USER_ID, user.getId());
+        if (user.getTenant() != null) {
+            claims.put(CLAIM_TENANT_ID, user.getTenant().getId());
+        }
+        claims.put(CLAIM_LOCKED, !userPrincipal.isAccountNonLocked());
+        claims.put(CLAIM_ENABLED, userPrincipal.isEnabled());
+        claims.put(CLAIM_PERMISSIONS, userPrincipal.getAuthoritySet().bits().toClaim());
+        return claims;
+    }
+    
+    /**
+     * Rebuilds the principal from the claims embedded by {@link #generateAccessToken(UserDetails)}.
+     * The claims must come from a token whose signature has already been verified.
+     *
+     * @return the principal, or {@code null} if the token predates claim embedding
+     */
+    public UserPrincipal extractPrincipal(ParsedToken parsedToken) {
+        Claims claims = parsedToken.claims();
+        Long userId = claims.get(CLAIM_USER_ID, Long.class);
+        String permissions = claims.get(CLAIM_PERMISSIONS, String.class);
+        if (userId == null || permissions == null) {
+            return null;
+        }
+        
+        Long tenantId = claims.get(CLAIM_TENANT_ID, Long.class);
+        User user = User.builder()
+                .id(userId)
+                .username(claims.getSubject())
+                .tenant(tenantId != null ? Tenant.builder().id(tenantId).build() : null)
+                .accountLocked(Boolean.TRUE.equals(claims.get(CLAIM_LOCKED, Boolean.class)))
+                .emailVerified(Boolean.TRUE.equals(claims.get(CLAIM_ENABLED, Boolean.class)))
+                .build();
+        
+        return new UserPrincipal(user, roleAuthorityRegistry.forClaim(permissions));
     }
     
     private String createToken(Map<String, Object> claims, String subject, Long expiration) {
+        long now = System.currentTimeMillis();
+        SigningKey signingKey = signingKeyProvider.signingKey();
         return Jwts.builder()
-                .setClaims(claims)
-                .setSubject(subject)
-                .setIssuedAt(new Date(System.currentTimeMillis()))
-                .setExpiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .header().keyId(signingKey.keyId()).and()
+                .claims(claims)
+                .claim(CLAIM_ISSUED_AT_MILLIS, now)
+                .id(UUID.randomUUID().toString())
+                .subject(subject)
+                .issuedAt(new Date(now))
+                .expiration(new Date(now + expiration))
+                .signWith(signingKey.key(), signingKey.algorithm())
                 .compact();
     }
     
     public Boolean validateToken(String token, UserDetails userDetails) {
         try {
-            final String username = extractUsername(token);
-            return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
+            return validateToken(parse(token), userDetails);
         } catch (JwtException e) {
             log.error("JWT validation error: {}", e.getMessage());
             return false;
         }
     }
     
+    public boolean validateToken(ParsedToken parsedToken, UserDetails userDetails) {
+        return userDetails.getUsername().equals(parsedToken.username()) && !parsedToken.isExpired();
+    }
+    
     public Boolean isTokenValid(String token) {
         try {
-            extractAllClaims(token);
-            return !isTokenExpired(token);
+            return !parse(token).isExpired();
         } catch (JwtException e) {
             return false;
         }
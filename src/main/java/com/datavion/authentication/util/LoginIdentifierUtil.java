@@ -0,0 +1,24 @@
+package com.datavion.authentication.util;
+
+import java.util.Locale;
+
+/**
+ * Usernames and emails are matched case-insensitively, through the {@code lower()} indexes on
+ * {@code users}. Input with an {@code @} is looked up as an email first; usernames cannot contain one.
+ */
+public final class LoginIdentifierUtil {
+    
+    private LoginIdentifierUtil() {
+    }
+    
+    public static boolean looksLikeEmail(String usernameOrEmail) {
+        return usernameOrEmail.indexOf('@') >= 0;
+    }
+    
+    /**
+     * The form two identifiers that name the same account have in common, for cache keys.
+     */
+    public static String normalize(String usernameOrEmail) {
+        return usernameOrEmail.toLowerCase(Locale.ROOT);
+    }
+}
\ No newline at end of file
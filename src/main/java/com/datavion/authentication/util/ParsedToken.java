@@ -0,0 +1,49 @@
+package com.datavion.authentication.util;
+
+import io.jsonwebtoken.Claims;
+
+import java.util.Date;
+
+/**
+ * A token whose signature has been verified by {@link JwtUtil#parse(String)}.
+ * Immutable, so the filter and services can share it instead of parsing again.
+ */
+public record ParsedToken(String token, Claims claims) {
+    
+    public String username() {
+        return claims.getSubject();
+    }
+    
+    public String id() {
+        return claims.getId();
+    }
+    
+    public Long userId() {
+        return claims.get(JwtUtil.CLAIM_USER_ID, Long.class);
+    }
+    
+    public Date issuedAt() {
+        return claims.getIssuedAt();
+    }
+    
+    /**
+     * The issue time in milliseconds. Tokens minted before that claim existed fall back to
+     * {@code iat}, the start of their second, so a revocation later in that second still covers them.
+     */
+    public Long issuedAtMillis() {
+        Long millis = claims.get(JwtUtil.CLAIM_ISSUED_AT_MILLIS, Long.class);
+        if (millis != null) {
+            return millis;
+        }
+        Date issuedAt = issuedAt();
+        return issuedAt != null ? issuedAt.getTime() : null;
+    }
+    
+    public Date expiration() {
+        return claims.getExpiration();
+    }
+    
+    public boolean isExpired() {
+        return expiration().before(new Date());
+    }
+}
\ No newline at end of file
@@ -0,0 +1,35 @@
+package com.datavion.authentication.util;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+/**
+ * Access to the client details of the HTTP request bound to the current thread, if any.
+ */
+public final class RequestContextUtil {
+    
+    private static final int MAX_USER_AGENT_LENGTH = 255;
+    
+    private RequestContextUtil() {
+    }
+    
+    public static String currentRemoteAddress() {
+        HttpServletRequest request = currentRequest();
+        return request != null ? request.getRemoteAddr() : null;
+    }
+    
+    public static String currentUserAgent() {
+        HttpServletRequest request = currentRequest();
+        String userAgent = request != null ? request.getHeader("User-Agent") : null;
+        return userAgent == null || userAgent.length() <= MAX_USER_AGENT_LENGTH
+                ? userAgent
+                : userAgent.substring(0, MAX_USER_AGENT_LENGTH);
+    }
+    
+    private static HttpServletRequest currentRequest() {
+        return RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes
+                ? attributes.getRequest()
+                : null;
+    }
+}
\ No newline at end of file
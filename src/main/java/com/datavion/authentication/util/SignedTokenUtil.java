@@ -0,0 +1,88 @@
+package com.datavion.authentication.util;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Optional;
+
+/**
+ * Stateless single-use tokens for emailed links: {@code payload.mac}, where the payload carries the
+ * purpose, user id and expiry. The MAC also covers a per-user stamp that is not in the token, such
+ * as the current password hash, so using the token (which changes the stamp) invalidates it
+ * without anything being stored.
+ */
+@Component
+@RequiredArgsConstructor
+public class SignedTokenUtil {
+    
+    public static final byte PURPOSE_VERIFY_EMAIL = 'v';
+    public static final byte PURPOSE_PASSWORD_RESET = 'r';
+    
+    private static final byte FORMAT_VERSION = 1;
+    private static final int PAYLOAD_BYTES = 2 + Long.BYTES + Long.BYTES;
+    private static final byte[] CONTEXT = "email-link-token".getBytes(StandardCharsets.UTF_8);
+    
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+    
+    private final TokenHashUtil tokenHashUtil;
+    
+    /** Opaque tokens are bare base64url, which never contains a dot. */
+    public static boolean isSigned(String token) {
+        return token.indexOf('.') > 0;
+    }
+    
+    public String issue(byte purpose, long userId, Instant expiresAt, String stamp) {
+        byte[] payload = ByteBuffer.allocate(PAYLOAD_BYTES)
+                .put(FORMAT_VERSION)
+                .put(purpose)
+                .putLong(userId)
+                .putLong(expiresAt.getEpochSecond())
+                .array();
+        return ENCODER.encodeToString(payload) + "." + ENCODER.encodeToString(mac(payload, stamp));
+    }
+    
+    /**
+     * Reads the payload without checking the MAC, which needs the user's current stamp; call
+     * {@link #verify} once the user is loaded. Malformed tokens and other purposes yield empty.
+     */
+    public Optional<SignedToken> decode(String token, byte expectedPurpose) {
+        int dot = token.indexOf('.');
+        byte[] payload;
+        byte[] signature;
+        try {
+            payload = DECODER.decode(token.substring(0, dot));
+            signature = DECODER.decode(token.substring(dot + 1));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            return Optional.empty();
+        }
+        if (payload.length != PAYLOAD_BYTES || payload[0] != FORMAT_VERSION || payload[1] != expectedPurpose) {
+            return Optional.empty();
+        }
+        
+        ByteBuffer buffer = ByteBuffer.wrap(payload, 2, PAYLOAD_BYTES - 2);
+        long userId = buffer.getLong();
+        Instant expiresAt = Instant.ofEpochSecond(buffer.getLong());
+        return Optional.of(new SignedToken(userId, expiresAt, payload, signature));
+    }
+    
+    public boolean verify(SignedToken token, String stamp) {
+        return MessageDigest.isEqual(mac(token.payload(), stamp), token.signature());
+    }
+    
+    private byte[] mac(byte[] payload, String stamp) {
+        return tokenHashUtil.sign(CONTEXT, payload, stamp.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    public record SignedToken(long userId, Instant expiresAt, byte[] payload, byte[] signature) {
+        
+        public boolean isExpired(Instant now) {
+            return now.isAfter(expiresAt);
+        }
+    }
+}
\ No newline at end of file
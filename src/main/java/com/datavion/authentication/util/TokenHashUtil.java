@@ -0,0 +1,72 @@
+package com.datavion.authentication.util;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.HexFormat;
+
+/**
+ * Issues random opaque tokens and derives the deterministic keyed digest they are stored under.
+ * Unlike a salted password hash, the same token always maps to the same digest, so lookups
+ * can go through a unique index.
+ */
+@Component
+public class TokenHashUtil {
+    
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    private static final int TOKEN_BYTES = 32;
+    
+    private final SecureRandom secureRandom = new SecureRandom();
+    
+    @Value("${app.security.token-hash-secret}")
+    private String secret;
+    
+    private Mac prototype;
+    
+    @PostConstruct
+    void init() throws GeneralSecurityException {
+        prototype = Mac.getInstance(HMAC_ALGORITHM);
+        prototype.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), HMAC_ALGORITHM));
+    }
+    
+    public String generateOpaqueToken() {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        secureRandom.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+    
+    public String hash(String token) {
+        return HexFormat.of().formatHex(newMac().doFinal(token.getBytes(StandardCharsets.UTF_8)));
+    }
+    
+    /** Keyed MAC over the parts in order; callers prefix a context label to keep uses apart. */
+    public byte[] sign(byte[]... parts) {
+        Mac mac = newMac();
+        for (byte[] part : parts) {
+            mac.update(part);
+        }
+        return mac.doFinal();
+    }
+    
+    private Mac newMac() {
+        // Mac is not thread-safe; cloning the initialised prototype skips the key setup
+        try {
+            return (Mac) prototype.clone();
+        } catch (CloneNotSupportedException e) {
+            try {
+                Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+                mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), HMAC_ALGORITHM));
+                return mac;
+            } catch (GeneralSecurityException ex) {
+                throw new IllegalStateException("Cannot initialise " + HMAC_ALGORITHM, ex);
+            }
+        }
+    }
+}
\ No newline at end of file
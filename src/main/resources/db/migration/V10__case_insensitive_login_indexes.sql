@@ -0,0 +1,11 @@
+-- Usernames and emails are unique and looked up case-insensitively among active accounts, so a
+-- soft-deleted account no longer blocks its name. Creating these fails if two active accounts
+-- differ only in case; resolve such pairs before migrating.
+CREATE UNIQUE INDEX uq_users_username_lower ON users(lower(username)) WHERE deleted_at IS NULL;
+CREATE UNIQUE INDEX uq_users_email_lower ON users(lower(email)) WHERE deleted_at IS NULL;
+
+-- Superseded: every lookup now goes through lower()
+ALTER TABLE users DROP CONSTRAINT IF EXISTS users_username_key;
+ALTER TABLE users DROP CONSTRAINT IF EXISTS users_email_key;
+DROP INDEX IF EXISTS idx_users_username;
+DROP INDEX IF EXISTS idx_users_email;
\ No newline at end of file
@@ -0,0 +1,15 @@
+-- Directory identity of LDAP users, and when the sync job last saw them. Group members are
+-- matched by DN, so it is indexed the way the sync compares it.
+ALTER TABLE users ADD COLUMN ldap_dn VARCHAR(1000);
+ALTER TABLE users ADD COLUMN ldap_synced_at TIMESTAMP;
+
+CREATE UNIQUE INDEX uq_users_ldap_dn_lower ON users(lower(ldap_dn)) WHERE ldap_dn IS NOT NULL AND deleted_at IS NULL;
+
+-- Change marks (modifyTimestamp or USN) the next incremental sync starts from
+CREATE TABLE ldap_sync_state (
+    name VARCHAR(50) PRIMARY KEY,
+    user_mark VARCHAR(100),
+    group_mark VARCHAR(100),
+    last_full_sync_at TIMESTAMP,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
\ No newline at end of file
@@ -0,0 +1,17 @@
+-- Outgoing mail, inserted in the transaction that causes it and sent by MailOutboxWorker. Claiming
+-- a message pushes next_attempt_at past the claim timeout, so a message whose sender died is retried.
+CREATE TABLE mail_outbox (
+    id BIGSERIAL PRIMARY KEY,
+    template VARCHAR(50) NOT NULL,
+    recipient VARCHAR(255) NOT NULL,
+    model TEXT NOT NULL,
+    status VARCHAR(10) NOT NULL DEFAULT 'PENDING',
+    attempts INTEGER NOT NULL DEFAULT 0,
+    next_attempt_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    last_error VARCHAR(1000),
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    sent_at TIMESTAMP
+);
+
+CREATE INDEX idx_mail_outbox_due ON mail_outbox(next_attempt_at) WHERE status = 'PENDING';
+CREATE INDEX idx_mail_outbox_sent ON mail_outbox(sent_at) WHERE status = 'SENT';
\ No newline at end of file
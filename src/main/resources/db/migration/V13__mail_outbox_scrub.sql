@@ -0,0 +1,4 @@
+-- Finished messages no longer keep their model, which can hold a live verification or reset link.
+UPDATE mail_outbox SET model = '{}' WHERE status IN ('SENT', 'FAILED');
+
+CREATE INDEX idx_mail_outbox_failed ON mail_outbox(next_attempt_at) WHERE status = 'FAILED';
\ No newline at end of file
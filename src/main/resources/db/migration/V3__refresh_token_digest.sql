@@ -0,0 +1,3 @@
+-- Refresh tokens are now stored under a deterministic HMAC-SHA-256 digest.
+-- Rows written with a salted BCrypt hash can never be looked up again, so drop them.
+DELETE FROM refresh_tokens WHERE token_hash LIKE '$2%';
@@ -0,0 +1,17 @@
+-- Stable ordinal per permission, used as its bit position in permission bitsets.
+-- Ordinals come from a dedicated sequence so they are never reused after a delete.
+CREATE SEQUENCE permissions_ordinal_seq MINVALUE 0 START WITH 0;
+
+ALTER TABLE permissions ADD COLUMN ordinal INTEGER;
+
+UPDATE permissions p
+SET ordinal = numbered.rn - 1
+FROM (SELECT id, ROW_NUMBER() OVER (ORDER BY id) AS rn FROM permissions) numbered
+WHERE p.id = numbered.id;
+
+SELECT setval('permissions_ordinal_seq', COALESCE((SELECT MAX(ordinal) + 1 FROM permissions), 0), false);
+
+ALTER TABLE permissions ALTER COLUMN ordinal SET DEFAULT nextval('permissions_ordinal_seq');
+ALTER TABLE permissions ALTER COLUMN ordinal SET NOT NULL;
+ALTER TABLE permissions ADD CONSTRAINT uq_permissions_ordinal UNIQUE (ordinal);
+ALTER SEQUENCE permissions_ordinal_seq OWNED BY permissions.ordinal;
@@ -0,0 +1,10 @@
+-- Named leases so a scheduled job runs on one replica at a time.
+-- A lease is taken when it is free, expired, or already held by the same owner.
+CREATE TABLE scheduler_leases (
+    name VARCHAR(100) PRIMARY KEY,
+    owner VARCHAR(255) NOT NULL,
+    expires_at TIMESTAMP NOT NULL
+);
+
+-- Lets the purge find revoked rows without scanning the table; expired rows use idx_refresh_tokens_expires.
+CREATE INDEX idx_refresh_tokens_revoked ON refresh_tokens(id) WHERE revoked = TRUE;
\ No newline at end of file
@@ -0,0 +1,15 @@
+-- Key ring for access-token signing. A key is published as NEXT before it signs, signs while
+-- ACTIVE, and keeps verifying as RETIRING until retire_at, after which it is deleted.
+-- Private keys (or HMAC secrets) are stored AES-GCM encrypted.
+CREATE TABLE signing_keys (
+    kid VARCHAR(64) PRIMARY KEY,
+    algorithm VARCHAR(10) NOT NULL,
+    state VARCHAR(10) NOT NULL,
+    public_key BYTEA,
+    private_key BYTEA NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    activated_at TIMESTAMP,
+    retire_at TIMESTAMP
+);
+
+CREATE UNIQUE INDEX uq_signing_keys_active ON signing_keys(state) WHERE state = 'ACTIVE';
\ No newline at end of file
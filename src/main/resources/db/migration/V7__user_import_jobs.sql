@@ -0,0 +1,29 @@
+-- Bulk user imports. The upload is spooled to disk; lines_processed is the checkpoint a restarted
+-- job resumes from and is committed in the same transaction as the users it covers.
+CREATE TABLE user_import_jobs (
+    id BIGSERIAL PRIMARY KEY,
+    format VARCHAR(10) NOT NULL,
+    pre_hashed BOOLEAN NOT NULL DEFAULT FALSE,
+    tenant_id BIGINT REFERENCES tenants(id),
+    spool_path VARCHAR(500) NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    lines_processed BIGINT NOT NULL DEFAULT 0,
+    rows_imported BIGINT NOT NULL DEFAULT 0,
+    rows_skipped BIGINT NOT NULL DEFAULT 0,
+    rows_failed BIGINT NOT NULL DEFAULT 0,
+    error_message VARCHAR(1000),
+    created_by BIGINT REFERENCES users(id) ON DELETE SET NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP,
+    finished_at TIMESTAMP
+);
+
+CREATE INDEX idx_user_import_jobs_open ON user_import_jobs(id) WHERE status IN ('PENDING', 'RUNNING');
+
+-- Rejected and duplicate rows, one per input line
+CREATE TABLE user_import_errors (
+    job_id BIGINT NOT NULL REFERENCES user_import_jobs(id) ON DELETE CASCADE,
+    line_number BIGINT NOT NULL,
+    reason VARCHAR(500) NOT NULL,
+    PRIMARY KEY (job_id, line_number)
+);
\ No newline at end of file
@@ -0,0 +1,8 @@
+-- Hibernate allocates ids in blocks of 50 (pooled-lo): each nextval reserves the block starting at
+-- the value it returns, so inserts need no round trip for their ids and can be batched. Column
+-- defaults keep working for plain SQL inserts; such a row simply uses one block on its own.
+ALTER SEQUENCE tenants_id_seq INCREMENT BY 50;
+ALTER SEQUENCE users_id_seq INCREMENT BY 50;
+ALTER SEQUENCE roles_id_seq INCREMENT BY 50;
+ALTER SEQUENCE permissions_id_seq INCREMENT BY 50;
+ALTER SEQUENCE refresh_tokens_id_seq INCREMENT BY 50;
\ No newline at end of file
@@ -0,0 +1,3 @@
+-- Seek pagination of the user listing walks this index from the cursor; soft-deleted rows are
+-- left out so they neither bloat it nor get skipped at read time.
+CREATE INDEX idx_users_active_created_id ON users(created_at DESC, id DESC) WHERE deleted_at IS NULL;
\ No newline at end of file
@@ -0,0 +1,81 @@
+package com.datavion.authentication.benchmark;
+
+import com.datavion.authentication.security.HmacSigningKeyProvider;
+import com.datavion.authentication.util.JwtUtil;
+import com.datavion.authentication.util.ParsedToken;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.crypto.SecretKey;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the per-request cost of validating an access token the way the filter used to
+ * (key derived and parser built on every call, token parsed three times) against the
+ * single-parse path through {@link JwtUtil#parse(String)}.
+ *
+ * Run with: {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.datavion.authentication.benchmark.JwtParsingBenchmark}
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtParsingBenchmark {
+    
+    private static final String SECRET = "404E635266556A586E3272357538782F413F4428472B4B6250645367566B5970";
+    
+    private JwtUtil jwtUtil;
+    private UserDetails userDetails;
+    private String token;
+    
+    @Setup
+    public void setUp() {
+        // The registry is only needed to rebuild principals from claims, which this benchmark does not do
+        jwtUtil = new JwtUtil(null, new HmacSigningKeyProvider(SECRET));
+        ReflectionTestUtils.setField(jwtUtil, "accessTokenExpiration", 900000L);
+        ReflectionTestUtils.invokeMethod(jwtUtil, "init");
+        
+        userDetails = User.withUsername("benchmark").password("n/a").build();
+        token = jwtUtil.generateAccessToken(userDetails);
+    }
+    
+    @Benchmark
+    public boolean legacyFilterPath() {
+        // extractUsername, then validateToken -> extractUsername + isTokenExpired
+        String username = legacyClaims().getSubject();
+        return username.equals(legacyClaims().getSubject()) && !legacyClaims().getExpiration().before(new Date());
+    }
+    
+    @Benchmark
+    public boolean parsedOncePath() {
+        ParsedToken parsedToken = jwtUtil.parse(token);
+        return jwtUtil.validateToken(parsedToken, userDetails);
+    }
+    
+    private Claims legacyClaims() {
+        SecretKey key = Keys.hmacShaKeyFor(SECRET.getBytes());
+        return Jwts.parser()
+                .verifyWith(key)
+                .build()
+                .parseSignedClaims(token)
+                .getPayload();
+    }
+    
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JwtParsingBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,126 @@
+package com.datavion.authentication.benchmark;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fires concurrent logins at a running instance and prints the latency distribution, for comparing
+ * a run with {@code VIRTUAL_THREADS_ENABLED=false} against one with {@code true} on the same host
+ * and database.
+ *
+ * <p>The per-account and per-address rate limits would reject almost every request, so start the
+ * service with {@code APP_SECURITY_RATE_LIMIT_ENABLED=false}. The account is registered on first
+ * use. Requests shed with 503 by the hashing queue or the concurrency limit are counted separately
+ * and excluded from the percentiles, since a fast rejection is the intended outcome under overload.
+ *
+ * Run with: {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.datavion.authentication.benchmark.LoginLoadHarness
+ * -Dexec.args="http://localhost:8080 5000 20000"}
+ */
+public class LoginLoadHarness {
+    
+    private static final String USERNAME = "loadtest";
+    private static final String EMAIL = "loadtest@example.com";
+    private static final String PASSWORD = "L0adTest!pass";
+    
+    public static void main(String[] args) throws Exception {
+        String baseUrl = args.length > 0 ? args[0] : "http://localhost:8080";
+        int concurrency = args.length > 1 ? Integer.parseInt(args[1]) : 5000;
+        int totalRequests = args.length > 2 ? Integer.parseInt(args[2]) : concurrency * 4;
+        
+        HttpClient client = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        
+        send(client, baseUrl + "/api/v1/auth/register", """
+                {"username":"%s","email":"%s","password":"%s","firstName":"Load","lastName":"Test"}"""
+                .formatted(USERNAME, EMAIL, PASSWORD));
+        String login = """
+                {"usernameOrEmail":"%s","password":"%s"}""".formatted(USERNAME, PASSWORD);
+        
+        // Warm-up so JIT compilation and pool growth do not land in the measured run
+        runBatch(client, baseUrl, login, Math.min(concurrency, 200), 1000);
+        Result result = runBatch(client, baseUrl, login, concurrency, totalRequests);
+        
+        List<Long> latencies = result.latenciesMicros();
+        Collections.sort(latencies);
+        System.out.printf("requests=%d concurrency=%d wall=%dms throughput=%.1f/s%n", totalRequests, concurrency,
+                result.wallMillis(), totalRequests * 1000.0 / result.wallMillis());
+        System.out.println("status counts: " + new TreeMap<>(result.statusCounts()));
+        if (!latencies.isEmpty()) {
+            System.out.printf("successful latency ms: p50=%.1f p90=%.1f p99=%.1f p99.9=%.1f max=%.1f%n",
+                    percentile(latencies, 0.50), percentile(latencies, 0.90), percentile(latencies, 0.99),
+                    percentile(latencies, 0.999), latencies.getLast() / 1000.0);
+        }
+    }
+    
+    private record Result(List<Long> latenciesMicros, Map<Integer, Integer> statusCounts, long wallMillis) {
+    }
+    
+    private static Result runBatch(HttpClient client, String baseUrl, String body, int concurrency, int total)
+            throws InterruptedException {
+        
+        List<Long> latencies = Collections.synchronizedList(new ArrayList<>(total));
+        Map<Integer, Integer> statusCounts = new ConcurrentHashMap<>();
+        AtomicInteger remaining = new AtomicInteger(total);
+        CountDownLatch done = new CountDownLatch(concurrency);
+        
+        long start = System.nanoTime();
+        try (ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < concurrency; i++) {
+                workers.submit(() -> {
+                    try {
+                        while (remaining.getAndDecrement() > 0) {
+                            long sent = System.nanoTime();
+                            int status = send(client, baseUrl + "/api/v1/auth/login", body);
+                            statusCounts.merge(status, 1, Integer::sum);
+                            if (status == 200) {
+                                latencies.add((System.nanoTime() - sent) / 1000);
+                            }
+                        }
+                    } finally {
+                        done.countDown();
+                    }
+                });
+            }
+            done.await();
+        }
+        
+        return new Result(new ArrayList<>(latencies), statusCounts, (System.nanoTime() - start) / 1_000_000);
+    }
+    
+    private static int send(HttpClient client, String url, String json) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+                .timeout(Duration.ofSeconds(60))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+        try {
+            return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return -1;
+        } catch (Exception e) {
+            return -1;
+        }
+    }
+    
+    private static double percentile(List<Long> sorted, double quantile) {
+        int index = (int) Math.ceil(quantile * sorted.size()) - 1;
+        return sorted.get(Math.max(0, index)) / 1000.0;
+    }
+}
\ No newline at end of file
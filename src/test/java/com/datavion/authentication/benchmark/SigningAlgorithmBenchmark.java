@@ -0,0 +1,70 @@
+package com.datavion.authentication.benchmark;
+
+import com.datavion.authentication.security.AsymmetricSigningKeyProvider;
+import com.datavion.authentication.security.HmacSigningKeyProvider;
+import com.datavion.authentication.security.SigningKeyProvider;
+import com.datavion.authentication.util.JwtUtil;
+import com.datavion.authentication.util.ParsedToken;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sign and verify throughput of access tokens for each supported signing algorithm, measured
+ * through {@link JwtUtil} so claim serialization and parsing are included.
+ *
+ * Run with: {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.datavion.authentication.benchmark.SigningAlgorithmBenchmark}
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SigningAlgorithmBenchmark {
+    
+    private static final String SECRET = "404E635266556A586E3272357538782F413F4428472B4B6250645367566B5970";
+    
+    @Param({"HS256", "ES256", "EdDSA"})
+    private String algorithm;
+    
+    private JwtUtil jwtUtil;
+    private UserDetails userDetails;
+    private String token;
+    
+    @Setup
+    public void setUp() {
+        SigningKeyProvider provider = "HS256".equals(algorithm)
+                ? new HmacSigningKeyProvider(SECRET)
+                : AsymmetricSigningKeyProvider.ephemeral(AsymmetricSigningKeyProvider.Algorithm.valueOf(algorithm));
+        jwtUtil = new JwtUtil(null, provider);
+        ReflectionTestUtils.setField(jwtUtil, "accessTokenExpiration", 900000L);
+        ReflectionTestUtils.invokeMethod(jwtUtil, "init");
+        
+        userDetails = User.withUsername("benchmark").password("n/a").build();
+        token = jwtUtil.generateAccessToken(userDetails);
+    }
+    
+    @Benchmark
+    public String sign() {
+        return jwtUtil.generateAccessToken(userDetails);
+    }
+    
+    @Benchmark
+    public ParsedToken verify() {
+        return jwtUtil.parse(token);
+    }
+    
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(SigningAlgorithmBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,106 @@
+package com.datavion.authentication.repository;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Guards the plans of the hot user lookups: each must be served by its intended index, never by a
+ * sequential scan, on a table large enough for the planner to care.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class UserIndexPlanTest {
+    
+    @Container
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+    
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    
+    private static JdbcTemplate jdbcTemplate;
+    
+    @BeforeAll
+    static void setUp() {
+        Flyway.configure()
+                .dataSource(POSTGRES.getJdbcUrl(), POSTGRES.getUsername(), POSTGRES.getPassword())
+                .load()
+                .migrate();
+        jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(
+                POSTGRES.getJdbcUrl(), POSTGRES.getUsername(), POSTGRES.getPassword()));
+        
+        jdbcTemplate.update("""
+                INSERT INTO users (username, email, password_hash, created_at, deleted_at)
+                SELECT 'User' || n, 'User' || n || '@Example.com', 'x',
+                       LOCALTIMESTAMP - n * INTERVAL '1 minute',
+                       CASE WHEN n % 10 = 0 THEN LOCALTIMESTAMP END
+                FROM generate_series(1, 20000) AS n
+                """);
+        jdbcTemplate.execute("ANALYZE users");
+    }
+    
+    @Test
+    void usernameLoginUsesTheLowerUsernameIndex() {
+        assertThat(plan("SELECT id FROM users WHERE lower(username) = lower(?) AND deleted_at IS NULL", "user123"))
+                .containsExactly("uq_users_username_lower");
+    }
+    
+    @Test
+    void emailLoginUsesTheLowerEmailIndex() {
+        assertThat(plan("SELECT id FROM users WHERE lower(email) = lower(?) AND deleted_at IS NULL",
+                "user123@example.com"))
+                .containsExactly("uq_users_email_lower");
+    }
+    
+    @Test
+    void failedLoginUpdateUsesTheLowerIndex() {
+        assertThat(plan("UPDATE users SET failed_login_attempts = failed_login_attempts + 1 "
+                + "WHERE lower(email) = lower(?) AND deleted_at IS NULL RETURNING id", "user7@example.com"))
+                .containsExactly("uq_users_email_lower");
+    }
+    
+    @Test
+    void deepCursorPageSeeksTheKeysetIndex() {
+        assertThat(plan("SELECT id FROM users WHERE deleted_at IS NULL AND (created_at, id) < (?, ?) "
+                        + "ORDER BY created_at DESC, id DESC LIMIT 51",
+                Timestamp.valueOf(LocalDateTime.now().minusDays(10)), 5000L))
+                .containsExactly("idx_users_active_created_id");
+    }
+    
+    /**
+     * The indexes the plan reads, failing on any sequential scan of {@code users}.
+     */
+    private static List<String> plan(String sql, Object... args) {
+        String json = jdbcTemplate.queryForObject("EXPLAIN (FORMAT JSON) " + sql, String.class, args);
+        List<String> indexes = new ArrayList<>();
+        try {
+            collect(OBJECT_MAPPER.readTree(json).get(0).get("Plan"), indexes);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        return indexes;
+    }
+    
+    private static void collect(JsonNode node, List<String> indexes) {
+        String type = node.get("Node Type").asText();
+        assertThat(type).as("plan node").isNotEqualTo("Seq Scan");
+        if (type.startsWith("Index") || type.startsWith("Bitmap Index")) {
+            indexes.add(node.get("Index Name").asText());
+        }
+        if (node.has("Plans")) {
+            node.get("Plans").forEach(child -> collect(child, indexes));
+        }
+    }
+}
\ No newline at end of file
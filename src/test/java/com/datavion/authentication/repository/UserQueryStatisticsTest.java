@@ -0,0 +1,222 @@
+package com.datavion.authentication.repository;
+
+import com.datavion.authentication.dto.UserCursorPage;
+import com.datavion.authentication.dto.UserResponse;
+import com.datavion.authentication.entity.RefreshToken;
+import com.datavion.authentication.entity.Role;
+import com.datavion.authentication.entity.User;
+import com.datavion.authentication.service.AuditLogService;
+import com.datavion.authentication.service.UserService;
+import jakarta.persistence.EntityManagerFactory;
+import org.flywaydb.core.Flyway;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import javax.sql.DataSource;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Counts the SQL statements behind the user read paths with Hibernate statistics, against the real
+ * schema, so a lazy association sneaking back into a mapping shows up as a failed count.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@SpringJUnitConfig(UserQueryStatisticsTest.JpaTestConfig.class)
+class UserQueryStatisticsTest {
+    
+    private static final int USERS = 40;
+    
+    @Container
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+    
+    @Autowired
+    private UserService userService;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private RoleRepository roleRepository;
+    
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+    
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
+    private Statistics statistics;
+    
+    @BeforeAll
+    static void migrate() {
+        Flyway.configure()
+                .dataSource(POSTGRES.getJdbcUrl(), POSTGRES.getUsername(), POSTGRES.getPassword())
+                .load()
+                .migrate();
+    }
+    
+    @BeforeEach
+    void seed() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        if (userRepository.count() > 0) {
+            return;
+        }
+        
+        transactionTemplate.executeWithoutResult(status -> {
+            Role user = roleRepository.findByName("USER").orElseThrow();
+            Role admin = roleRepository.findByName("ADMIN").orElseThrow();
+            for (int i = 0; i < USERS; i++) {
+                userRepository.save(User.builder()
+                        .username("user" + i)
+                        .email("user" + i + "@example.com")
+                        .passwordHash("{noop}x")
+                        .roles(i % 2 == 0 ? Set.of(user) : Set.of(user, admin))
+                        .createdAt(LocalDateTime.now())
+                        .build());
+            }
+        });
+    }
+    
+    @ParameterizedTest
+    @ValueSource(ints = {5, 20})
+    void userListingCostsThreeStatementsAtAnyPageSize(int pageSize) {
+        statistics.clear();
+        
+        Page<UserResponse> page = userService.getAllUsers(PageRequest.of(0, pageSize));
+        
+        assertThat(page.getContent()).hasSize(pageSize);
+        assertThat(page.getContent()).allSatisfy(user -> assertThat(user.getRoles()).contains("USER"));
+        assertThat(page.getTotalElements()).isEqualTo(USERS);
+        // Page, count, roles of the page
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+    }
+    
+    @Test
+    void cursorPagesCostTheSameAtAnyDepthAndCoverEveryUserOnce() {
+        Set<Long> seen = new HashSet<>();
+        String cursor = "";
+        int pages = 0;
+        do {
+            statistics.clear();
+            UserCursorPage page = userService.scrollUsers(cursor, 7, false);
+            // Seek query and roles of the page, no count
+            assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+            
+            page.getContent().forEach(user -> assertThat(seen.add(user.getId())).isTrue());
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+        
+        assertThat(seen).hasSize(USERS);
+        assertThat(pages).isEqualTo((USERS + 6) / 7);
+    }
+    
+    @Test
+    void userByIdLoadsRolesInTheSameStatement() {
+        Long id = userRepository.findByUsernameAndDeletedAtIsNull("user1").orElseThrow().getId();
+        statistics.clear();
+        
+        UserResponse user = userService.getUserById(id);
+        
+        assertThat(user.getRoles()).containsExactlyInAnyOrder("USER", "ADMIN");
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+    
+    @Test
+    void principalLookupLoadsRolesInTheSameStatement() {
+        statistics.clear();
+        
+        transactionTemplate.executeWithoutResult(status -> {
+            User user = userRepository.findWithRolesByUsernameOrEmail("user3@example.com").orElseThrow();
+            assertThat(user.getRoles()).extracting(Role::getName).containsExactlyInAnyOrder("USER", "ADMIN");
+        });
+        
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+    
+    @Test
+    void refreshTokenLookupBringsUserAndRoles() {
+        transactionTemplate.executeWithoutResult(status -> refreshTokenRepository.save(
+                RefreshToken.builder()
+                        .tokenHash("stats-test-token")
+                        .user(userRepository.findByUsernameAndDeletedAtIsNull("user5").orElseThrow())
+                        .expiresAt(LocalDateTime.now().plusDays(1))
+                        .createdAt(LocalDateTime.now())
+                        .build()));
+        statistics.clear();
+        
+        transactionTemplate.executeWithoutResult(status -> assertThat(refreshTokenRepository
+                .findByTokenHashWithUser("stats-test-token").orElseThrow().getUser().getRoles()).hasSize(2));
+        
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+    
+    @Configuration
+    @EnableJpaRepositories(basePackageClasses = UserRepository.class)
+    @EnableTransactionManagement
+    static class JpaTestConfig {
+        
+        @Bean
+        DataSource dataSource() {
+            return new DriverManagerDataSource(POSTGRES.getJdbcUrl(), POSTGRES.getUsername(), POSTGRES.getPassword());
+        }
+        
+        @Bean
+        LocalContainerEntityManagerFactoryBean entityManagerFactory(DataSource dataSource) {
+            LocalContainerEntityManagerFactoryBean factory = new LocalContainerEntityManagerFactoryBean();
+            factory.setDataSource(dataSource);
+            factory.setPackagesToScan("com.datavion.authentication.entity");
+            factory.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+            factory.setJpaPropertyMap(Map.of(
+                    "hibernate.hbm2ddl.auto", "validate",
+                    "hibernate.generate_statistics", "true",
+                    "hibernate.id.optimizer.pooled.preferred", "pooled-lo",
+                    "hibernate.jdbc.batch_size", "50",
+                    "hibernate.order_inserts", "true"));
+            return factory;
+        }
+        
+        @Bean
+        JpaTransactionManager transactionManager(EntityManagerFactory entityManagerFactory) {
+            return new JpaTransactionManager(entityManagerFactory);
+        }
+        
+        @Bean
+        TransactionTemplate transactionTemplate(JpaTransactionManager transactionManager) {
+            return new TransactionTemplate(transactionManager);
+        }
+        
+        @Bean
+        UserService userService(UserRepository userRepository) {
+            return new UserService(userRepository, mock(AuditLogService.class));
+        }
+    }
+}
\ No newline at end of file
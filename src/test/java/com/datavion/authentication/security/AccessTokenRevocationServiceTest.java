@@ -0,0 +1,169 @@
+package com.datavion.authentication.security;
+
+import com.datavion.authentication.util.JwtUtil;
+import com.datavion.authentication.util.ParsedToken;
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.test.util.ReflectionTestUtils;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.time.Duration;
+import java.util.Date;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.Mockito.doCallRealMethod;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.spy;
+
+/**
+ * Two revocation services sharing one embedded Redis stand in for two replicas.
+ */
+class AccessTokenRevocationServiceTest {
+    
+    private RedisServer redisServer;
+    private LettuceConnectionFactory connectionFactory;
+    private RedisMessageListenerContainer containerB;
+    private AccessTokenRevocationService nodeA;
+    private AccessTokenRevocationService nodeB;
+    
+    @BeforeEach
+    void setUp() throws IOException {
+        int port = freePort();
+        redisServer = new RedisServer(port);
+        redisServer.start();
+        
+        connectionFactory = new LettuceConnectionFactory(new RedisStandaloneConfiguration("localhost", port));
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+        
+        nodeA = newNode();
+        nodeB = newNode();
+        containerB = new RedisMessageListenerContainer();
+        containerB.setConnectionFactory(connectionFactory);
+        containerB.addMessageListener(nodeB, new ChannelTopic(AccessTokenRevocationService.REVOCATION_CHANNEL));
+        containerB.afterPropertiesSet();
+        containerB.start();
+    }
+    
+    @AfterEach
+    void tearDown() throws Exception {
+        containerB.destroy();
+        connectionFactory.destroy();
+        redisServer.stop();
+    }
+    
+    @Test
+    void revokedTokenIsRejectedOnEveryReplica() {
+        ParsedToken revoked = token(1L, System.currentTimeMillis());
+        ParsedToken other = token(1L, System.currentTimeMillis());
+        
+        nodeA.revoke(revoked);
+        
+        assertThat(nodeA.isRevoked(revoked)).isTrue();
+        await().atMost(Duration.ofSeconds(1)).until(() -> nodeB.isRevoked(revoked));
+        assertThat(nodeB.isRevoked(other)).isFalse();
+    }
+    
+    @Test
+    void replicaStartedLaterLoadsRevocationsFromRedis() {
+        ParsedToken revoked = token(1L, System.currentTimeMillis());
+        nodeA.revoke(revoked);
+        nodeA.revokeAllForUser(2L);
+        
+        AccessTokenRevocationService late = newNode();
+        
+        assertThat(late.isRevoked(revoked)).isTrue();
+        assertThat(late.isRevoked(token(2L, System.currentTimeMillis() - 60_000))).isTrue();
+    }
+    
+    @Test
+    void revokeAllForUserOnlyAffectsTokensIssuedBefore() throws InterruptedException {
+        ParsedToken before = token(3L, System.currentTimeMillis() - 5_000);
+        nodeA.revokeAllForUser(3L);
+        Thread.sleep(5);
+        // E.g. a login straight after a password reset, within the same second
+        ParsedToken after = token(3L, System.currentTimeMillis());
+        
+        assertThat(nodeA.isRevoked(before)).isTrue();
+        assertThat(nodeA.isRevoked(after)).isFalse();
+        assertThat(nodeA.isRevoked(token(4L, System.currentTimeMillis() - 5_000))).isFalse();
+    }
+    
+    @Test
+    void tokenWithoutMillisecondIssueTimeIsRevokedThroughTheEndOfItsSecond() {
+        nodeA.revokeAllForUser(6L);
+        long now = System.currentTimeMillis();
+        ParsedToken legacy = new ParsedToken("unused", Jwts.claims()
+                .id(UUID.randomUUID().toString())
+                .subject("user6")
+                .issuedAt(new Date(now / 1000 * 1000))
+                .expiration(new Date(now + 900_000))
+                .add(JwtUtil.CLAIM_USER_ID, 6L)
+                .build());
+        
+        assertThat(nodeA.isRevoked(legacy)).isTrue();
+    }
+    
+    @Test
+    void revocationRedisMissedIsEnforcedLocallyAndSharedOnRebuild() {
+        StringRedisTemplate flakyRedis = spy(new StringRedisTemplate(connectionFactory));
+        flakyRedis.afterPropertiesSet();
+        AccessTokenRevocationService node = newNode(flakyRedis);
+        ParsedToken revoked = token(5L, System.currentTimeMillis());
+        
+        doThrow(new RedisConnectionFailureException("down")).when(flakyRedis).opsForValue();
+        node.revoke(revoked);
+        doCallRealMethod().when(flakyRedis).opsForValue();
+        
+        // Redis is reachable again but does not know the jti; the node must not trust it
+        assertThat(node.isRevoked(revoked)).isTrue();
+        assertThat(nodeB.isRevoked(revoked)).isFalse();
+        
+        node.rebuild();
+        
+        assertThat(node.isRevoked(revoked)).isTrue();
+        await().atMost(Duration.ofSeconds(1)).until(() -> nodeB.isRevoked(revoked));
+    }
+    
+    private AccessTokenRevocationService newNode() {
+        return newNode(new StringRedisTemplate(connectionFactory));
+    }
+    
+    private AccessTokenRevocationService newNode(StringRedisTemplate redisTemplate) {
+        AccessTokenRevocationService service = new AccessTokenRevocationService(redisTemplate);
+        ReflectionTestUtils.setField(service, "accessTokenExpiration", 900_000L);
+        ReflectionTestUtils.setField(service, "expectedRevocations", 1_000L);
+        ReflectionTestUtils.setField(service, "falsePositiveRate", 0.001);
+        ReflectionTestUtils.invokeMethod(service, "init");
+        return service;
+    }
+    
+    private static ParsedToken token(Long userId, long issuedAtMillis) {
+        return new ParsedToken("unused", Jwts.claims()
+                .id(UUID.randomUUID().toString())
+                .subject("user" + userId)
+                .issuedAt(new Date(issuedAtMillis / 1000 * 1000))
+                .expiration(new Date(issuedAtMillis + 900_000))
+                .add(JwtUtil.CLAIM_ISSUED_AT_MILLIS, issuedAtMillis)
+                .add(JwtUtil.CLAIM_USER_ID, userId)
+                .build());
+    }
+    
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
\ No newline at end of file
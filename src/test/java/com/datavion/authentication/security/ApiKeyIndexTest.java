@@ -0,0 +1,132 @@
+package com.datavion.authentication.security;
+
+import com.datavion.authentication.entity.ApiKey;
+import com.datavion.authentication.entity.User;
+import com.datavion.authentication.repository.ApiKeyRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.test.util.ReflectionTestUtils;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.Mockito.*;
+
+/**
+ * Two index instances sharing one embedded Redis and one mocked repository stand in for two replicas.
+ */
+class ApiKeyIndexTest {
+    
+    private static final String DIGEST = "digest";
+    
+    private RedisServer redisServer;
+    private LettuceConnectionFactory connectionFactory;
+    private RedisMessageListenerContainer containerA;
+    private RedisMessageListenerContainer containerB;
+    private ApiKeyRepository repository;
+    private ApiKeyIndex nodeA;
+    private ApiKeyIndex nodeB;
+    private final AtomicBoolean revoked = new AtomicBoolean();
+    
+    @BeforeEach
+    void setUp() throws IOException {
+        int port = freePort();
+        redisServer = new RedisServer(port);
+        redisServer.start();
+        
+        connectionFactory = new LettuceConnectionFactory(new RedisStandaloneConfiguration("localhost", port));
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+        
+        repository = mock(ApiKeyRepository.class);
+        when(repository.findByKeyHashWithUser(anyString())).thenReturn(Optional.empty());
+        when(repository.findByKeyHashWithUser(DIGEST)).thenAnswer(invocation -> Optional.of(apiKey(revoked.get())));
+        
+        nodeA = newNode();
+        nodeB = newNode();
+        containerA = subscribe(nodeA);
+        containerB = subscribe(nodeB);
+    }
+    
+    @AfterEach
+    void tearDown() throws Exception {
+        containerA.destroy();
+        containerB.destroy();
+        connectionFactory.destroy();
+        redisServer.stop();
+    }
+    
+    @Test
+    void repeatedLookupsQueryTheDatabaseOnce() {
+        for (int i = 0; i < 100; i++) {
+            ApiKeyIndex.Entry entry = nodeA.find(DIGEST);
+            assertThat(entry.username()).isEqualTo("machine");
+            assertThat(entry.isUsable(LocalDateTime.now())).isTrue();
+        }
+        
+        verify(repository, times(1)).findByKeyHashWithUser(DIGEST);
+    }
+    
+    @Test
+    void unknownDigestsAreRememberedBriefly() {
+        for (int i = 0; i < 100; i++) {
+            assertThat(nodeA.find("unknown")).isNull();
+        }
+        
+        verify(repository, times(1)).findByKeyHashWithUser("unknown");
+    }
+    
+    @Test
+    void revocationOnOneReplicaReachesTheOtherWithinASecond() {
+        assertThat(nodeB.find(DIGEST).isUsable(LocalDateTime.now())).isTrue();
+        
+        revoked.set(true);
+        nodeA.invalidate(DIGEST);
+        
+        await().atMost(Duration.ofSeconds(1)).untilAsserted(() ->
+                assertThat(nodeB.find(DIGEST).isUsable(LocalDateTime.now())).isFalse());
+    }
+    
+    private ApiKeyIndex newNode() {
+        ApiKeyIndex index = new ApiKeyIndex(repository, new StringRedisTemplate(connectionFactory));
+        ReflectionTestUtils.setField(index, "maxSize", 100L);
+        ReflectionTestUtils.setField(index, "ttlSeconds", 60L);
+        ReflectionTestUtils.setField(index, "negativeMaxSize", 100L);
+        ReflectionTestUtils.setField(index, "negativeTtlSeconds", 60L);
+        ReflectionTestUtils.invokeMethod(index, "init");
+        return index;
+    }
+    
+    private RedisMessageListenerContainer subscribe(ApiKeyIndex index) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(index, new ChannelTopic(ApiKeyIndex.INVALIDATION_CHANNEL));
+        container.afterPropertiesSet();
+        container.start();
+        return container;
+    }
+    
+    private static ApiKey apiKey(boolean revoked) {
+        User user = User.builder().id(7L).username("machine").build();
+        return ApiKey.builder().id(3L).keyHash(DIGEST).name("ci").user(user).revoked(revoked).build();
+    }
+    
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
\ No newline at end of file
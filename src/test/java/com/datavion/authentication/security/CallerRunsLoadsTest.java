@@ -0,0 +1,68 @@
+package com.datavion.authentication.security;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CallerRunsLoadsTest {
+    
+    private final AsyncCache<String, String> cache = Caffeine.newBuilder().buildAsync();
+    
+    @Test
+    void concurrentMissesShareOneLoadRunOnTheFirstCaller() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            CompletableFuture<String> first = CompletableFuture.supplyAsync(() -> CallerRunsLoads.get(cache, "k", k -> {
+                loads.incrementAndGet();
+                loading.countDown();
+                await(release);
+                return Thread.currentThread().isVirtual() ? "virtual" : "platform";
+            }), executor);
+            assertThat(loading.await(1, TimeUnit.SECONDS)).isTrue();
+            
+            CompletableFuture<String> second = CompletableFuture.supplyAsync(() -> CallerRunsLoads.get(cache, "k", k -> {
+                loads.incrementAndGet();
+                return "second";
+            }), executor);
+            // Another key is not held up by the load in flight
+            assertThat(CallerRunsLoads.get(cache, "other", k -> "other")).isEqualTo("other");
+            
+            release.countDown();
+            assertThat(first.get(1, TimeUnit.SECONDS)).isEqualTo("virtual");
+            assertThat(second.get(1, TimeUnit.SECONDS)).isEqualTo("virtual");
+        }
+        assertThat(loads).hasValue(1);
+    }
+    
+    @Test
+    void failedLoadIsRethrownAndNotCached() {
+        IllegalStateException failure = new IllegalStateException("down");
+        
+        assertThatThrownBy(() -> CallerRunsLoads.get(cache, "k", k -> {
+            throw failure;
+        })).isSameAs(failure);
+        
+        assertThat(CallerRunsLoads.get(cache, "k", k -> "loaded")).isEqualTo("loaded");
+    }
+    
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
\ No newline at end of file
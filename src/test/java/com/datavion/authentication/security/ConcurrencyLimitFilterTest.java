@@ -0,0 +1,78 @@
+package com.datavion.authentication.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConcurrencyLimitFilterTest {
+    
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private ConcurrencyLimitFilter filter;
+    
+    @BeforeEach
+    void setUp() {
+        filter = new ConcurrencyLimitFilter(meterRegistry);
+        ReflectionTestUtils.setField(filter, "enabled", true);
+        ReflectionTestUtils.setField(filter, "maxInFlight", 1);
+        ReflectionTestUtils.setField(filter, "acquireTimeoutMillis", 20L);
+        ReflectionTestUtils.setField(filter, "retryAfterSeconds", 1L);
+        filter.init();
+    }
+    
+    @Test
+    void shedsRequestsOverTheLimitAndRecoversWhenOneFinishes() throws Exception {
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<MockHttpServletResponse> slow = CompletableFuture.supplyAsync(() -> {
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            try {
+                filter.doFilter(apiRequest(), response, (req, res) -> {
+                    entered.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+            return response;
+        });
+        assertThat(entered.await(5, TimeUnit.SECONDS)).isTrue();
+        
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        filter.doFilter(apiRequest(), rejected, (req, res) -> { });
+        assertThat(rejected.getStatus()).isEqualTo(503);
+        assertThat(rejected.getHeader("Retry-After")).isEqualTo("1");
+        assertThat(meterRegistry.get("auth.requests.in_flight").gauge().value()).isEqualTo(1.0);
+        
+        release.countDown();
+        assertThat(slow.get(5, TimeUnit.SECONDS).getStatus()).isEqualTo(200);
+        
+        MockHttpServletResponse accepted = new MockHttpServletResponse();
+        filter.doFilter(apiRequest(), accepted, (req, res) -> { });
+        assertThat(accepted.getStatus()).isEqualTo(200);
+        assertThat(meterRegistry.get("auth.requests.rejected").counter().count()).isEqualTo(1.0);
+    }
+    
+    @Test
+    void leavesNonApiPathsAlone() throws Exception {
+        MockHttpServletRequest health = new MockHttpServletRequest("GET", "/actuator/health");
+        assertThat(filter.shouldNotFilter(health)).isTrue();
+        assertThat(filter.shouldNotFilter(apiRequest())).isFalse();
+    }
+    
+    private static MockHttpServletRequest apiRequest() {
+        return new MockHttpServletRequest("POST", "/api/v1/auth/login");
+    }
+}
\ No newline at end of file
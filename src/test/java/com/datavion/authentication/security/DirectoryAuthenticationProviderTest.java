@@ -0,0 +1,216 @@
+package com.datavion.authentication.security;
+
+import com.datavion.authentication.config.LdapConfig;
+import com.datavion.authentication.config.SecurityConfig;
+import com.datavion.authentication.dto.LoginRequest;
+import com.datavion.authentication.entity.User;
+import com.datavion.authentication.exception.ServiceOverloadedException;
+import com.datavion.authentication.service.AuthService;
+import com.datavion.authentication.service.LdapUserProvisioner;
+import com.datavion.authentication.service.LoginActivityRecorder;
+import com.datavion.authentication.service.UserDetailsServiceImpl;
+import com.unboundid.ldap.listener.InMemoryDirectoryServer;
+import com.unboundid.ldap.listener.InMemoryDirectoryServerConfig;
+import com.unboundid.ldap.listener.InMemoryListenerConfig;
+import com.unboundid.ldap.listener.interceptor.InMemoryInterceptedSimpleBindRequest;
+import com.unboundid.ldap.listener.interceptor.InMemoryOperationInterceptor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.ldap.core.support.LdapContextSource;
+import org.springframework.ldap.pool2.factory.PooledContextSource;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Runs the provider against an in-memory UnboundID directory holding one user in one group.
+ */
+class DirectoryAuthenticationProviderTest {
+    
+    private InMemoryDirectoryServer directory;
+    private PooledContextSource pooledContextSource;
+    private UserDetailsServiceImpl userDetailsService;
+    private LdapUserProvisioner provisioner;
+    private DirectoryAuthenticationProvider provider;
+    private final AtomicBoolean provisioned = new AtomicBoolean();
+    private final AtomicInteger userBinds = new AtomicInteger();
+    
+    @BeforeEach
+    void setUp() throws Exception {
+        InMemoryDirectoryServerConfig config = new InMemoryDirectoryServerConfig("dc=example,dc=com");
+        config.setListenerConfigs(InMemoryListenerConfig.createLDAPConfig("ldap", 0));
+        config.addAdditionalBindCredentials("cn=admin,dc=example,dc=com", "admin-secret");
+        config.addInMemoryOperationInterceptor(new InMemoryOperationInterceptor() {
+            @Override
+            public void processSimpleBindRequest(InMemoryInterceptedSimpleBindRequest request) {
+                if (request.getRequest().getBindDN().startsWith("uid=")) {
+                    userBinds.incrementAndGet();
+                }
+            }
+        });
+        directory = new InMemoryDirectoryServer(config);
+        directory.add("dn: dc=example,dc=com", "objectClass: top", "objectClass: domain", "dc: example");
+        directory.add("dn: ou=users,dc=example,dc=com", "objectClass: organizationalUnit", "ou: users");
+        directory.add("dn: ou=groups,dc=example,dc=com", "objectClass: organizationalUnit", "ou: groups");
+        directory.add("dn: uid=alice,ou=users,dc=example,dc=com", "objectClass: inetOrgPerson",
+                "uid: alice", "cn: Alice", "sn: Example", "mail: alice@example.com", "userPassword: alice-secret");
+        directory.add("dn: cn=admins,ou=groups,dc=example,dc=com", "objectClass: groupOfNames",
+                "cn: admins", "member: uid=alice,ou=users,dc=example,dc=com");
+        directory.startListening();
+        
+        LdapConfig ldapConfig = new LdapConfig();
+        ReflectionTestUtils.setField(ldapConfig, "urls", new String[]{"ldap://localhost:" + directory.getListenPort()});
+        ReflectionTestUtils.setField(ldapConfig, "base", "dc=example,dc=com");
+        ReflectionTestUtils.setField(ldapConfig, "username", "cn=admin,dc=example,dc=com");
+        ReflectionTestUtils.setField(ldapConfig, "password", "admin-secret");
+        ReflectionTestUtils.setField(ldapConfig, "connectTimeoutMillis", 1000L);
+        ReflectionTestUtils.setField(ldapConfig, "readTimeoutMillis", 1000L);
+        ReflectionTestUtils.setField(ldapConfig, "poolMaxTotal", 4);
+        ReflectionTestUtils.setField(ldapConfig, "poolMinIdle", 0);
+        ReflectionTestUtils.setField(ldapConfig, "poolMaxWaitMillis", 500L);
+        ReflectionTestUtils.setField(ldapConfig, "poolEvictionIntervalMillis", 30000L);
+        LdapContextSource bindContextSource = ldapConfig.ldapBindContextSource();
+        pooledContextSource = ldapConfig.ldapPooledContextSource(bindContextSource);
+        
+        userDetailsService = mock(UserDetailsServiceImpl.class);
+        when(userDetailsService.loadUserByUsername(anyString())).thenAnswer(invocation -> {
+            String name = invocation.getArgument(0);
+            if (name.equals("bob")) {
+                return principal("bob", User.UserSource.LOCAL);
+            }
+            if (name.equals("alice") && provisioned.get()) {
+                return principal("alice", User.UserSource.LDAP);
+            }
+            throw new UsernameNotFoundException(name);
+        });
+        provisioner = mock(LdapUserProvisioner.class);
+        doAnswer(invocation -> {
+            provisioned.set(true);
+            return null;
+        }).when(provisioner).provision(anyString(), anyString(), any(), anyCollection());
+        
+        provider = new DirectoryAuthenticationProvider(ldapConfig.ldapTemplate(pooledContextSource), bindContextSource,
+                userDetailsService, provisioner);
+        ReflectionTestUtils.setField(provider, "userSearchBase", "ou=users");
+        ReflectionTestUtils.setField(provider, "userSearchFilter", "(uid={0})");
+        ReflectionTestUtils.setField(provider, "groupSearchBase", "ou=groups");
+        ReflectionTestUtils.setField(provider, "groupSearchFilter", "(member={0})");
+        ReflectionTestUtils.setField(provider, "usernameAttribute", "uid");
+        ReflectionTestUtils.setField(provider, "emailAttribute", "mail");
+        ReflectionTestUtils.setField(provider, "groupNameAttribute", "cn");
+        ReflectionTestUtils.setField(provider, "maxConcurrentOperations", 4);
+        ReflectionTestUtils.setField(provider, "acquireTimeoutMillis", 100L);
+        ReflectionTestUtils.setField(provider, "retryAfterSeconds", 1L);
+        ReflectionTestUtils.setField(provider, "bindCacheMaxSize", 100L);
+        ReflectionTestUtils.setField(provider, "bindCacheTtlSeconds", 60L);
+        ReflectionTestUtils.setField(provider, "groupCacheMaxSize", 100L);
+        ReflectionTestUtils.setField(provider, "groupCacheTtlSeconds", 60L);
+        ReflectionTestUtils.invokeMethod(provider, "init");
+    }
+    
+    @AfterEach
+    void tearDown() throws Exception {
+        pooledContextSource.destroy();
+        directory.shutDown(true);
+    }
+    
+    @Test
+    void firstLoginBindsAndProvisionsWithDirectoryGroups() {
+        Authentication result = provider.authenticate(login("alice", "alice-secret"));
+        
+        assertThat(result.isAuthenticated()).isTrue();
+        assertThat(result.getName()).isEqualTo("alice");
+        verify(provisioner).provision("uid=alice,ou=users,dc=example,dc=com", "alice", "alice@example.com", List.of("admins"));
+    }
+    
+    @Test
+    void groupsWithoutTheNameAttributeAreSkipped() throws Exception {
+        directory.add("dn: cn=operators,ou=groups,dc=example,dc=com", "objectClass: groupOfNames",
+                "cn: operators", "description: ops", "member: uid=alice,ou=users,dc=example,dc=com");
+        ReflectionTestUtils.setField(provider, "groupNameAttribute", "description");
+        
+        Authentication result = provider.authenticate(login("alice", "alice-secret"));
+        
+        assertThat(result.isAuthenticated()).isTrue();
+        verify(provisioner).provision("uid=alice,ou=users,dc=example,dc=com", "alice", "alice@example.com", List.of("ops"));
+    }
+    
+    @Test
+    void repeatedLoginIsServedFromTheBindCache() {
+        provider.authenticate(login("alice", "alice-secret"));
+        provider.authenticate(login("alice", "alice-secret"));
+        
+        assertThat(userBinds).hasValue(1);
+        verify(provisioner, times(1)).provision(anyString(), anyString(), any(), anyCollection());
+    }
+    
+    @Test
+    void wrongPasswordIsRejectedAndNotCached() {
+        provider.authenticate(login("alice", "alice-secret"));
+        
+        assertThatThrownBy(() -> provider.authenticate(login("alice", "wrong")))
+                .isInstanceOf(BadCredentialsException.class);
+        assertThatThrownBy(() -> provider.authenticate(login("alice", "")))
+                .isInstanceOf(BadCredentialsException.class);
+        assertThat(userBinds).hasValue(2);
+    }
+    
+    @Test
+    void localAccountsAreLeftToThePasswordProvider() {
+        assertThat(provider.authenticate(login("bob", "anything"))).isNull();
+        assertThat(userBinds).hasValue(0);
+    }
+    
+    @Test
+    void saturatedBulkheadFailsFastInsteadOfQueueing() {
+        ReflectionTestUtils.setField(provider, "maxConcurrentOperations", 0);
+        ReflectionTestUtils.invokeMethod(provider, "init");
+        
+        assertThatThrownBy(() -> provider.authenticate(login("alice", "alice-secret")))
+                .isInstanceOf(ServiceOverloadedException.class);
+    }
+    
+    @Test
+    void directoryOutageIsReportedAsUnavailableWithoutCountingAFailedLogin() throws Exception {
+        provisioned.set(true);
+        directory.shutDown(true);
+        
+        StaticListableBeanFactory beans = new StaticListableBeanFactory();
+        beans.addBean("directoryAuthenticationProvider", provider);
+        SecurityConfig securityConfig = new SecurityConfig(userDetailsService, mock(), null, null, null, null,
+                beans.getBeanProvider(DirectoryAuthenticationProvider.class));
+        LoginActivityRecorder loginActivityRecorder = mock(LoginActivityRecorder.class);
+        AuthService authService = new AuthService(null, null, null, null, null, null, null,
+                securityConfig.authenticationManager(), mock(), loginActivityRecorder, null, null, null, null);
+        LoginRequest request = new LoginRequest();
+        request.setUsernameOrEmail("alice");
+        request.setPassword("alice-secret");
+        
+        // Falling through to the password provider would have reported bad credentials
+        assertThatThrownBy(() -> authService.login(request)).isInstanceOf(ServiceOverloadedException.class);
+        verify(loginActivityRecorder, never()).recordFailure(anyString());
+    }
+    
+    private static UsernamePasswordAuthenticationToken login(String username, String password) {
+        return UsernamePasswordAuthenticationToken.unauthenticated(username, password);
+    }
+    
+    private static UserPrincipal principal(String username, User.UserSource source) {
+        User user = User.builder().id(1L).username(username).email(username + "@example.com")
+                .passwordHash(LdapUserProvisioner.NO_LOCAL_PASSWORD).emailVerified(true).source(source).build();
+        return new UserPrincipal(user, AuthoritySet.EMPTY);
+    }
+}
\ No newline at end of file
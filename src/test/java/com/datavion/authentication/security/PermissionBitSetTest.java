@@ -0,0 +1,41 @@
+package com.datavion.authentication.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PermissionBitSetTest {
+    
+    @Test
+    void claimRoundTripPreservesEveryOrdinal() {
+        PermissionBitSet bits = PermissionBitSet.of(List.of(0, 7, 8, 63, 64, 130));
+        
+        PermissionBitSet decoded = PermissionBitSet.fromClaim(bits.toClaim());
+        
+        assertThat(List.of(0, 7, 8, 63, 64, 130)).allMatch(decoded::get);
+        assertThat(decoded.get(1)).isFalse();
+        assertThat(decoded.get(129)).isFalse();
+        assertThat(decoded.get(10_000)).isFalse();
+    }
+    
+    @Test
+    void claimSizeTracksHighestOrdinalNotPermissionCount() {
+        assertThat(PermissionBitSet.of(List.of(0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16)).toClaim())
+                .hasSize(4);
+        assertThat(PermissionBitSet.EMPTY.toClaim()).isEmpty();
+    }
+    
+    @Test
+    void unionAndIterationCoverAllWords() {
+        PermissionBitSet union = PermissionBitSet.union(List.of(
+                PermissionBitSet.of(List.of(3)),
+                PermissionBitSet.of(List.of(70, 200))));
+        
+        assertThat(union.nextSetBit(0)).isEqualTo(3);
+        assertThat(union.nextSetBit(4)).isEqualTo(70);
+        assertThat(union.nextSetBit(71)).isEqualTo(200);
+        assertThat(union.nextSetBit(201)).isEqualTo(-1);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,142 @@
+package com.datavion.authentication.security;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.test.util.ReflectionTestUtils;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * Two cache instances sharing one embedded Redis stand in for two replicas.
+ */
+class PrincipalCacheTest {
+    
+    private RedisServer redisServer;
+    private LettuceConnectionFactory connectionFactory;
+    private RedisMessageListenerContainer containerA;
+    private RedisMessageListenerContainer containerB;
+    private PrincipalCache nodeA;
+    private PrincipalCache nodeB;
+    
+    @BeforeEach
+    void setUp() throws IOException {
+        int port = freePort();
+        redisServer = new RedisServer(port);
+        redisServer.start();
+        
+        connectionFactory = new LettuceConnectionFactory(new RedisStandaloneConfiguration("localhost", port));
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+        
+        nodeA = newNode();
+        nodeB = newNode();
+        containerA = subscribe(nodeA);
+        containerB = subscribe(nodeB);
+    }
+    
+    @AfterEach
+    void tearDown() throws Exception {
+        containerA.destroy();
+        containerB.destroy();
+        connectionFactory.destroy();
+        redisServer.stop();
+    }
+    
+    @Test
+    void secondReplicaIsServedFromRedisWithoutLoading() {
+        AtomicInteger loadsA = new AtomicInteger();
+        AtomicInteger loadsB = new AtomicInteger();
+        
+        nodeA.get("alice", countingLoader(loadsA, false));
+        PrincipalSnapshot snapshot = nodeB.get("alice", countingLoader(loadsB, false));
+        
+        assertThat(loadsA).hasValue(1);
+        assertThat(loadsB).hasValue(0);
+        assertThat(snapshot.roleIds()).containsExactly(3L);
+    }
+    
+    @Test
+    void evictionOnOneReplicaReachesTheOtherWithinASecond() {
+        AtomicInteger loadsB = new AtomicInteger();
+        nodeB.get("alice", countingLoader(loadsB, false));
+        assertThat(nodeB.get("alice", countingLoader(loadsB, true)).accountLocked()).isFalse();
+        
+        nodeA.evict(List.of("alice", "alice@example.com"));
+        
+        await().atMost(Duration.ofSeconds(1)).untilAsserted(() ->
+                assertThat(nodeB.get("alice", countingLoader(loadsB, true)).accountLocked()).isTrue());
+        assertThat(loadsB).hasValue(2);
+    }
+    
+    @Test
+    void evictionDuringALoadKeepsTheStaleSnapshotOutOfRedis() {
+        // The commit lands, and is evicted, between this replica's cache miss and its database read
+        PrincipalSnapshot stale = nodeA.get("alice", k -> {
+            nodeB.evict(List.of("alice", "alice@example.com"));
+            return countingLoader(new AtomicInteger(), false).apply(k);
+        });
+        
+        AtomicInteger loadsB = new AtomicInteger();
+        PrincipalSnapshot current = nodeB.get("alice", countingLoader(loadsB, true));
+        
+        assertThat(stale.accountLocked()).isFalse();
+        assertThat(loadsB).hasValue(1);
+        assertThat(current.accountLocked()).isTrue();
+    }
+    
+    @Test
+    void passwordHashIsNotSharedThroughRedis() {
+        nodeA.get("alice", countingLoader(new AtomicInteger(), false));
+        
+        StringRedisTemplate redisTemplate = new StringRedisTemplate(connectionFactory);
+        assertThat(redisTemplate.opsForValue().get("dauth:principal:alice")).doesNotContain("\"hash\"");
+        assertThat(nodeB.get("alice", countingLoader(new AtomicInteger(), false)).passwordHash()).isNull();
+    }
+    
+    private PrincipalCache newNode() {
+        PrincipalCache cache = new PrincipalCache(new StringRedisTemplate(connectionFactory));
+        ReflectionTestUtils.setField(cache, "l1MaxSize", 100L);
+        ReflectionTestUtils.setField(cache, "l1TtlSeconds", 60L);
+        ReflectionTestUtils.setField(cache, "l2TtlSeconds", 60L);
+        ReflectionTestUtils.invokeMethod(cache, "init");
+        return cache;
+    }
+    
+    private RedisMessageListenerContainer subscribe(PrincipalCache cache) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(cache, new ChannelTopic(PrincipalCache.INVALIDATION_CHANNEL));
+        container.afterPropertiesSet();
+        container.start();
+        return container;
+    }
+    
+    private static Function<String, PrincipalSnapshot> countingLoader(AtomicInteger loads, boolean locked) {
+        return username -> {
+            loads.incrementAndGet();
+            return new PrincipalSnapshot(1L, username, username + "@example.com", "hash", true, locked,
+                    null, 1L, null, null, List.of(3L));
+        };
+    }
+    
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,201 @@
+package com.datavion.authentication.security;
+
+import com.datavion.authentication.util.TokenHashUtil;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RateLimitFilterTest {
+    
+    private final RateLimiter rateLimiter = mock(RateLimiter.class);
+    private final FilterChain chain = mock(FilterChain.class);
+    
+    private RateLimitFilter filter;
+    
+    @BeforeEach
+    void setUp() {
+        TokenHashUtil tokenHashUtil = new TokenHashUtil();
+        ReflectionTestUtils.setField(tokenHashUtil, "secret", "test-secret-with-enough-entropy-for-hmac");
+        ReflectionTestUtils.invokeMethod(tokenHashUtil, "init");
+        
+        filter = new RateLimitFilter(rateLimiter, tokenHashUtil);
+        ReflectionTestUtils.setField(filter, "enabled", true);
+        ReflectionTestUtils.setField(filter, "loginMaxAttempts", 5);
+        ReflectionTestUtils.setField(filter, "loginIpMaxAttempts", 50);
+        ReflectionTestUtils.setField(filter, "loginDurationMinutes", 5L);
+        ReflectionTestUtils.invokeMethod(filter, "init");
+    }
+    
+    @Test
+    void addressOverItsLimitIsRejectedBeforeTheBodyIsRead() throws Exception {
+        when(rateLimiter.tryAcquire(anyList())).thenReturn(1500L);
+        CountingStream body = new CountingStream("{\"usernameOrEmail\":\"alice\"}");
+        MockHttpServletRequest request = login(body);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        
+        filter.doFilter(request, response, chain);
+        
+        assertThat(response.getStatus()).isEqualTo(429);
+        assertThat(response.getHeader("Retry-After")).isEqualTo("2");
+        assertThat(body.bytesRead).isZero();
+        verify(chain, never()).doFilter(any(), any());
+    }
+    
+    @Test
+    void oversizedBodyIsRejectedWithoutBufferingIt() throws Exception {
+        when(rateLimiter.tryAcquire(anyList())).thenReturn(0L);
+        CountingStream body = new CountingStream("{\"usernameOrEmail\":\"alice\",\"pad\":\"" + "x".repeat(1 << 20) + "\"}");
+        MockHttpServletRequest request = login(body);
+        // Chunked, so only the bounded read can catch it
+        request.removeHeader("Content-Length");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        
+        filter.doFilter(request, response, chain);
+        
+        assertThat(response.getStatus()).isEqualTo(413);
+        assertThat(body.bytesRead).isLessThanOrEqualTo(16 * 1024 + 1);
+        verify(chain, never()).doFilter(any(), any());
+    }
+    
+    @Test
+    void declaredOversizedBodyIsRejectedWithoutReadingIt() throws Exception {
+        when(rateLimiter.tryAcquire(anyList())).thenReturn(0L);
+        CountingStream body = new CountingStream("{}");
+        MockHttpServletRequest request = login(body);
+        request.removeHeader("Content-Length");
+        request.addHeader("Content-Length", 1 << 20);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        
+        filter.doFilter(request, response, chain);
+        
+        assertThat(response.getStatus()).isEqualTo(413);
+        assertThat(body.bytesRead).isZero();
+    }
+    
+    @Test
+    void cachedBodySupportsNonBlockingReads() throws Exception {
+        CachedBodyHttpServletRequest cached = new CachedBodyHttpServletRequest(login(new CountingStream("{}")), 1024);
+        ServletInputStream input = cached.getInputStream();
+        StringBuilder events = new StringBuilder();
+        
+        input.setReadListener(new ReadListener() {
+            @Override
+            public void onDataAvailable() throws IOException {
+                events.append("data:").append(new String(input.readAllBytes(), StandardCharsets.UTF_8)).append(' ');
+            }
+            
+            @Override
+            public void onAllDataRead() {
+                events.append("done");
+            }
+            
+            @Override
+            public void onError(Throwable t) {
+                events.append("error");
+            }
+        });
+        
+        assertThat(events).hasToString("data:{} done");
+    }
+    
+    @Test
+    void bodyNamingNoAccountStillCountsAgainstAnAccountSizedLimit() throws Exception {
+        when(rateLimiter.tryAcquire(anyList())).thenReturn(0L);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        
+        filter.doFilter(login(new CountingStream("{not json")), response, chain);
+        
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<RateLimit>> limits = ArgumentCaptor.forClass(List.class);
+        verify(rateLimiter, times(2)).tryAcquire(limits.capture());
+        assertThat(limits.getAllValues().get(1)).singleElement().satisfies(limit -> {
+            assertThat(limit.key()).isEqualTo("dauth:ratelimit:login:uninspected:10.0.0.1");
+            assertThat(limit.maxAttempts()).isEqualTo(5);
+        });
+        verify(chain).doFilter(any(), any());
+    }
+    
+    private static MockHttpServletRequest login(CountingStream body) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/v1/auth/login") {
+            @Override
+            public ServletInputStream getInputStream() {
+                return body;
+            }
+            
+            @Override
+            public long getContentLengthLong() {
+                String header = getHeader("Content-Length");
+                return header != null ? Long.parseLong(header) : -1;
+            }
+        };
+        request.setServletPath("/api/v1/auth/login");
+        request.setRemoteAddr("10.0.0.1");
+        request.setContentType("application/json");
+        request.addHeader("Content-Length", body.length);
+        return request;
+    }
+    
+    private static final class CountingStream extends ServletInputStream {
+        
+        private final ByteArrayInputStream input;
+        private final int length;
+        private int bytesRead;
+        
+        CountingStream(String body) {
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            this.input = new ByteArrayInputStream(bytes);
+            this.length = bytes.length;
+        }
+        
+        @Override
+        public int read() {
+            int b = input.read();
+            if (b >= 0) {
+                bytesRead++;
+            }
+            return b;
+        }
+        
+        @Override
+        public int read(byte[] b, int off, int len) {
+            int n = input.read(b, off, len);
+            bytesRead += Math.max(n, 0);
+            return n;
+        }
+        
+        @Override
+        public boolean isFinished() {
+            return input.available() == 0;
+        }
+        
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+        
+        @Override
+        public void setReadListener(ReadListener listener) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
\ No newline at end of file
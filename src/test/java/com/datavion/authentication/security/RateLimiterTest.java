@@ -0,0 +1,99 @@
+package com.datavion.authentication.security;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Two limiter instances sharing one embedded Redis stand in for two replicas.
+ */
+class RateLimiterTest {
+    
+    private static final Duration WINDOW = Duration.ofMinutes(5);
+    
+    private RedisServer redisServer;
+    private LettuceConnectionFactory connectionFactory;
+    private RateLimiter nodeA;
+    private RateLimiter nodeB;
+    
+    @BeforeEach
+    void setUp() throws IOException {
+        int port = freePort();
+        redisServer = new RedisServer(port);
+        redisServer.start();
+        
+        connectionFactory = new LettuceConnectionFactory(new RedisStandaloneConfiguration("localhost", port));
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+        
+        nodeA = newNode();
+        nodeB = newNode();
+    }
+    
+    @AfterEach
+    void tearDown() throws IOException {
+        connectionFactory.destroy();
+        redisServer.stop();
+    }
+    
+    @Test
+    void limitIsSharedAcrossReplicas() {
+        List<RateLimit> limits = List.of(new RateLimit("test:ip:10.0.0.1", 3, WINDOW));
+        
+        assertThat(nodeA.tryAcquire(limits)).isZero();
+        assertThat(nodeB.tryAcquire(limits)).isZero();
+        assertThat(nodeA.tryAcquire(limits)).isZero();
+        
+        long retryAfter = nodeB.tryAcquire(limits);
+        assertThat(retryAfter).isPositive().isLessThanOrEqualTo(WINDOW.toMillis());
+    }
+    
+    @Test
+    void rejectedRequestDoesNotConsumeOtherLimits() {
+        RateLimit account = new RateLimit("test:id:alice", 1, WINDOW);
+        RateLimit address = new RateLimit("test:ip:10.0.0.2", 2, WINDOW);
+        
+        assertThat(nodeA.tryAcquire(List.of(address, account))).isZero();
+        assertThat(nodeA.tryAcquire(List.of(address, account))).isPositive();
+        
+        // The address window still has its second slot because the rejected attempt was not recorded
+        assertThat(nodeA.tryAcquire(List.of(address))).isZero();
+        assertThat(nodeA.tryAcquire(List.of(address))).isPositive();
+    }
+    
+    @Test
+    void fallsBackToLocalWindowsWhenRedisIsDown() throws IOException {
+        redisServer.stop();
+        List<RateLimit> limits = List.of(new RateLimit("test:ip:10.0.0.3", 2, WINDOW));
+        
+        assertThat(nodeA.tryAcquire(limits)).isZero();
+        assertThat(nodeA.tryAcquire(limits)).isZero();
+        assertThat(nodeA.tryAcquire(limits)).isPositive();
+        
+        redisServer.start();
+    }
+    
+    private RateLimiter newNode() {
+        RateLimiter limiter = new RateLimiter(new StringRedisTemplate(connectionFactory));
+        ReflectionTestUtils.setField(limiter, "redisRetrySeconds", 60L);
+        return limiter;
+    }
+    
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
\ No newline at end of file
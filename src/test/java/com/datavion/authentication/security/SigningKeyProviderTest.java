@@ -0,0 +1,57 @@
+package com.datavion.authentication.security;
+
+import com.datavion.authentication.util.JwtUtil;
+import io.jsonwebtoken.JwtException;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.security.KeyPair;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SigningKeyProviderTest {
+    
+    private static final UserDetails USER = User.withUsername("alice").password("n/a").build();
+    
+    @Test
+    void tokensFromARetiredKeyStillVerifyAfterRotation() throws Exception {
+        KeyPair older = AsymmetricSigningKeyProvider.Algorithm.EdDSA.generateKeyPair();
+        KeyPair newer = AsymmetricSigningKeyProvider.Algorithm.EdDSA.generateKeyPair();
+        
+        JwtUtil beforeRotation = jwtUtil(new AsymmetricSigningKeyProvider(
+                AsymmetricSigningKeyProvider.Algorithm.EdDSA, Map.of("2026-01", older), null));
+        String oldToken = beforeRotation.generateAccessToken(USER);
+        
+        // The old private key is gone; only its public half remains for verification
+        AsymmetricSigningKeyProvider rotated = new AsymmetricSigningKeyProvider(AsymmetricSigningKeyProvider.Algorithm.EdDSA,
+                Map.of("2026-01", new KeyPair(older.getPublic(), null), "2026-02", newer), null);
+        JwtUtil afterRotation = jwtUtil(rotated);
+        
+        assertThat(rotated.signingKey().keyId()).isEqualTo("2026-02");
+        assertThat(rotated.publicJwks()).extracting(jwk -> jwk.getId()).containsExactly("2026-01", "2026-02");
+        assertThat(afterRotation.parse(oldToken).username()).isEqualTo("alice");
+        assertThat(afterRotation.parse(afterRotation.generateAccessToken(USER)).username()).isEqualTo("alice");
+    }
+    
+    @Test
+    void rejectsTokensSignedByUnknownOrSharedSecretKeys() {
+        JwtUtil es256 = jwtUtil(AsymmetricSigningKeyProvider.ephemeral(AsymmetricSigningKeyProvider.Algorithm.ES256));
+        JwtUtil otherEs256 = jwtUtil(AsymmetricSigningKeyProvider.ephemeral(AsymmetricSigningKeyProvider.Algorithm.ES256));
+        JwtUtil hmac = jwtUtil(new HmacSigningKeyProvider("404E635266556A586E3272357538782F413F4428472B4B6250645367566B5970"));
+        
+        assertThatThrownBy(() -> es256.parse(otherEs256.generateAccessToken(USER))).isInstanceOf(JwtException.class);
+        assertThatThrownBy(() -> es256.parse(hmac.generateAccessToken(USER))).isInstanceOf(JwtException.class);
+        assertThat(hmac.parse(hmac.generateAccessToken(USER)).username()).isEqualTo("alice");
+    }
+    
+    private static JwtUtil jwtUtil(SigningKeyProvider provider) {
+        JwtUtil jwtUtil = new JwtUtil(null, provider);
+        ReflectionTestUtils.setField(jwtUtil, "accessTokenExpiration", 900000L);
+        ReflectionTestUtils.invokeMethod(jwtUtil, "init");
+        return jwtUtil;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,94 @@
+package com.datavion.authentication.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+class AuditLogServiceTest {
+    
+    @TempDir
+    Path tempDir;
+    
+    private final List<List<AuditEvent>> batches = new CopyOnWriteArrayList<>();
+    
+    private final AtomicBoolean databaseDown = new AtomicBoolean();
+    
+    private AuditLogService service;
+    
+    private AuditSpillFile spillFile;
+    
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        service.stop();
+    }
+    
+    @Test
+    void coalescesEventsIntoBoundedBatches() {
+        service = create(10, 0L);
+        
+        for (int i = 0; i < 25; i++) {
+            service.success(AuditLogService.ACTION_LOGIN, (long) i);
+        }
+        
+        await().atMost(Duration.ofSeconds(5)).until(() -> written() == 25);
+        assertThat(batches).allMatch(batch -> batch.size() <= 10);
+        assertThat(batches.size()).isLessThan(25);
+    }
+    
+    @Test
+    void spillsWhileDatabaseIsDownAndReplaysAfterRecovery() {
+        service = create(10, 0L);
+        databaseDown.set(true);
+        
+        service.failure(AuditLogService.ACTION_LOGIN, 7L, Map.of("reason", "bad_credentials"));
+        await().atMost(Duration.ofSeconds(5)).until(spillFile::hasPending);
+        
+        databaseDown.set(false);
+        service.success(AuditLogService.ACTION_LOGOUT, 7L);
+        
+        await().atMost(Duration.ofSeconds(5)).until(() -> written() == 2 && !spillFile.hasPending());
+        AuditEvent replayed = batches.stream().flatMap(List::stream)
+                .filter(event -> event.action().equals(AuditLogService.ACTION_LOGIN))
+                .findFirst().orElseThrow();
+        assertThat(replayed.metadata()).containsEntry("reason", "bad_credentials");
+    }
+    
+    private long written() {
+        return batches.stream().mapToLong(List::size).sum();
+    }
+    
+    private AuditLogService create(int batchSize, long replayIntervalMillis) {
+        AuditLogWriter writer = new AuditLogWriter(null) {
+            @Override
+            public void write(List<AuditEvent> events) {
+                if (databaseDown.get()) {
+                    throw new DataAccessResourceFailureException("database down");
+                }
+                batches.add(List.copyOf(events));
+            }
+        };
+        spillFile = new AuditSpillFile(tempDir.resolve("audit-spill.ndjson").toString());
+        
+        AuditLogService audit = new AuditLogService(writer, spillFile, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(audit, "queueCapacity", 100);
+        ReflectionTestUtils.setField(audit, "batchSize", batchSize);
+        ReflectionTestUtils.setField(audit, "flushIntervalMillis", 50L);
+        ReflectionTestUtils.setField(audit, "overflowPolicy", AuditLogService.OverflowPolicy.SPILL);
+        ReflectionTestUtils.setField(audit, "replayIntervalMillis", replayIntervalMillis);
+        audit.start();
+        return audit;
+    }
+}
\ No newline at end of file
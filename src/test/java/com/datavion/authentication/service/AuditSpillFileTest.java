@@ -0,0 +1,86 @@
+package com.datavion.authentication.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AuditSpillFileTest {
+    
+    @TempDir
+    Path tempDir;
+    
+    private final List<AuditEvent> delivered = new ArrayList<>();
+    
+    @Test
+    void tornLineIsQuarantinedAndTheRestReplayed() throws IOException {
+        AuditSpillFile spillFile = new AuditSpillFile(tempDir.resolve("audit-spill.ndjson").toString());
+        spillFile.append(events(1, 2));
+        // A crash mid-append leaves a partial last line
+        Files.writeString(tempDir.resolve("audit-spill.ndjson"), "{\"userId\":3,\"act",
+                StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+        
+        int quarantined = spillFile.replay(10, delivered::addAll);
+        
+        assertThat(quarantined).isEqualTo(1);
+        assertThat(delivered).extracting(AuditEvent::userId).containsExactly(1L, 2L);
+        assertThat(spillFile.hasPending()).isFalse();
+        assertThat(Files.readAllLines(tempDir.resolve("audit-spill.ndjson.quarantine")))
+                .containsExactly("{\"userId\":3,\"act");
+    }
+    
+    @Test
+    void failedReplayResumesAfterTheLastAcceptedBatch() throws IOException {
+        AuditSpillFile spillFile = new AuditSpillFile(tempDir.resolve("audit-spill.ndjson").toString());
+        spillFile.append(events(1, 2, 3, 4, 5));
+        AtomicInteger calls = new AtomicInteger();
+        
+        assertThatThrownBy(() -> spillFile.replay(2, batch -> {
+            if (calls.incrementAndGet() == 2) {
+                throw new DataAccessResourceFailureException("database down");
+            }
+            delivered.addAll(batch);
+        })).isInstanceOf(DataAccessResourceFailureException.class);
+        assertThat(spillFile.hasPending()).isTrue();
+        
+        spillFile.replay(2, delivered::addAll);
+        
+        assertThat(delivered).extracting(AuditEvent::userId).containsExactly(1L, 2L, 3L, 4L, 5L);
+        assertThat(spillFile.hasPending()).isFalse();
+        assertThat(tempDir.resolve("audit-spill.ndjson.replay.offset")).doesNotExist();
+    }
+    
+    @Test
+    void appendsAfterAReplayGoToAFreshFile() throws IOException {
+        AuditSpillFile spillFile = new AuditSpillFile(tempDir.resolve("audit-spill.ndjson").toString());
+        spillFile.append(events(1));
+        spillFile.sync();
+        spillFile.replay(10, delivered::addAll);
+        
+        spillFile.append(events(2));
+        
+        assertThat(tempDir.resolve("audit-spill.ndjson.replay")).doesNotExist();
+        assertThat(spillFile.hasPending()).isTrue();
+        spillFile.replay(10, delivered::addAll);
+        assertThat(delivered).extracting(AuditEvent::userId).containsExactly(1L, 2L);
+    }
+    
+    private static List<AuditEvent> events(long... userIds) {
+        return LongStream.of(userIds)
+                .mapToObj(id -> new AuditEvent(id, AuditLogService.ACTION_LOGIN, "SUCCESS", null, null, Map.of(), null))
+                .toList();
+    }
+}
\ No newline at end of file
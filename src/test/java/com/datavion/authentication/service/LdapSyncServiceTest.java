@@ -0,0 +1,189 @@
+package com.datavion.authentication.service;
+
+import com.datavion.authentication.config.LdapConfig;
+import com.datavion.authentication.security.AccessTokenRevocationService;
+import com.datavion.authentication.security.PrincipalCache;
+import com.unboundid.ldap.listener.InMemoryDirectoryServer;
+import com.unboundid.ldap.listener.InMemoryDirectoryServerConfig;
+import com.unboundid.ldap.listener.InMemoryListenerConfig;
+import com.unboundid.ldap.sdk.Modification;
+import com.unboundid.ldap.sdk.ModificationType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.ldap.core.support.LdapContextSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Runs the sync against an in-memory UnboundID directory of 25 users and two groups, with pages
+ * of 10 and the database side mocked.
+ */
+class LdapSyncServiceTest {
+    
+    private static final String BASE = "dc=example,dc=com";
+    private static final int USERS = 25;
+    
+    private InMemoryDirectoryServer directory;
+    private LdapContextSource contextSource;
+    private LdapSyncWriter writer;
+    private AccessTokenRevocationService revocationService;
+    private PrincipalCache principalCache;
+    private LdapSyncService syncService;
+    private final List<List<LdapSyncWriter.DirectoryUser>> upsertedPages = new ArrayList<>();
+    
+    @BeforeEach
+    void setUp() throws Exception {
+        InMemoryDirectoryServerConfig config = new InMemoryDirectoryServerConfig(BASE);
+        config.setListenerConfigs(InMemoryListenerConfig.createLDAPConfig("ldap", 0));
+        config.addAdditionalBindCredentials("cn=admin," + BASE, "admin-secret");
+        directory = new InMemoryDirectoryServer(config);
+        directory.add("dn: " + BASE, "objectClass: top", "objectClass: domain", "dc: example");
+        directory.add("dn: ou=users," + BASE, "objectClass: organizationalUnit", "ou: users");
+        directory.add("dn: ou=groups," + BASE, "objectClass: organizationalUnit", "ou: groups");
+        for (int i = 0; i < USERS; i++) {
+            String uid = "user%02d".formatted(i);
+            directory.add("dn: uid=" + uid + ",ou=users," + BASE, "objectClass: inetOrgPerson", "uid: " + uid,
+                    "cn: " + uid, "sn: Example", "mail: " + uid + "@example.com");
+        }
+        directory.add("dn: cn=admins,ou=groups," + BASE, "objectClass: groupOfNames", "cn: admins",
+                "member: uid=user00,ou=users," + BASE, "member: uid=user01,ou=users," + BASE);
+        directory.add("dn: cn=unmapped,ou=groups," + BASE, "objectClass: groupOfNames", "cn: unmapped",
+                "member: uid=user02,ou=users," + BASE);
+        directory.startListening();
+        
+        LdapConfig ldapConfig = new LdapConfig();
+        ReflectionTestUtils.setField(ldapConfig, "urls", new String[]{"ldap://localhost:" + directory.getListenPort()});
+        ReflectionTestUtils.setField(ldapConfig, "base", BASE);
+        ReflectionTestUtils.setField(ldapConfig, "username", "cn=admin," + BASE);
+        ReflectionTestUtils.setField(ldapConfig, "password", "admin-secret");
+        ReflectionTestUtils.setField(ldapConfig, "connectTimeoutMillis", 1000L);
+        ReflectionTestUtils.setField(ldapConfig, "readTimeoutMillis", 1000L);
+        contextSource = ldapConfig.ldapBindContextSource();
+        
+        writer = mock(LdapSyncWriter.class);
+        when(writer.readState()).thenReturn(Optional.empty());
+        when(writer.globalRoles()).thenReturn(Map.of("ADMINS", 2L, "USER", 1L));
+        when(writer.upsertUsers(anyList(), any())).thenAnswer(invocation -> {
+            List<LdapSyncWriter.DirectoryUser> page = invocation.getArgument(0);
+            upsertedPages.add(page);
+            return page.size();
+        });
+        SchedulerLeaseService leaseService = mock(SchedulerLeaseService.class);
+        when(leaseService.tryAcquire(anyString(), any(Duration.class))).thenReturn(true);
+        principalCache = mock(PrincipalCache.class);
+        revocationService = mock(AccessTokenRevocationService.class);
+        
+        syncService = new LdapSyncService(contextSource, writer, leaseService, principalCache, revocationService);
+        ReflectionTestUtils.setField(syncService, "enabled", true);
+        ReflectionTestUtils.setField(syncService, "pageSize", 10);
+        ReflectionTestUtils.setField(syncService, "fullResyncIntervalHours", 24L);
+        ReflectionTestUtils.setField(syncService, "leaseSeconds", 60L);
+        ReflectionTestUtils.setField(syncService, "userFilter", "(objectClass=person)");
+        ReflectionTestUtils.setField(syncService, "groupFilter", "(objectClass=groupOfNames)");
+        ReflectionTestUtils.setField(syncService, "memberAttribute", "member");
+        ReflectionTestUtils.setField(syncService, "changeAttribute", "modifyTimestamp");
+        ReflectionTestUtils.setField(syncService, "userSearchBase", "ou=users");
+        ReflectionTestUtils.setField(syncService, "groupSearchBase", "ou=groups");
+        ReflectionTestUtils.setField(syncService, "usernameAttribute", "uid");
+        ReflectionTestUtils.setField(syncService, "emailAttribute", "mail");
+        ReflectionTestUtils.setField(syncService, "groupNameAttribute", "cn");
+        ReflectionTestUtils.setField(syncService, "defaultRole", "USER");
+    }
+    
+    @AfterEach
+    void tearDown() {
+        directory.shutDown(true);
+    }
+    
+    @Test
+    void fullSyncReadsEveryUserPageByPageAndMirrorsMappedGroups() {
+        when(writer.removeUnseen(any())).thenReturn(List.of(41L, 42L));
+        
+        LdapSyncService.SyncResult result = syncService.sync(false);
+        
+        assertThat(result.full()).isTrue();
+        assertThat(result.usersSeen()).isEqualTo(USERS);
+        assertThat(upsertedPages).extracting(List::size).containsExactly(10, 10, 5);
+        verify(writer).replaceRoleMembers(eq(2L),
+                eq(List.of("uid=user00,ou=users," + BASE, "uid=user01,ou=users," + BASE)), eq(10));
+        verify(writer, times(1)).replaceRoleMembers(anyLong(), anyList(), anyInt());
+        verify(writer).assignDefaultRole(1L);
+        verify(writer, never()).clearRoleMembers(anyLong());
+        verify(writer).removeUnseen(any());
+        // Users the directory no longer has lose their access tokens too
+        verify(revocationService).revokeAllForUser(41L);
+        verify(revocationService).revokeAllForUser(42L);
+        assertThat(result.usersRemoved()).isEqualTo(2);
+        verify(writer).saveState(notNull(), notNull(), notNull());
+        verify(principalCache).evictAll();
+    }
+    
+    @Test
+    void incrementalSyncReadsOnlyEntriesChangedSinceTheLastRun() throws Exception {
+        syncService.sync(false);
+        ArgumentCaptor<String> userMark = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<String> groupMark = ArgumentCaptor.forClass(String.class);
+        verify(writer).saveState(userMark.capture(), groupMark.capture(), any());
+        when(writer.readState()).thenReturn(Optional.of(
+                new LdapSyncWriter.SyncState(userMark.getValue(), groupMark.getValue(), LocalDateTime.now())));
+        upsertedPages.clear();
+        
+        Thread.sleep(20);
+        directory.modify("uid=user07,ou=users," + BASE,
+                new Modification(ModificationType.REPLACE, "mail", "user07@example.org"));
+        LdapSyncService.SyncResult result = syncService.sync(false);
+        
+        assertThat(result.full()).isFalse();
+        List<LdapSyncWriter.DirectoryUser> upserted = upsertedPages.stream().flatMap(List::stream).toList();
+        assertThat(upserted).contains(new LdapSyncWriter.DirectoryUser(
+                "uid=user07,ou=users," + BASE, "user07", "user07@example.org"));
+        // Entries stamped exactly at the previous mark are read again; nothing older is
+        assertThat(upserted.size()).isLessThan(USERS);
+        verify(writer, times(1)).removeUnseen(any());
+    }
+    
+    @Test
+    void fullSyncStripsTheRoleOfAGroupDeletedFromTheDirectory() throws Exception {
+        directory.delete("cn=admins,ou=groups," + BASE);
+        when(writer.clearRoleMembers(2L)).thenReturn(2);
+        
+        LdapSyncService.SyncResult result = syncService.sync(true);
+        
+        assertThat(result.groupsApplied()).isZero();
+        verify(writer, never()).replaceRoleMembers(anyLong(), anyList(), anyInt());
+        verify(writer).clearRoleMembers(2L);
+        // The default role is held by every LDAP user whatever the groups say
+        verify(writer, never()).clearRoleMembers(1L);
+        verify(principalCache).evictAll();
+    }
+    
+    @Test
+    void incrementalSyncLeavesRolesOfUnchangedGroupsAlone() throws Exception {
+        syncService.sync(false);
+        when(writer.readState()).thenReturn(Optional.of(
+                new LdapSyncWriter.SyncState("29991231000000Z", "29991231000000Z", LocalDateTime.now())));
+        
+        syncService.sync(false);
+        
+        verify(writer, never()).clearRoleMembers(anyLong());
+    }
+    
+    @Test
+    void laterMarkComparesUsnsNumerically() {
+        assertThat(LdapSyncService.laterMark("999", "1000")).isEqualTo("1000");
+        assertThat(LdapSyncService.laterMark("20261017120000Z", "20261017115959Z")).isEqualTo("20261017120000Z");
+        assertThat(LdapSyncService.laterMark(null, "5")).isEqualTo("5");
+    }
+}
\ No newline at end of file
@@ -0,0 +1,73 @@
+package com.datavion.authentication.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class LoginActivityRecorderTest {
+    
+    private static final LocalDateTime T0 = LocalDateTime.of(2026, 1, 1, 12, 0);
+    
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    
+    private LoginActivityRecorder recorder;
+    
+    @BeforeEach
+    void setUp() {
+        recorder = new LoginActivityRecorder(jdbcTemplate, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(recorder, "maxFailedAttempts", 5);
+        ReflectionTestUtils.setField(recorder, "flushBatchSize", 500);
+        recorder.init();
+    }
+    
+    @Test
+    void repeatedLoginsCoalesceIntoOneRowPerUser() {
+        recorder.recordSuccess(2L, T0.plusSeconds(5), "10.0.0.2");
+        recorder.recordSuccess(1L, T0.plusSeconds(3), "10.0.0.1");
+        recorder.recordSuccess(1L, T0, "10.0.0.9");
+        clearInvocations(jdbcTemplate);
+        
+        recorder.flush();
+        
+        ArgumentCaptor<Object[]> args = ArgumentCaptor.forClass(Object[].class);
+        verify(jdbcTemplate).update(startsWith("UPDATE users AS u"), args.capture());
+        assertThat(args.getValue()).containsExactly(
+                1L, Timestamp.valueOf(T0.plusSeconds(3)), "10.0.0.1",
+                2L, Timestamp.valueOf(T0.plusSeconds(5)), "10.0.0.2");
+        
+        clearInvocations(jdbcTemplate);
+        recorder.flush();
+        verify(jdbcTemplate, never()).update(anyString(), any(Object[].class));
+    }
+    
+    @Test
+    void failedFlushIsRetriedOnTheNextOne() {
+        recorder.recordSuccess(1L, T0, "10.0.0.1");
+        when(jdbcTemplate.update(startsWith("UPDATE users AS u"), any(Object[].class)))
+                .thenThrow(new TransientDataAccessResourceException("database down"))
+                .thenReturn(1);
+        
+        recorder.flush();
+        recorder.flush();
+        
+        verify(jdbcTemplate, times(2)).update(startsWith("UPDATE users AS u"), any(Object[].class));
+    }
+}
\ No newline at end of file
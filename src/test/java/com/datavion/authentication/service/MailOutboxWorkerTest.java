@@ -0,0 +1,161 @@
+package com.datavion.authentication.service;
+
+import com.datavion.authentication.service.MailOutboxStore.Failure;
+import com.datavion.authentication.service.MailOutboxStore.OutboxMessage;
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.GreenMailUtil;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.mockito.ArgumentCaptor;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.net.ServerSocket;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class MailOutboxWorkerTest {
+    
+    @RegisterExtension
+    static final GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP.dynamicPort());
+    
+    private final MailOutboxStore store = mock(MailOutboxStore.class);
+    
+    private MailOutboxWorker worker;
+    
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (worker != null) {
+            worker.shutdown();
+        }
+    }
+    
+    @Test
+    void batchIsSplitAcrossSendersAndMarkedSent() throws Exception {
+        worker = worker(greenMail.getSmtp().getPort());
+        List<OutboxMessage> batch = IntStream.rangeClosed(1, 5)
+                .mapToObj(i -> verification(i, "user" + i + "@example.com", 1))
+                .toList();
+        when(store.claim(anyInt(), anyLong())).thenReturn(batch);
+        
+        assertThat(worker.dispatchBatch()).isEqualTo(5);
+        
+        MimeMessage[] received = greenMail.getReceivedMessages();
+        assertThat(received).hasSize(5);
+        assertThat(received[0].getSubject()).isEqualTo("Verify your email address");
+        assertThat(GreenMailUtil.getBody(received[0])).contains("https://app.example.com/verify?token=t");
+        
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Long>> sent = ArgumentCaptor.forClass(List.class);
+        verify(store, atLeastOnce()).markSent(sent.capture());
+        // Two senders, so the batch went out as two chunks
+        assertThat(sent.getAllValues()).hasSize(2);
+        assertThat(sent.getAllValues().stream().flatMap(List::stream)).containsExactlyInAnyOrder(1L, 2L, 3L, 4L, 5L);
+    }
+    
+    @Test
+    void unrenderableMessageIsGivenUpWithoutBlockingTheRest() {
+        worker = worker(greenMail.getSmtp().getPort());
+        ReflectionTestUtils.setField(worker, "senders", 1);
+        when(store.claim(anyInt(), anyLong())).thenReturn(List.of(
+                verification(1, "ok@example.com", 1),
+                new OutboxMessage(2, "no-such-template", "bad@example.com", Map.of(), 1)));
+        
+        worker.dispatchBatch();
+        
+        assertThat(greenMail.getReceivedMessages()).hasSize(1);
+        verify(store).markSent(List.of(1L));
+        List<Failure> failures = capturedFailures();
+        assertThat(failures).singleElement().satisfies(failure -> {
+            assertThat(failure.id()).isEqualTo(2);
+            assertThat(failure.permanent()).isTrue();
+        });
+    }
+    
+    @Test
+    void unreadableModelIsGivenUpOnItsFirstClaim() {
+        worker = worker(greenMail.getSmtp().getPort());
+        ReflectionTestUtils.setField(worker, "senders", 1);
+        when(store.claim(anyInt(), anyLong())).thenReturn(List.of(
+                new OutboxMessage(1, MailTemplates.VERIFY_EMAIL, "bad@example.com", null, 1),
+                verification(2, "ok@example.com", 1)));
+        
+        assertThat(worker.dispatchBatch()).isEqualTo(2);
+        
+        assertThat(greenMail.getReceivedMessages()).hasSize(1);
+        verify(store).markSent(List.of(2L));
+        assertThat(capturedFailures())
+                .extracting(Failure::id, Failure::permanent)
+                .containsExactly(tuple(1L, true));
+    }
+    
+    @Test
+    void unreachableServerBacksOffUntilAttemptsRunOut() throws Exception {
+        int closedPort;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            closedPort = socket.getLocalPort();
+        }
+        worker = worker(closedPort);
+        when(store.claim(anyInt(), anyLong())).thenReturn(List.of(
+                verification(1, "a@example.com", 3),
+                verification(2, "b@example.com", 8)));
+        
+        worker.dispatchBatch();
+        
+        verify(store, atLeastOnce()).markSent(List.of());
+        // 30s doubled twice for the third attempt; the eighth and last attempt is given up
+        assertThat(capturedFailures())
+                .extracting(Failure::id, Failure::retryAfterSeconds, Failure::permanent)
+                .containsExactlyInAnyOrder(tuple(1L, 120L, false), tuple(2L, 3600L, true));
+    }
+    
+    private List<Failure> capturedFailures() {
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Failure>> failures = ArgumentCaptor.forClass(List.class);
+        verify(store, atLeastOnce()).markFailed(failures.capture());
+        return failures.getAllValues().stream().flatMap(List::stream).toList();
+    }
+    
+    private MailOutboxWorker worker(int smtpPort) {
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("127.0.0.1");
+        mailSender.setPort(smtpPort);
+        
+        MailTemplates templates = new MailTemplates();
+        templates.init();
+        
+        MailOutboxWorker worker = new MailOutboxWorker(store, templates, mailSender,
+                mock(SchedulerLeaseService.class), new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(worker, "enabled", true);
+        ReflectionTestUtils.setField(worker, "from", "noreply@example.com");
+        ReflectionTestUtils.setField(worker, "batchSize", 100);
+        ReflectionTestUtils.setField(worker, "senders", 2);
+        ReflectionTestUtils.setField(worker, "claimTimeoutSeconds", 300L);
+        ReflectionTestUtils.setField(worker, "maxAttempts", 8);
+        ReflectionTestUtils.setField(worker, "backoffBaseSeconds", 30L);
+        ReflectionTestUtils.setField(worker, "backoffMaxSeconds", 3600L);
+        worker.init();
+        return worker;
+    }
+    
+    private static OutboxMessage verification(long id, String recipient, int attempts) {
+        return new OutboxMessage(id, MailTemplates.VERIFY_EMAIL, recipient, Map.of(
+                "username", "user" + id,
+                "link", "https://app.example.com/verify?token=t" + id,
+                "expiresInHours", "24"), attempts);
+    }
+}
\ No newline at end of file
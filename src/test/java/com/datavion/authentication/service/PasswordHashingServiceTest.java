@@ -0,0 +1,83 @@
+package com.datavion.authentication.service;
+
+import com.datavion.authentication.exception.ServiceOverloadedException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PasswordHashingServiceTest {
+    
+    private PasswordHashingService service;
+    
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+    
+    @Test
+    void legacyHashesStillMatchAndAreFlaggedForUpgrade() {
+        service = create(4, 1, 16);
+        String legacy = new BCryptPasswordEncoder(4).encode("Secret@123");
+        
+        assertThat(service.matches("Secret@123", legacy)).isTrue();
+        assertThat(service.upgradeEncoding(legacy)).isTrue();
+        
+        String current = service.encode("Secret@123");
+        assertThat(current).startsWith("{bcrypt}");
+        assertThat(service.matches("Secret@123", current)).isTrue();
+        assertThat(service.upgradeEncoding(current)).isFalse();
+    }
+    
+    @Test
+    void rejectsWorkBeyondQueueCapacity() {
+        service = create(12, 1, 1);
+        
+        // A thread per caller, released together, so all six are in flight whatever the core count
+        int callers = 6;
+        CountDownLatch start = new CountDownLatch(1);
+        List<CompletableFuture<String>> calls = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(callers)) {
+            for (int i = 0; i < callers; i++) {
+                calls.add(CompletableFuture.supplyAsync(() -> {
+                    awaitUninterruptibly(start);
+                    return service.encode("Secret@123");
+                }, executor));
+            }
+            start.countDown();
+            
+            assertThatThrownBy(() -> calls.forEach(CompletableFuture::join))
+                    .hasCauseInstanceOf(ServiceOverloadedException.class);
+        }
+    }
+    
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    private PasswordHashingService create(int cost, int poolSize, int queueCapacity) {
+        PasswordHashingService hashing = new PasswordHashingService();
+        ReflectionTestUtils.setField(hashing, "algorithm", "bcrypt");
+        ReflectionTestUtils.setField(hashing, "bcryptCost", cost);
+        ReflectionTestUtils.setField(hashing, "poolSize", poolSize);
+        ReflectionTestUtils.setField(hashing, "queueCapacity", queueCapacity);
+        ReflectionTestUtils.setField(hashing, "timeoutMillis", 30_000L);
+        ReflectionTestUtils.setField(hashing, "retryAfterSeconds", 2L);
+        hashing.init();
+        return hashing;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,130 @@
+package com.datavion.authentication.service;
+
+import com.datavion.authentication.entity.KeyRingEntry;
+import com.datavion.authentication.repository.KeyRingEntryRepository;
+import com.datavion.authentication.security.KeyMaterialCipher;
+import com.datavion.authentication.security.KeyRingSigningKeyProvider;
+import com.datavion.authentication.util.JwtUtil;
+import io.jsonwebtoken.security.PublicJwk;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SigningKeyRotationServiceTest {
+    
+    private static final UserDetails USER = User.withUsername("alice").password("n/a").build();
+    private static final long ACCESS_TOKEN_EXPIRATION = 900000;
+    
+    private final Map<String, KeyRingEntry> table = new TreeMap<>();
+    private final KeyMaterialCipher cipher = new KeyMaterialCipher("ring-test-secret");
+    
+    private SigningKeyRotationService rotationService;
+    private KeyRingSigningKeyProvider provider;
+    private JwtUtil jwtUtil;
+    
+    @BeforeEach
+    void setUp() {
+        KeyRingEntryRepository repository = mock(KeyRingEntryRepository.class);
+        when(repository.findAll()).thenAnswer(invocation -> new ArrayList<>(table.values()));
+        when(repository.save(any())).thenAnswer(invocation -> store(invocation.getArgument(0)));
+        when(repository.saveAndFlush(any())).thenAnswer(invocation -> store(invocation.getArgument(0)));
+        doAnswer(invocation -> table.remove(invocation.<KeyRingEntry>getArgument(0).getKid()))
+                .when(repository).delete(any());
+        
+        rotationService = new SigningKeyRotationService(repository, null, cipher, null, null);
+        ReflectionTestUtils.setField(rotationService, "algorithm", "ES256");
+        ReflectionTestUtils.setField(rotationService, "accessTokenExpiration", ACCESS_TOKEN_EXPIRATION);
+        ReflectionTestUtils.setField(rotationService, "rotationIntervalHours", 24L);
+        ReflectionTestUtils.setField(rotationService, "publishAheadMinutes", 30L);
+        ReflectionTestUtils.setField(rotationService, "retireGraceMinutes", 5L);
+        
+        provider = new KeyRingSigningKeyProvider(repository, cipher, rotationService);
+        jwtUtil = new JwtUtil(null, provider);
+        ReflectionTestUtils.setField(jwtUtil, "accessTokenExpiration", ACCESS_TOKEN_EXPIRATION);
+        ReflectionTestUtils.invokeMethod(jwtUtil, "init");
+    }
+    
+    @Test
+    void rotationKeepsOldTokensValidUntilTheyExpire() {
+        LocalDateTime start = LocalDateTime.now().minusDays(2);
+        assertThat(rotationService.advance(start)).isTrue();
+        provider.reload();
+        
+        String firstKid = provider.signingKey().keyId();
+        String nextKid = kidIn(KeyRingEntry.State.NEXT);
+        // The next key is advertised before anything is signed with it
+        assertThat(provider.publicJwks()).extracting(jwk -> jwk.getId()).containsExactlyInAnyOrder(firstKid, nextKid);
+        String oldToken = jwtUtil.generateAccessToken(USER);
+        
+        assertThat(rotationService.advance(start.plusHours(1))).isFalse();
+        
+        LocalDateTime rotatedAt = start.plusHours(24);
+        assertThat(rotationService.advance(rotatedAt)).isTrue();
+        provider.reload();
+        
+        assertThat(provider.signingKey().keyId()).isEqualTo(nextKid);
+        assertThat(table.get(firstKid).getState()).isEqualTo(KeyRingEntry.State.RETIRING);
+        assertThat(table).hasSize(3);
+        assertThat(jwtUtil.parse(oldToken).username()).isEqualTo("alice");
+        assertThat(jwtUtil.parse(jwtUtil.generateAccessToken(USER)).username()).isEqualTo("alice");
+        
+        assertThat(rotationService.advance(rotatedAt.plusMinutes(10))).isFalse();
+        assertThat(rotationService.advance(rotatedAt.plusMinutes(21))).isTrue();
+        provider.reload();
+        
+        assertThat(table).doesNotContainKey(firstKid).hasSize(2);
+        assertThat(provider.verificationKey(firstKid)).isNull();
+    }
+    
+    @Test
+    void publishedKeysKeepTheirInstanceUntilAKidChanges() {
+        LocalDateTime start = LocalDateTime.now().minusDays(2);
+        rotationService.advance(start);
+        provider.reload();
+        List<PublicJwk<?>> published = provider.publicJwks();
+        
+        provider.reload();
+        assertThat(provider.publicJwks()).isSameAs(published);
+        
+        rotationService.advance(start.plusHours(24));
+        provider.reload();
+        assertThat(provider.publicJwks()).isNotSameAs(published).hasSize(3);
+    }
+    
+    @Test
+    void privateKeysAreStoredEncrypted() {
+        rotationService.advance(LocalDateTime.now());
+        KeyRingEntry active = table.get(kidIn(KeyRingEntry.State.ACTIVE));
+        
+        byte[] decrypted = cipher.decrypt(active.getPrivateKey(), active.getKid());
+        assertThat(active.getPrivateKey()).isNotEqualTo(decrypted);
+        assertThatThrownBy(() -> new KeyMaterialCipher("another-secret").decrypt(active.getPrivateKey(), active.getKid()))
+                .isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> cipher.decrypt(active.getPrivateKey(), "some-other-kid"))
+                .isInstanceOf(IllegalStateException.class);
+    }
+    
+    private KeyRingEntry store(KeyRingEntry entry) {
+        table.put(entry.getKid(), entry);
+        return entry;
+    }
+    
+    private String kidIn(KeyRingEntry.State state) {
+        return table.values().stream().filter(entry -> entry.getState() == state).findFirst().orElseThrow().getKid();
+    }
+}
\ No newline at end of file
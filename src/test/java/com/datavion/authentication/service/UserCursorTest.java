@@ -0,0 +1,34 @@
+package com.datavion.authentication.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class UserCursorTest {
+    
+    @Test
+    void roundTripsAtMicrosecondPrecision() {
+        UserCursor cursor = new UserCursor(LocalDateTime.of(2026, 3, 14, 15, 9, 26, 535_897_000), 9_007_199_254L);
+        
+        String token = cursor.encode();
+        
+        assertThat(token).matches("[A-Za-z0-9_-]+");
+        assertThat(UserCursor.decode(token)).isEqualTo(cursor);
+    }
+    
+    @Test
+    void handlesTimestampsBeforeTheEpoch() {
+        UserCursor cursor = new UserCursor(LocalDateTime.of(1969, 12, 31, 23, 59, 59, 999_999_000), 1);
+        
+        assertThat(UserCursor.decode(cursor.encode())).isEqualTo(cursor);
+    }
+    
+    @Test
+    void rejectsTokensItDidNotIssue() {
+        assertThatThrownBy(() -> UserCursor.decode("not a cursor")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> UserCursor.decode("AAAA")).isInstanceOf(IllegalArgumentException.class);
+    }
+}
\ No newline at end of file
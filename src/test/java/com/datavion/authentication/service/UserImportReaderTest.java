@@ -0,0 +1,84 @@
+package com.datavion.authentication.service;
+
+import com.datavion.authentication.entity.UserImportJob;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class UserImportReaderTest {
+    
+    @Test
+    void readsCsvColumnsByHeaderNameWithQuotedFields() throws IOException {
+        UserImportReader reader = reader(UserImportJob.Format.CSV, false, """
+                email,Password,username
+                alice@example.com,"Pa,ss""1!word",alice
+                
+                "bob@example.com",Secret1!,bob
+                "broken@example.com,Secret1!,broken
+                """);
+        
+        List<UserImportReader.ImportRow> rows = reader.readChunk(10);
+        
+        assertThat(rows).hasSize(3);
+        assertThat(rows.get(0)).isEqualTo(new UserImportReader.ImportRow(2, "alice", "alice@example.com", "Pa,ss\"1!word", null));
+        assertThat(rows.get(1).lineNumber()).isEqualTo(4);
+        assertThat(rows.get(1).email()).isEqualTo("bob@example.com");
+        assertThat(rows.get(2).error()).isEqualTo("Unterminated quoted field");
+        assertThat(reader.readChunk(10)).isEmpty();
+        assertThat(reader.getLinesRead()).isEqualTo(5);
+    }
+    
+    @Test
+    void resumesAfterTheCheckpointInChunks() throws IOException {
+        String csv = """
+                username,email,password_hash
+                u1,u1@example.com,{bcrypt}h1
+                u2,u2@example.com,{bcrypt}h2
+                u3,u3@example.com,{bcrypt}h3
+                u4,u4@example.com,{bcrypt}h4
+                """;
+        UserImportReader firstRun = reader(UserImportJob.Format.CSV, true, csv);
+        assertThat(firstRun.readChunk(2)).extracting(UserImportReader.ImportRow::username).containsExactly("u1", "u2");
+        long checkpoint = firstRun.getLinesRead();
+        
+        UserImportReader resumed = reader(UserImportJob.Format.CSV, true, csv);
+        resumed.skipTo(checkpoint);
+        
+        List<UserImportReader.ImportRow> rest = resumed.readChunk(10);
+        assertThat(rest).extracting(UserImportReader.ImportRow::username).containsExactly("u3", "u4");
+        assertThat(rest.get(0).password()).isEqualTo("{bcrypt}h3");
+    }
+    
+    @Test
+    void readsNdjsonAndFlagsMalformedLines() throws IOException {
+        UserImportReader reader = reader(UserImportJob.Format.NDJSON, false, """
+                {"username":"carol","email":"carol@example.com","password":"Secret1!"}
+                not json
+                [1,2]
+                """);
+        
+        List<UserImportReader.ImportRow> rows = reader.readChunk(10);
+        
+        assertThat(rows.get(0)).isEqualTo(new UserImportReader.ImportRow(1, "carol", "carol@example.com", "Secret1!", null));
+        assertThat(rows.get(1).error()).isEqualTo("Malformed JSON");
+        assertThat(rows.get(2).error()).isEqualTo("Line is not a JSON object");
+    }
+    
+    @Test
+    void rejectsCsvWithoutRequiredColumns() {
+        assertThatThrownBy(() -> reader(UserImportJob.Format.CSV, false, "username,email\n"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("password");
+    }
+    
+    private static UserImportReader reader(UserImportJob.Format format, boolean preHashed, String content)
+            throws IOException {
+        return new UserImportReader(new BufferedReader(new StringReader(content)), format, preHashed);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,139 @@
+package com.datavion.authentication.service;
+
+import com.datavion.authentication.entity.Role;
+import com.datavion.authentication.entity.UserImportJob;
+import com.datavion.authentication.repository.RoleRepository;
+import com.datavion.authentication.repository.UserImportJobRepository;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.security.crypto.password.NoOpPasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class UserImportServiceTest {
+    
+    private static final String BCRYPT_HASH = "$2a$10$" + "a".repeat(53);
+    
+    @TempDir
+    Path tempDir;
+    
+    private UserImportWriter writer;
+    private SchedulerLeaseService leaseService;
+    private PasswordHashingService passwordHashingService;
+    private UserImportService service;
+    
+    @BeforeEach
+    void setUp() {
+        writer = mock(UserImportWriter.class);
+        passwordHashingService = mock(PasswordHashingService.class);
+        when(writer.findTaken(anyCollection(), anyCollection()))
+                .thenReturn(new UserImportWriter.Taken(Set.of(), Set.of()));
+        RoleRepository roleRepository = mock(RoleRepository.class);
+        when(roleRepository.findByName("USER")).thenReturn(Optional.of(Role.builder().id(1L).name("USER").build()));
+        leaseService = mock(SchedulerLeaseService.class);
+        when(leaseService.tryAcquire(anyString(), any())).thenReturn(true);
+        
+        service = new UserImportService(mock(UserImportJobRepository.class), writer, roleRepository, leaseService,
+                passwordHashingService, mock(AuditLogService.class),
+                Validation.buildDefaultValidatorFactory().getValidator());
+        ReflectionTestUtils.setField(service, "chunkSize", 2);
+        ReflectionTestUtils.setField(service, "hashParallelism", 1);
+        ReflectionTestUtils.setField(service, "leaseSeconds", 120L);
+        service.init();
+    }
+    
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+    
+    @Test
+    void databaseErrorLeavesTheJobResumable() throws IOException {
+        Path spool = spool("username,email,password_hash\nalice,alice@example.com," + BCRYPT_HASH + "\n");
+        when(writer.commitChunk(anyLong(), anyList(), anyLong(), any(), anyList(), anyLong(), anyLong()))
+                .thenThrow(new QueryTimeoutException("pool timeout"));
+        
+        service.run(job(spool));
+        
+        assertThat(spool).exists();
+        verify(writer).requeue(7L);
+        verify(writer, never()).finish(anyLong(), anyString(), any());
+    }
+    
+    @Test
+    void unusableUploadFailsTheJobAndDropsTheSpool() throws IOException {
+        Path spool = spool("name,mail\nalice,alice@example.com\n");
+        
+        service.run(job(spool));
+        
+        assertThat(spool).doesNotExist();
+        verify(writer).finish(eq(7L), eq("FAILED"), contains("CSV header"));
+        verify(writer, never()).requeue(anyLong());
+    }
+    
+    @Test
+    void chunkIsFencedOnTheCheckpointItStartedFrom() throws IOException {
+        Path spool = spool("username,email,password_hash\nalice,alice@example.com," + BCRYPT_HASH
+                + "\nbob,bob@example.com," + BCRYPT_HASH + "\ncarol,carol@example.com," + BCRYPT_HASH + "\n");
+        when(writer.commitChunk(anyLong(), anyList(), anyLong(), any(), anyList(), eq(0L), eq(3L))).thenReturn(2);
+        when(writer.commitChunk(anyLong(), anyList(), anyLong(), any(), anyList(), eq(3L), eq(4L)))
+                .thenThrow(new UserImportWriter.CheckpointMovedException(7L, 3L));
+        
+        service.run(job(spool));
+        
+        // Another instance advanced the job, so this one stops without touching it or its spool
+        assertThat(spool).exists();
+        verify(writer, never()).requeue(anyLong());
+        verify(writer, never()).finish(anyLong(), anyString(), any());
+    }
+    
+    @Test
+    void leaseIsRenewedBetweenHashSlices() throws IOException {
+        StringBuilder csv = new StringBuilder("username,email,password\n");
+        for (int i = 0; i < 40; i++) {
+            csv.append("user").append(i).append(",user").append(i).append("@example.com,Passw0rd!x\n");
+        }
+        Path spool = spool(csv.toString());
+        when(passwordHashingService.unboundedEncoder()).thenReturn(NoOpPasswordEncoder.getInstance());
+        ReflectionTestUtils.setField(service, "chunkSize", 40);
+        // The first renewal succeeds, the second finds the lease taken
+        when(leaseService.tryAcquire(anyString(), any())).thenReturn(true, false);
+        
+        UserImportJob job = job(spool);
+        job.setPreHashed(false);
+        service.run(job);
+        
+        verify(leaseService, times(2)).tryAcquire(anyString(), any());
+        verify(writer, never()).commitChunk(anyLong(), anyList(), anyLong(), any(), anyList(), anyLong(), anyLong());
+        assertThat(spool).exists();
+    }
+    
+    private Path spool(String content) throws IOException {
+        Path spool = tempDir.resolve("import.csv");
+        Files.writeString(spool, content);
+        return spool;
+    }
+    
+    private static UserImportJob job(Path spool) {
+        return UserImportJob.builder()
+                .id(7L)
+                .format(UserImportJob.Format.CSV)
+                .preHashed(true)
+                .spoolPath(spool.toString())
+                .status(UserImportJob.Status.PENDING)
+                .build();
+    }
+}
\ No newline at end of file
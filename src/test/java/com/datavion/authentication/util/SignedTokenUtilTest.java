@@ -0,0 +1,60 @@
+package com.datavion.authentication.util;
+
+import com.datavion.authentication.util.SignedTokenUtil.SignedToken;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SignedTokenUtilTest {
+    
+    private static final Instant EXPIRY = Instant.parse("2026-01-01T12:00:00Z");
+    
+    private TokenHashUtil tokenHashUtil;
+    private SignedTokenUtil signedTokenUtil;
+    
+    @BeforeEach
+    void setUp() {
+        tokenHashUtil = new TokenHashUtil();
+        ReflectionTestUtils.setField(tokenHashUtil, "secret", "test-secret-with-enough-entropy-for-hmac");
+        ReflectionTestUtils.invokeMethod(tokenHashUtil, "init");
+        signedTokenUtil = new SignedTokenUtil(tokenHashUtil);
+    }
+    
+    @Test
+    void tokenVerifiesOnlyAgainstTheStampItWasIssuedFor() {
+        String token = signedTokenUtil.issue(SignedTokenUtil.PURPOSE_PASSWORD_RESET, 42L, EXPIRY, "$2a$12$oldhash");
+        
+        assertThat(SignedTokenUtil.isSigned(token)).isTrue();
+        SignedToken decoded = signedTokenUtil.decode(token, SignedTokenUtil.PURPOSE_PASSWORD_RESET).orElseThrow();
+        assertThat(decoded.userId()).isEqualTo(42L);
+        assertThat(decoded.expiresAt()).isEqualTo(EXPIRY);
+        assertThat(decoded.isExpired(EXPIRY.plusSeconds(1))).isTrue();
+        
+        assertThat(signedTokenUtil.verify(decoded, "$2a$12$oldhash")).isTrue();
+        // Once the password changes the same link no longer verifies
+        assertThat(signedTokenUtil.verify(decoded, "$2a$12$newhash")).isFalse();
+    }
+    
+    @Test
+    void tamperedOrMisusedTokensAreRejected() {
+        String token = signedTokenUtil.issue(SignedTokenUtil.PURPOSE_VERIFY_EMAIL, 7L, EXPIRY, "user@example.com");
+        
+        assertThat(signedTokenUtil.decode(token, SignedTokenUtil.PURPOSE_PASSWORD_RESET)).isEmpty();
+        assertThat(signedTokenUtil.decode("not-base64!.x", SignedTokenUtil.PURPOSE_VERIFY_EMAIL)).isEmpty();
+        
+        // Pointing the payload at another user invalidates the MAC
+        String forged = signedTokenUtil.issue(SignedTokenUtil.PURPOSE_VERIFY_EMAIL, 8L, EXPIRY, "user@example.com")
+                .split("\\.")[0] + token.substring(token.indexOf('.'));
+        SignedToken decoded = signedTokenUtil.decode(forged, SignedTokenUtil.PURPOSE_VERIFY_EMAIL).orElseThrow();
+        assertThat(signedTokenUtil.verify(decoded, "user@example.com")).isFalse();
+    }
+    
+    @Test
+    void opaqueTokensAreNotMistakenForSignedOnes() {
+        assertThat(SignedTokenUtil.isSigned(tokenHashUtil.generateOpaqueToken())).isFalse();
+    }
+}
\ No newline at end of file